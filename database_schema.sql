@@ -21,6 +21,8 @@ CREATE TABLE IF NOT EXISTS users (
     role_id BIGINT NOT NULL,
     librarian_id VARCHAR(50),              -- Librarian ID (librarians only)
     is_verified BOOLEAN DEFAULT FALSE,     -- Librarian accounts need external verification
+    verification_attempts INT DEFAULT 0,   -- External verification attempts made
+    next_verification_at TIMESTAMP,        -- Next background verification attempt (NULL = none pending)
     created_at TIMESTAMP DEFAULT NOW(),
     updated_at TIMESTAMP DEFAULT NOW()
 );
@@ -29,6 +31,22 @@ CREATE TABLE IF NOT EXISTS users (
 CREATE INDEX IF NOT EXISTS idx_users_role_id ON users(role_id);
 CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
 CREATE INDEX IF NOT EXISTS idx_users_librarian_id ON users(librarian_id);
+CREATE INDEX IF NOT EXISTS idx_users_next_verification_at ON users(next_verification_at) WHERE next_verification_at IS NOT NULL;
+
+-- Refresh tokens (SHA-256 hashes only; rotated on every refresh)
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id BIGSERIAL PRIMARY KEY,
+    token_hash VARCHAR(64) UNIQUE NOT NULL,
+    user_id BIGINT NOT NULL,
+    family_id VARCHAR(36) NOT NULL,        -- Tokens rotated from the same login
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP,                  -- Set when rotated or revoked
+    created_at TIMESTAMP DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user_id ON refresh_tokens(user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family_id ON refresh_tokens(family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens(expires_at);
 
 
 
@@ -58,6 +76,10 @@ CREATE TABLE IF NOT EXISTS books (
     updated_at TIMESTAMP DEFAULT NOW()
 );
 
+-- Book IDs are allocated by Hibernate in blocks of 50 (must match allocationSize on the entity;
+-- the application applies the same change at startup for databases created before this)
+ALTER SEQUENCE books_id_seq INCREMENT BY 50;
+
 -- Book related indexes
 CREATE INDEX IF NOT EXISTS idx_books_category ON books(category);
 CREATE INDEX IF NOT EXISTS idx_books_title ON books(title);
@@ -65,6 +87,12 @@ CREATE INDEX IF NOT EXISTS idx_books_author ON books(author);
 CREATE INDEX IF NOT EXISTS idx_books_published_year ON books(published_year);
 CREATE INDEX IF NOT EXISTS idx_books_search ON books(title, author, published_year);
 
+-- Trigram indexes for substring (ILIKE '%...%') search and similarity ranking
+-- Used when library.search.mode = trigram (the application also creates these at startup)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_books_title_trgm ON books USING gin (title gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_author_trgm ON books USING gin (author gin_trgm_ops);
+
 -- Book copies (one book may have multiple copies, different branches)
 CREATE TABLE IF NOT EXISTS book_copies (
     id BIGSERIAL PRIMARY KEY,
@@ -78,6 +106,10 @@ CREATE TABLE IF NOT EXISTS book_copies (
     UNIQUE(book_id, library_id, copy_number)
 );
 
+-- BookCopy IDs are allocated by Hibernate in blocks of 50 (must match allocationSize on the entity;
+-- the application applies the same change at startup for databases created before this)
+ALTER SEQUENCE book_copies_id_seq INCREMENT BY 50;
+
 -- Copy related indexes
 CREATE INDEX IF NOT EXISTS idx_book_copies_library_id ON book_copies(library_id);
 CREATE INDEX IF NOT EXISTS idx_book_copies_status ON book_copies(status);
@@ -107,6 +139,15 @@ CREATE INDEX IF NOT EXISTS idx_borrow_records_status ON borrow_records(status);
 CREATE INDEX IF NOT EXISTS idx_borrow_records_user_status ON borrow_records(user_id, status);
 CREATE INDEX IF NOT EXISTS idx_borrow_records_overdue ON borrow_records(user_id, due_at, status);
 
+-- Active loan counters per user and book type (checked on every borrow)
+CREATE TABLE IF NOT EXISTS user_loan_counters (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    book_type VARCHAR(20) NOT NULL CHECK (book_type IN ('圖書', '書籍')),
+    active_count INT NOT NULL DEFAULT 0 CHECK (active_count >= 0),
+    UNIQUE(user_id, book_type)
+);
+
 -- ========================================
 -- 4. Due Notifications
 -- ========================================
@@ -0,0 +1,72 @@
+package com.library.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Database Schema Initializer - Applies the PostgreSQL objects Hibernate cannot manage
+ *
+ * The schema itself comes from ddl-auto, which knows nothing about extensions or GIN indexes.
+ * Once Hibernate has created or updated the tables (and before the web server starts), this
+ * creates the pg_trgm extension and the trigram indexes used by library.search.mode = trigram.
+ * Every statement is idempotent, so it is safe on every startup; other databases are skipped.
+ * Sequence increments are handled earlier, by PooledSequenceMigration.
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+public class DatabaseSchemaInitializer implements SmartInitializingSingleton {
+
+    private static final String[] TRIGRAM_STATEMENTS = {
+        "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+        "CREATE INDEX IF NOT EXISTS idx_books_title_trgm ON books USING gin (title gin_trgm_ops)",
+        "CREATE INDEX IF NOT EXISTS idx_books_author_trgm ON books USING gin (author gin_trgm_ops)"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean trigramAvailable;
+
+    public DatabaseSchemaInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isPostgreSql()) {
+            return;
+        }
+        try {
+            for (String statement : TRIGRAM_STATEMENTS) {
+                jdbcTemplate.execute(statement);
+            }
+            trigramAvailable = true;
+        } catch (DataAccessException e) {
+            log.warn("pg_trgm could not be set up, trigram search falls back to ILIKE: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the pg_trgm extension and indexes are in place
+     */
+    public boolean isTrigramAvailable() {
+        return trigramAvailable;
+    }
+
+    boolean isPostgreSql() {
+        try {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+            return "PostgreSQL".equalsIgnoreCase(product);
+        } catch (DataAccessException e) {
+            log.warn("Could not determine the database product: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.library.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pooled Sequence Migration - Aligns sequence increments with the entity allocationSize
+ *
+ * Book and BookCopy ids come from pooled sequences (allocationSize = 50), but databases created
+ * from BIGSERIAL columns have sequences incrementing by 1, and ddl-auto never alters an existing
+ * sequence. Hibernate validates the increment while the EntityManagerFactory is built and refuses
+ * to start on a mismatch, so this runs before it on PostgreSQL; other databases are skipped.
+ *
+ * The bean depends on nothing but the DataSource (it builds its own JdbcTemplate): the
+ * auto-configured JdbcTemplate waits for the EntityManagerFactory, which waits for this bean.
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+@Slf4j
+@Component
+public class PooledSequenceMigration implements InitializingBean {
+
+    /**
+     * Sequence name to the allocationSize of the entity that uses it (Book, BookCopy)
+     */
+    static final Map<String, Integer> POOLED_SEQUENCES = Map.of(
+        "books_id_seq", 50,
+        "book_copies_id_seq", 50
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PooledSequenceMigration(DataSource dataSource) {
+        this(new JdbcTemplate(dataSource));
+    }
+
+    PooledSequenceMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Raise the increment of every pooled sequence that does not match its allocationSize
+     *
+     * A sequence that does not exist yet is left alone; ddl-auto creates it with the right increment.
+     * Raising the increment of a used sequence is safe: the next value is the top of a fresh block
+     * above every id handed out so far.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (!isPostgreSql()) {
+            return;
+        }
+        POOLED_SEQUENCES.forEach((sequence, allocationSize) -> {
+            List<Long> increments = jdbcTemplate.queryForList(
+                "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?",
+                Long.class, sequence);
+            if (increments.isEmpty() || increments.get(0) == allocationSize.longValue()) {
+                return;
+            }
+            log.info("Changing {} increment from {} to {} to match the entity allocationSize",
+                sequence, increments.get(0), allocationSize);
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + allocationSize);
+        });
+    }
+
+    private boolean isPostgreSql() {
+        try {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+            return "PostgreSQL".equalsIgnoreCase(product);
+        } catch (DataAccessException e) {
+            log.warn("Could not determine the database product: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Makes the EntityManagerFactory wait for the migration above
+     */
+    @Component
+    static class EntityManagerFactoryDependency extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependency() {
+            super(PooledSequenceMigration.class);
+        }
+    }
+}
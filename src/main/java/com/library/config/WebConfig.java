@@ -0,0 +1,31 @@
+package com.library.config;
+
+import com.library.security.CurrentUserArgumentResolver;
+import com.library.service.UserService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Web MVC Configuration - Registers custom controller argument resolvers
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<UserService> userServiceProvider;
+
+    public WebConfig(ObjectProvider<UserService> userServiceProvider) {
+        this.userServiceProvider = userServiceProvider;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new CurrentUserArgumentResolver(userServiceProvider));
+    }
+}
@@ -4,10 +4,13 @@ import com.library.dto.ApiResponse;
 import com.library.dto.request.LibrarianRegisterRequest;
 import com.library.dto.request.RegisterRequest;
 import com.library.dto.request.LoginRequest;
+import com.library.dto.request.RefreshTokenRequest;
 import com.library.dto.response.LoginResponse;
 import com.library.dto.response.UserResponse;
 import com.library.entity.User;
 import com.library.security.JwtTokenProvider;
+import com.library.security.LoginRateLimiter;
+import com.library.service.RefreshTokenService;
 import com.library.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -25,6 +28,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 /**
@@ -42,11 +46,16 @@ public class AuthController {
     private final UserService userService;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider tokenProvider;
+    private final LoginRateLimiter loginRateLimiter;
+    private final RefreshTokenService refreshTokenService;
     
-    public AuthController(UserService userService, AuthenticationManager authenticationManager, JwtTokenProvider tokenProvider) {
+    public AuthController(UserService userService, AuthenticationManager authenticationManager, JwtTokenProvider tokenProvider,
+                          LoginRateLimiter loginRateLimiter, RefreshTokenService refreshTokenService) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
         this.tokenProvider = tokenProvider;
+        this.loginRateLimiter = loginRateLimiter;
+        this.refreshTokenService = refreshTokenService;
     }
     
     /**
@@ -131,7 +140,7 @@ public class AuthController {
     @PostMapping("/register/librarian")
     @Operation(
         summary = "Register new librarian",
-        description = "Register a new librarian account with external verification"
+        description = "Register a new librarian account; the librarian ID is verified with the external system in the background and login is allowed once verified"
     )
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
@@ -140,7 +149,7 @@ public class AuthController {
         ),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "400",
-            description = "Invalid input data or external verification failed"
+            description = "Invalid input data"
         )
     })
     public ResponseEntity<ApiResponse<UserResponse>> registerLibrarian(
@@ -195,6 +204,8 @@ public class AuthController {
                         "data": {
                             "token": "eyJhbGciOiJIUzUxMiJ9...",
                             "tokenType": "Bearer",
+                            "refreshToken": "Hq0m4n6Xb1...",
+                            "expiresIn": 900,
                             "user": {
                                 "id": 1,
                                 "username": "john_doe",
@@ -221,25 +232,74 @@ public class AuthController {
                     """
                 )
             )
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "429",
+            description = "Too many login attempts for this email or client"
         )
     })
     public ResponseEntity<ApiResponse<LoginResponse>> login(
         @Parameter(description = "Login credentials", required = true)
-        @RequestBody @Valid LoginRequest request
+        @RequestBody @Valid LoginRequest request,
+        HttpServletRequest httpRequest
     ) {
+        // Throttle before any password hashing happens
+        loginRateLimiter.acquire(request.getEmail(), httpRequest.getRemoteAddr());
+        
         Authentication authentication = authenticationManager.authenticate(
             new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
         );
+        loginRateLimiter.reset(request.getEmail());
         
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = tokenProvider.generateToken(authentication);
         
         User user = userService.findByEmail(request.getEmail())
             .orElseThrow(() -> new RuntimeException("User not found"));
-        LoginResponse loginResponse = new LoginResponse(jwt, user.getRole().getName());
+        String refreshToken = refreshTokenService.issue(user.getId());
+        LoginResponse loginResponse = new LoginResponse(jwt, refreshToken, accessTokenLifetimeSeconds(),
+            user.getRole().getName());
         
         return ResponseEntity.ok(ApiResponse.success(loginResponse, "Login successful"));
     }
     
+    /**
+     * Exchange a refresh token for a new access/refresh token pair
+     * 
+     * @param request Refresh token request
+     * @return New JWT token and rotated refresh token
+     */
+    @PostMapping("/refresh")
+    @Operation(
+        summary = "Refresh access token",
+        description = "Exchange a refresh token for a new access token and a new refresh token. " +
+                      "The presented refresh token is revoked; presenting it again revokes every token from the same login."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Token refreshed successfully"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "401",
+            description = "Refresh token is invalid, expired or was already used"
+        )
+    })
+    public ResponseEntity<ApiResponse<LoginResponse>> refresh(
+        @Parameter(description = "Refresh token from login or the previous refresh", required = true)
+        @RequestBody @Valid RefreshTokenRequest request
+    ) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        String jwt = tokenProvider.generateToken(rotation.principal());
+        LoginResponse loginResponse = new LoginResponse(jwt, rotation.refreshToken(), accessTokenLifetimeSeconds(),
+            rotation.principal().getRole());
+        
+        return ResponseEntity.ok(ApiResponse.success(loginResponse, "Token refreshed successfully"));
+    }
+    
+    private long accessTokenLifetimeSeconds() {
+        return tokenProvider.getExpirationMs() / 1000;
+    }
+    
 
 }
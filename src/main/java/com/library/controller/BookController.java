@@ -10,26 +10,37 @@ import com.library.dto.response.BookResponse;
 import com.library.dto.response.BookWithCopiesResponse;
 import com.library.dto.response.BookCopyResponse;
 import com.library.dto.response.BookWithCopySummaryResponse;
+import com.library.dto.response.CatalogImportResponse;
+import com.library.dto.response.CursorPageResponse;
+import com.library.dto.response.PageResponse;
 import com.library.entity.Book;
 import com.library.entity.BookCopy;
-import com.library.entity.User;
 import com.library.service.BookService;
-import com.library.service.UserService;
+import com.library.service.CatalogExportService;
+import com.library.service.CatalogImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Book Controller - Handles book management operations
@@ -44,31 +55,15 @@ import java.util.List;
 public class BookController {
     
     private final BookService bookService;
-    private final UserService userService;
+    private final CatalogImportService catalogImportService;
+    private final CatalogExportService catalogExportService;
     
-    public BookController(BookService bookService, UserService userService) {
+    public BookController(BookService bookService,
+                          CatalogImportService catalogImportService,
+                          CatalogExportService catalogExportService) {
         this.bookService = bookService;
-        this.userService = userService;
-    }
-    
-    /**
-     * Check if current user is a librarian
-     */
-    private boolean isLibrarian() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        User currentUser = userService.findByEmail(email)
-            .orElseThrow(() -> new RuntimeException("Current user not found"));
-        return "LIBRARIAN".equals(currentUser.getRole().getName());
-    }
-    
-    /**
-     * Check librarian permissions and throw exception if not authorized
-     */
-    private void checkLibrarianPermission() {
-        if (!isLibrarian()) {
-            throw new RuntimeException("Access denied. Only librarians can perform this operation.");
-        }
+        this.catalogImportService = catalogImportService;
+        this.catalogExportService = catalogExportService;
     }
     
     /**
@@ -77,12 +72,13 @@ public class BookController {
      * 
      * @param page Page number (default: 0)
      * @param size Page size (default: 10)
-     * @return List of books
+     * @param includeTotal Whether to count all books (default: false)
+     * @return Page of books
      */
     @GetMapping
     @Operation(
         summary = "Get all books",
-        description = "Retrieve all books with optional pagination. Accessible by all authenticated users."
+        description = "Retrieve all books with optional pagination. The total count is only calculated when includeTotal is true. Accessible by all authenticated users."
     )
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
@@ -90,14 +86,16 @@ public class BookController {
             description = "Books retrieved successfully"
         )
     })
-    public ResponseEntity<ApiResponse<List<BookResponse>>> getAllBooks(
+    public ResponseEntity<ApiResponse<PageResponse<BookResponse>>> getAllBooks(
         @Parameter(description = "Page number (0-based)", example = "0")
         @RequestParam(defaultValue = "0") int page,
-        @Parameter(description = "Page size", example = "10")
-        @RequestParam(defaultValue = "10") int size
+        @Parameter(description = "Page size (maximum 100)", example = "10")
+        @RequestParam(defaultValue = "10") int size,
+        @Parameter(description = "Include total number of books", example = "false")
+        @RequestParam(defaultValue = "false") boolean includeTotal
     ) {
-        List<Book> books = bookService.getAllBooks(page, size);
-        List<BookResponse> bookResponses = books.stream()
+        Slice<Book> books = bookService.getBooksPage(page, size, includeTotal);
+        List<BookResponse> bookResponses = books.getContent().stream()
             .map(book -> new BookResponse(
                 book.getId(),
                 book.getTitle(),
@@ -107,7 +105,58 @@ public class BookController {
                 book.getBookType()
             ))
             .toList();
-        return ResponseEntity.ok(ApiResponse.success(bookResponses));
+        return ResponseEntity.ok(ApiResponse.success(PageResponse.of(books, bookResponses)));
+    }
+    
+    /**
+     * Export the whole catalog with copy availability
+     * Access: LIBRARIAN only (a full-catalog scan, so it is not open to anonymous callers)
+     * 
+     * @param format ndjson (default) or csv
+     * @return Streamed file; books are written as they are read from the database
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @Operation(
+        summary = "Export catalog",
+        description = "Stream every book with its per-library copy counts. NDJSON returns one book (copy summary shape) per line; " +
+                     "CSV returns one line per book and library. Intended for bulk synchronization instead of paging through /api/v1/books. Librarians only."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Catalog streamed successfully",
+            content = @Content(
+                mediaType = "application/x-ndjson",
+                examples = @ExampleObject(
+                    value = """
+                    {"id":1,"title":"Java Programming Guide","author":"John Smith","publishedYear":2023,"category":"Programming","bookType":"圖書","copySummary":{"totalCopies":3,"availableCopies":2,"libraryCopies":[{"libraryId":1,"libraryName":"Central Library","totalCopies":3,"availableCopies":2}]}}
+                    """
+                )
+            )
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Unsupported format"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "403",
+            description = "Access denied - Librarian role required"
+        )
+    })
+    public ResponseEntity<StreamingResponseBody> exportCatalog(
+        @Parameter(description = "Export format: ndjson or csv", example = "ndjson")
+        @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        String exportFormat = catalogExportService.resolveFormat(format);
+        boolean csv = CatalogExportService.FORMAT_CSV.equals(exportFormat);
+        StreamingResponseBody body = output -> catalogExportService.export(output, exportFormat);
+        
+        return ResponseEntity.ok()
+            .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                             : MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"catalog." + exportFormat + "\"")
+            .body(body);
     }
     
     /**
@@ -152,6 +201,53 @@ public class BookController {
         return ResponseEntity.ok(ApiResponse.success(books));
     }
     
+    /**
+     * Search books with copy summary using cursor pagination
+     * Selected when the limit parameter is present
+     * Access: All authenticated users (MEMBER, LIBRARIAN)
+     * 
+     * @param title Book title (optional)
+     * @param author Book author (optional)
+     * @param publishedYear Published year (optional)
+     * @param libraryId Library ID to filter copies (optional)
+     * @param after Cursor returned by the previous page (optional)
+     * @param limit Page size
+     * @return Page of books with copy summary and the cursor for the next page
+     */
+    @GetMapping(value = "/search", params = "limit")
+    @Operation(
+        summary = "Search books with copy summary (cursor pagination)",
+        description = "Same search as above, paginated by cursor instead of page number. Pass the returned nextCursor as 'after' to get the next page. Accessible by all authenticated users."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Books with copy summary retrieved successfully"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor"
+        )
+    })
+    public ResponseEntity<ApiResponse<CursorPageResponse<BookWithCopySummaryResponse>>> searchBooksWithCursor(
+        @Parameter(description = "Book title", example = "Java")
+        @RequestParam(required = false) String title,
+        @Parameter(description = "Book author", example = "John Smith")
+        @RequestParam(required = false) String author,
+        @Parameter(description = "Published year", example = "2023")
+        @RequestParam(required = false) Integer publishedYear,
+        @Parameter(description = "Library ID to filter copies", example = "1")
+        @RequestParam(required = false) Long libraryId,
+        @Parameter(description = "Cursor from the previous page")
+        @RequestParam(required = false) String after,
+        @Parameter(description = "Page size (maximum 100)", example = "20")
+        @RequestParam int limit
+    ) {
+        CursorPageResponse<BookWithCopySummaryResponse> books = bookService.searchBooksWithCopySummaryAfter(
+            title, author, publishedYear, libraryId, after, limit);
+        return ResponseEntity.ok(ApiResponse.success(books));
+    }
+    
     /**
      * Get book by ID
      * Access: All authenticated users (MEMBER, LIBRARIAN)
@@ -198,6 +294,7 @@ public class BookController {
      * @return Created book information
      */
     @PostMapping
+    @PreAuthorize("hasRole('LIBRARIAN')")
     @Operation(
         summary = "Create new book (basic)",
         description = "Create a new book with the provided information (without copies). LIBRARIAN access only."
@@ -235,8 +332,6 @@ public class BookController {
         @Parameter(description = "Book creation information", required = true)
         @RequestBody @Valid CreateBookRequest request
     ) {
-        // Check librarian permissions
-        checkLibrarianPermission();
         Book book = bookService.createBook(
             request.getTitle(),
             request.getAuthor(),
@@ -267,6 +362,7 @@ public class BookController {
      * @return Created book information with copies details
      */
     @PostMapping("/with-copies")
+    @PreAuthorize("hasRole('LIBRARIAN')")
     @Operation(
         summary = "Create new book with copies",
         description = "Create a new book with multiple copies distributed across different libraries. LIBRARIAN access only."
@@ -315,8 +411,6 @@ public class BookController {
         @Parameter(description = "Book creation information with library copies", required = true)
         @RequestBody @Valid CreateBookWithCopiesRequest request
     ) {
-        // Check librarian permissions
-        checkLibrarianPermission();
         BookWithCopiesResponse response = bookService.createBookWithCopies(request);
         
         return ResponseEntity.status(HttpStatus.CREATED)
@@ -331,6 +425,7 @@ public class BookController {
      * @return Updated book information with new copies details
      */
     @PostMapping("/add-copies")
+    @PreAuthorize("hasRole('LIBRARIAN')")
     @Operation(
         summary = "Add copies to existing book",
         description = "Add more copies to an existing book across different libraries. LIBRARIAN access only."
@@ -383,14 +478,86 @@ public class BookController {
         @Parameter(description = "Add book copies information", required = true)
         @RequestBody @Valid AddBookCopiesRequest request
     ) {
-        // Check librarian permissions
-        checkLibrarianPermission();
         BookWithCopiesResponse response = bookService.addBookCopies(request);
         
         return ResponseEntity.status(HttpStatus.CREATED)
             .body(ApiResponse.success(response, "Book copies added successfully"));
     }
     
+    /**
+     * Bulk import books and copies from a CSV or JSON-lines file
+     * Access: LIBRARIAN only
+     * 
+     * @param file Catalog file (columns/keys: title, author, publishedYear, category, bookType, libraryId, copies)
+     * @param format csv or ndjson; derived from the file name when omitted
+     * @return Import summary with per-line errors for rejected rows
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @Operation(
+        summary = "Import book catalog",
+        description = "Stream a CSV (with header row) or JSON-lines file into the catalog. Existing books (same title, author and published year) " +
+                     "receive the new copies instead of being duplicated. Invalid rows are skipped and reported. LIBRARIAN access only."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Import finished",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(
+                    value = """
+                    {
+                        "success": true,
+                        "message": "Catalog import finished",
+                        "data": {
+                            "rowsRead": 3,
+                            "rowsImported": 2,
+                            "rowsRejected": 1,
+                            "booksCreated": 1,
+                            "booksMatched": 1,
+                            "copiesCreated": 4,
+                            "errors": [
+                                {"line": 4, "message": "Invalid book type: Magazine"}
+                            ]
+                        }
+                    }
+                    """
+                )
+            )
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Unsupported format or unreadable file"
+        )
+    })
+    public ResponseEntity<ApiResponse<CatalogImportResponse>> importCatalog(
+        @Parameter(description = "Catalog file", required = true)
+        @RequestParam("file") MultipartFile file,
+        @Parameter(description = "File format: csv or ndjson (default: from file extension)")
+        @RequestParam(required = false) String format
+    ) {
+        String importFormat = format != null ? format : formatFromFileName(file.getOriginalFilename());
+        CatalogImportResponse response;
+        try (InputStream input = file.getInputStream()) {
+            response = catalogImportService.importCatalog(input, importFormat);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read import file: " + e.getMessage());
+        }
+        
+        return ResponseEntity.ok(ApiResponse.success(response, "Catalog import finished"));
+    }
+    
+    /**
+     * Map a file extension to an import format (.csv, otherwise JSON lines)
+     */
+    private String formatFromFileName(String fileName) {
+        if (fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+            return CatalogImportService.FORMAT_CSV;
+        }
+        return CatalogImportService.FORMAT_NDJSON;
+    }
+    
 
     
 
@@ -487,6 +654,7 @@ public class BookController {
      * @return Updated book information
      */
     @PutMapping("/{id}")
+    @PreAuthorize("hasRole('LIBRARIAN')")
     @Operation(
         summary = "Update book",
         description = "Update book information"
@@ -511,9 +679,6 @@ public class BookController {
         @Parameter(description = "Update book information", required = true)
         @RequestBody @Valid UpdateBookRequest request
     ) {
-        // Check librarian permissions
-        checkLibrarianPermission();
-        
         Book updatedBook = bookService.updateBook(
             id,
             request.getTitle(),
@@ -543,6 +708,7 @@ public class BookController {
      * @return Updated book copy information
      */
     @PutMapping("/copies/{copyId}")
+    @PreAuthorize("hasRole('LIBRARIAN')")
     @Operation(
         summary = "Update book copy",
         description = "Update book copy information"
@@ -567,9 +733,6 @@ public class BookController {
         @Parameter(description = "Update book copy information", required = true)
         @RequestBody @Valid UpdateBookCopyRequest request
     ) {
-        // Check librarian permissions
-        checkLibrarianPermission();
-        
         BookCopy updatedCopy = bookService.updateBookCopy(
             copyId,
             request.getCopyNumber(),
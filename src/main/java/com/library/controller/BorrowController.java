@@ -1,12 +1,16 @@
 package com.library.controller;
 
 import com.library.dto.ApiResponse;
+import com.library.dto.request.BatchBorrowRequest;
+import com.library.dto.request.BatchReturnRequest;
 import com.library.dto.request.BorrowRequest;
+import com.library.dto.response.BatchBorrowResponse;
+import com.library.dto.response.BatchReturnResponse;
 import com.library.dto.response.BorrowRecordResponse;
 import com.library.entity.BorrowRecord;
-import com.library.entity.User;
+import com.library.security.CurrentUser;
+import com.library.security.UserPrincipal;
 import com.library.service.BorrowService;
-import com.library.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,7 +19,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
@@ -36,18 +40,16 @@ import java.util.List;
 public class BorrowController {
     
     private final BorrowService borrowService;
-    private final UserService userService;
     
-    public BorrowController(BorrowService borrowService, UserService userService) {
+    public BorrowController(BorrowService borrowService) {
         this.borrowService = borrowService;
-        this.userService = userService;
     }
     
     /**
      * Borrow a book
      * 
      * @param request Borrow request (only bookCopyId needed)
-     * @param authentication Current user authentication
+     * @param currentUser Authenticated user
      * @return Borrow record
      */
     @PostMapping
@@ -94,13 +96,8 @@ public class BorrowController {
     public ResponseEntity<ApiResponse<BorrowRecordResponse>> borrowBook(
         @Parameter(description = "Borrow request information (only bookCopyId required)", required = true)
         @RequestBody @Valid BorrowRequest request,
-        Authentication authentication
+        @CurrentUser UserPrincipal currentUser
     ) {
-        // Get current user from JWT token
-        String currentUserEmail = authentication.getName();
-        User currentUser = userService.findByEmail(currentUserEmail)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-        
         BorrowRecord record = borrowService.borrowBook(
             currentUser.getId(),  // Use current user ID instead of userId from request
             request.getBookCopyId()
@@ -110,6 +107,60 @@ public class BorrowController {
         return ResponseEntity.ok(ApiResponse.success(response, "Book borrowed successfully"));
     }
     
+    /**
+     * Borrow a basket of books
+     * 
+     * @param request Batch borrow request (list of bookCopyIds)
+     * @param currentUser Authenticated user
+     * @return Per-copy borrow results
+     */
+    @PostMapping("/batch")
+    @Operation(
+        summary = "Borrow multiple books",
+        description = "Borrow several book copies for the current authenticated user in one transaction. Each copy gets its own result; copies that are unavailable or over the borrowing limit are reported as failed."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Batch processed, see per-copy results",
+            content = @Content(
+                mediaType = "application/json",
+                examples = @ExampleObject(
+                    value = """
+                    {
+                        "success": true,
+                        "message": "Batch borrow processed",
+                        "data": {
+                            "results": [
+                                {"bookCopyId": 1, "success": true, "borrowRecordId": 10, "dueAt": "2024-02-15T10:00:00", "message": "Book borrowed successfully"},
+                                {"bookCopyId": 2, "success": false, "borrowRecordId": null, "dueAt": null, "message": "Book is not available"}
+                            ],
+                            "borrowedCount": 1,
+                            "failedCount": 1
+                        }
+                    }
+                    """
+                )
+            )
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Invalid request or user has overdue books"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "401",
+            description = "User not authenticated"
+        )
+    })
+    public ResponseEntity<ApiResponse<BatchBorrowResponse>> borrowBooks(
+        @Parameter(description = "Book copy IDs to borrow", required = true)
+        @RequestBody @Valid BatchBorrowRequest request,
+        @CurrentUser UserPrincipal currentUser
+    ) {
+        BatchBorrowResponse response = borrowService.borrowBooks(currentUser.getId(), request.getBookCopyIds());
+        return ResponseEntity.ok(ApiResponse.success(response, "Batch borrow processed"));
+    }
+    
     /**
      * Return a book
      * 
@@ -146,10 +197,44 @@ public class BorrowController {
     
 
     
+    /**
+     * Return a batch of books (Librarian only)
+     * 
+     * @param request Borrow record IDs and/or scanned book copy IDs
+     * @return Per-item return results
+     */
+    @PostMapping("/batch/return")
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    @Operation(
+        summary = "Return multiple books",
+        description = "Return books in bulk, e.g. when emptying a book-drop bin (librarians only). Items can be given as borrow record IDs or as scanned book copy IDs; each item gets its own result."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Batch processed, see per-item results"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "No items given or too many items"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "403",
+            description = "Access denied - Librarian role required"
+        )
+    })
+    public ResponseEntity<ApiResponse<BatchReturnResponse>> returnBooks(
+        @Parameter(description = "Borrow record IDs and/or book copy IDs to return", required = true)
+        @RequestBody @Valid BatchReturnRequest request
+    ) {
+        BatchReturnResponse response = borrowService.returnBooks(request.getBorrowRecordIds(), request.getBookCopyIds());
+        return ResponseEntity.ok(ApiResponse.success(response, "Batch return processed"));
+    }
+    
     /**
      * Get borrow records for the current authenticated user
      * 
-     * @param authentication Current user authentication
+     * @param currentUser Authenticated user
      * @return List of borrow records
      */
     @GetMapping
@@ -168,13 +253,8 @@ public class BorrowController {
         )
     })
     public ResponseEntity<ApiResponse<List<BorrowRecordResponse>>> getBorrowRecords(
-        Authentication authentication
+        @CurrentUser UserPrincipal currentUser
     ) {
-        // Get current user from JWT token
-        String currentUserEmail = authentication.getName();
-        User currentUser = userService.findByEmail(currentUserEmail)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-        
         List<BorrowRecord> records = borrowService.getActiveBorrows(currentUser.getId());
         
         List<BorrowRecordResponse> responses = records.stream()
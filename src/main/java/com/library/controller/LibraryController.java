@@ -5,9 +5,7 @@ import com.library.dto.request.CreateLibraryRequest;
 import com.library.dto.request.UpdateLibraryRequest;
 import com.library.dto.response.LibraryResponse;
 import com.library.entity.Library;
-import com.library.entity.User;
 import com.library.service.LibraryService;
-import com.library.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -16,8 +14,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
@@ -37,31 +34,9 @@ import java.util.List;
 public class LibraryController {
     
     private final LibraryService libraryService;
-    private final UserService userService;
     
-    public LibraryController(LibraryService libraryService, UserService userService) {
+    public LibraryController(LibraryService libraryService) {
         this.libraryService = libraryService;
-        this.userService = userService;
-    }
-    
-    /**
-     * Check if current user is a librarian
-     */
-    private boolean isLibrarian() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        User currentUser = userService.findByEmail(email)
-            .orElseThrow(() -> new RuntimeException("Current user not found"));
-        return "LIBRARIAN".equals(currentUser.getRole().getName());
-    }
-    
-    /**
-     * Check librarian permissions and throw exception if not authorized
-     */
-    private void checkLibrarianPermission() {
-        if (!isLibrarian()) {
-            throw new RuntimeException("Access denied. Only librarians can perform this operation.");
-        }
     }
     
     /**
@@ -171,6 +146,7 @@ public class LibraryController {
      * @return Created library information
      */
     @PostMapping
+    @PreAuthorize("hasRole('LIBRARIAN')")
     @Operation(
         summary = "Create new library",
         description = "Create a new library with the provided information"
@@ -206,9 +182,6 @@ public class LibraryController {
         @Parameter(description = "Library information", required = true)
         @RequestBody @Valid CreateLibraryRequest request
     ) {
-        // Check librarian permissions
-        checkLibrarianPermission();
-        
         Library createdLibrary = libraryService.createLibrary(
             request.getName(),
             request.getAddress(),
@@ -234,6 +207,7 @@ public class LibraryController {
      * @return Updated library information
      */
     @PutMapping("/{id}")
+    @PreAuthorize("hasRole('LIBRARIAN')")
     @Operation(
         summary = "Update library",
         description = "Update an existing library's information"
@@ -254,9 +228,6 @@ public class LibraryController {
         @Parameter(description = "Updated library information", required = true)
         @RequestBody @Valid UpdateLibraryRequest request
     ) {
-        // Check librarian permissions
-        checkLibrarianPermission();
-        
         Library updatedLibrary = libraryService.updateLibrary(
             id,
             request.getName(),
@@ -281,6 +252,7 @@ public class LibraryController {
      * @return Success message
      */
     @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('LIBRARIAN')")
     @Operation(
         summary = "Delete library",
         description = "Delete a library from the system"
@@ -299,9 +271,6 @@ public class LibraryController {
         @Parameter(description = "Library ID", required = true, example = "1")
         @PathVariable Long id
     ) {
-        // Check librarian permissions
-        checkLibrarianPermission();
-        
         libraryService.deleteLibrary(id);
         return ResponseEntity.ok(ApiResponse.success("Library deleted successfully"));
     }
@@ -6,6 +6,8 @@ import com.library.dto.response.UserResponse;
 import com.library.entity.Role;
 import com.library.entity.User;
 import com.library.repository.RoleRepository;
+import com.library.security.CurrentUser;
+import com.library.security.UserPrincipal;
 import com.library.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,6 +16,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
@@ -67,11 +70,11 @@ public class UserController {
     })
     public ResponseEntity<ApiResponse<UserResponse>> getUser(
         @Parameter(description = "User ID", required = true, example = "1")
-        @PathVariable Long id
+        @PathVariable Long id,
+        @CurrentUser UserPrincipal currentUser
     ) {
         // Check permissions: users can only view their own data, librarians can view all users
-        User currentUser = getCurrentUser();
-        if (!currentUser.getRole().getName().equals("LIBRARIAN") && !currentUser.getId().equals(id)) {
+        if (!currentUser.isLibrarian() && !currentUser.getId().equals(id)) {
             return ResponseEntity.status(403).body(ApiResponse.error("FORBIDDEN", "Access denied. You can only view your own information."));
         }
         
@@ -85,42 +88,6 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.success(userResponse));
     }
     
-    /**
-     * Get current authenticated user
-     */
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        
-        // Always use findByEmailWithRole to ensure role is loaded
-        User user = userService.findByEmailWithRole(email)
-            .orElseThrow(() -> new RuntimeException("Current user not found: " + email));
-        
-        // Ensure role is loaded
-        if (user.getRole() == null) {
-            throw new RuntimeException("User role not found for: " + email);
-        }
-        
-        return user;
-    }
-    
-    /**
-     * Check if current user is a librarian
-     */
-    private boolean isLibrarian() {
-        User currentUser = getCurrentUser();
-        return "LIBRARIAN".equals(currentUser.getRole().getName());
-    }
-    
-    /**
-     * Check librarian permissions and throw exception if not authorized
-     */
-    private void checkLibrarianPermission() {
-        if (!isLibrarian()) {
-            throw new RuntimeException("Access denied. Only librarians can perform this operation.");
-        }
-    }
-    
     /**
      * Debug endpoint to check current user
      */
@@ -166,6 +133,7 @@ public class UserController {
      * @return User information
      */
     @GetMapping("/email/{email}")
+    @PreAuthorize("hasRole('LIBRARIAN')")
     @Operation(
         summary = "Get user by email",
         description = "Retrieve a user by their email address. **Librarian access only.**"
@@ -184,9 +152,6 @@ public class UserController {
         @Parameter(description = "Email address", required = true, example = "john@example.com")
         @PathVariable String email
     ) {
-        // Check librarian permissions
-        checkLibrarianPermission();
-        
         User user = userService.findByEmail(email)
             .orElseThrow(() -> new RuntimeException("User not found"));
         UserResponse userResponse = new UserResponse(
@@ -205,6 +170,7 @@ public class UserController {
      * @return List of users with the specified role
      */
     @GetMapping("/role/{roleName}")
+    @PreAuthorize("hasRole('LIBRARIAN')")
     @Operation(
         summary = "Get users by role",
         description = "Retrieve all users with a specific role. **Librarian access only.**"
@@ -219,9 +185,6 @@ public class UserController {
         @Parameter(description = "Role name", required = true, example = "MEMBER", schema = @Schema(allowableValues = {"MEMBER", "LIBRARIAN"}))
         @PathVariable String roleName
     ) {
-        // Check librarian permissions
-        checkLibrarianPermission();
-        
         // Get role by name
         Role role = roleRepository.findByName(roleName)
             .orElseThrow(() -> new RuntimeException("Role not found: " + roleName));
@@ -252,6 +215,7 @@ public class UserController {
      * @return Updated user information
      */
     @PutMapping("/{id}/verification")
+    @PreAuthorize("hasRole('LIBRARIAN')")
     @Operation(
         summary = "Update user verification status",
         description = "Update the verification status of a user. **Librarian access only.**"
@@ -272,9 +236,6 @@ public class UserController {
         @Parameter(description = "Verification status", required = true, example = "true")
         @RequestParam boolean verified
     ) {
-        // Check librarian permissions
-        checkLibrarianPermission();
-        
         User user = userService.updateVerificationStatus(id, verified);
         
         UserResponse userResponse = new UserResponse(
@@ -317,11 +278,11 @@ public class UserController {
         @Parameter(description = "User ID", required = true, example = "1")
         @PathVariable Long id,
         @Parameter(description = "Update user information", required = true)
-        @RequestBody @Valid UpdateUserRequest request
+        @RequestBody @Valid UpdateUserRequest request,
+        @CurrentUser UserPrincipal currentUser
     ) {
         // Check permissions: users can only update their own data, librarians can update all users
-        User currentUser = getCurrentUser();
-        if (!currentUser.getRole().getName().equals("LIBRARIAN") && !currentUser.getId().equals(id)) {
+        if (!currentUser.isLibrarian() && !currentUser.getId().equals(id)) {
             return ResponseEntity.status(403).body(ApiResponse.error("FORBIDDEN", "Access denied. You can only update your own information."));
         }
         
@@ -0,0 +1,23 @@
+package com.library.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Batch borrow request DTO
+ * Check out a basket of book copies for the current user in one request
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@Data
+public class BatchBorrowRequest {
+    
+    @NotEmpty(message = "At least one book copy ID is required")
+    @Size(max = 50, message = "At most 50 book copies can be borrowed at once")
+    private List<@NotNull(message = "Book copy ID is required") Long> bookCopyIds;
+}
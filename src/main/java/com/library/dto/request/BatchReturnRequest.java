@@ -0,0 +1,31 @@
+package com.library.dto.request;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Batch return request DTO
+ * Return books by borrow record ID and/or by scanned book copy ID
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@Data
+public class BatchReturnRequest {
+    
+    @Size(max = 500, message = "At most 500 borrow records can be returned at once")
+    private List<@NotNull(message = "Borrow record ID is required") Long> borrowRecordIds;
+    
+    @Size(max = 500, message = "At most 500 book copies can be returned at once")
+    private List<@NotNull(message = "Book copy ID is required") Long> bookCopyIds;
+    
+    @AssertTrue(message = "At least one borrow record ID or book copy ID is required")
+    private boolean isNotEmpty() {
+        return (borrowRecordIds != null && !borrowRecordIds.isEmpty())
+            || (bookCopyIds != null && !bookCopyIds.isEmpty());
+    }
+}
@@ -0,0 +1,29 @@
+package com.library.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Catalog Import Row - One line of a catalog import file
+ * 
+ * CSV files use these field names as header columns; JSON-lines files use them as keys.
+ * A row creates the book if it does not exist yet and adds copies to the given library.
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CatalogImportRow {
+    private String title;
+    private String author;
+    private Integer publishedYear;
+    private String category;
+    private String bookType;
+    private Long libraryId;
+    private Integer copies;
+}
@@ -0,0 +1,17 @@
+package com.library.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * Refresh Token Request DTO
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+@Data
+public class RefreshTokenRequest {
+
+    @NotBlank(message = "Refresh token is required")
+    private String refreshToken;
+}
@@ -0,0 +1,34 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Batch Borrow Response DTO - Per-copy outcome of a batch checkout
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchBorrowResponse {
+    private List<ItemResult> results;
+    private int borrowedCount;
+    private int failedCount;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private Long bookCopyId;
+        private boolean success;
+        private Long borrowRecordId;
+        private LocalDateTime dueAt;
+        private String message;
+    }
+}
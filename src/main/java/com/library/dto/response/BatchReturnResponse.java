@@ -0,0 +1,32 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Batch Return Response DTO - Per-item outcome of a batch return
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchReturnResponse {
+    private List<ItemResult> results;
+    private int returnedCount;
+    private int failedCount;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private Long borrowRecordId;
+        private Long bookCopyId;
+        private boolean success;
+        private String message;
+    }
+}
@@ -0,0 +1,36 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Catalog Import Response DTO - Summary of a catalog import run
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogImportResponse {
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private long booksCreated;
+    private long booksMatched;
+    private long copiesCreated;
+    // Only the first errors are listed; rowsRejected holds the full count
+    private List<RowError> errors = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,25 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Cursor Page Response DTO - One page of results for keyset (cursor) pagination
+ * Pass nextCursor as the "after" parameter to fetch the following page
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    
+    private List<T> content;
+    private int limit;
+    private boolean hasNext;
+    private String nextCursor;
+}
@@ -17,10 +17,19 @@ public class LoginResponse {
 
     private String token;
     private String tokenType = "Bearer";
+    private String refreshToken;
+    private Long expiresIn; // Access token lifetime in seconds
     private String roleName;
 
     public LoginResponse(String token, String roleName) {
         this.token = token;
         this.roleName = roleName;
     }
+
+    public LoginResponse(String token, String refreshToken, Long expiresIn, String roleName) {
+        this.token = token;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+        this.roleName = roleName;
+    }
 }
@@ -0,0 +1,36 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Page Response DTO - Wraps one page of results with paging metadata
+ * totalElements is only populated when the total count was requested
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponse<T> {
+    
+    private List<T> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    private Long totalElements;
+    
+    /**
+     * Create page response from a slice and its converted content
+     */
+    public static <T> PageResponse<T> of(Slice<?> slice, List<T> content) {
+        Long totalElements = slice instanceof Page<?> page ? page.getTotalElements() : null;
+        return new PageResponse<>(content, slice.getNumber(), slice.getSize(), slice.hasNext(), totalElements);
+    }
+}
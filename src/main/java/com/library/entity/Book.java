@@ -27,8 +27,10 @@ import java.util.List;
 @AllArgsConstructor
 public class Book {
     
+    // Pooled sequence so bulk imports can batch book inserts (IDENTITY forces one round trip per row)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_id_seq")
+    @SequenceGenerator(name = "books_id_seq", sequenceName = "books_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "title", nullable = false, length = 200)
@@ -26,8 +26,10 @@ import java.util.List;
 @AllArgsConstructor
 public class BookCopy {
     
+    // Pooled sequence so Hibernate can batch copy inserts (IDENTITY forces one round trip per row)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_copies_id_seq")
+    @SequenceGenerator(name = "book_copies_id_seq", sequenceName = "book_copies_id_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
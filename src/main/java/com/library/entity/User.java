@@ -47,6 +47,14 @@ public class User {
     @Column(name = "is_verified")
     private Boolean isVerified = false;
     
+    // External verification attempts made for this librarian (see LibrarianVerificationService)
+    @Column(name = "verification_attempts")
+    private Integer verificationAttempts = 0;
+    
+    // When the next external verification attempt is due; null once verified, rejected or given up
+    @Column(name = "next_verification_at")
+    private LocalDateTime nextVerificationAt;
+    
     @CreatedDate
     @Column(name = "created_at")
     private LocalDateTime createdAt;
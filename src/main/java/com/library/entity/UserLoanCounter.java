@@ -0,0 +1,42 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * UserLoanCounter Entity - Number of active loans a user holds per book type
+ * Maintained by BorrowService on every borrow and return so limit checks need no row counting
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "user_loan_counters",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "book_type"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserLoanCounter {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "book_type", nullable = false, length = 20)
+    private String bookType; // Use BookType.TRADITIONAL or BookType.MODERN
+    
+    @Column(name = "active_count", nullable = false)
+    private Integer activeCount = 0;
+    
+    // Constructor for counter creation
+    public UserLoanCounter(Long userId, String bookType, Integer activeCount) {
+        this.userId = userId;
+        this.bookType = bookType;
+        this.activeCount = activeCount;
+    }
+}
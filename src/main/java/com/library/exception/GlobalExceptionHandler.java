@@ -3,6 +3,11 @@ package com.library.exception;
 import com.library.dto.ApiResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -20,6 +25,8 @@ import java.util.stream.Collectors;
 @ControllerAdvice
 public class GlobalExceptionHandler {
     
+    private final AuthenticationTrustResolver authenticationTrustResolver = new AuthenticationTrustResolverImpl();
+    
     /**
      * Handle validation errors
      */
@@ -36,6 +43,20 @@ public class GlobalExceptionHandler {
             .body(ApiResponse.error("VALIDATION_ERROR", errorMessage));
     }
     
+    /**
+     * Handle authorization failures from method security (@PreAuthorize)
+     * Callers that are not logged in are left to the authentication entry point (401)
+     */
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<ApiResponse<?>> handleAccessDenied(AccessDeniedException ex) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authenticationTrustResolver.isAnonymous(authentication)) {
+            throw ex;
+        }
+        return ResponseEntity.status(HttpStatus.FORBIDDEN)
+            .body(ApiResponse.error("FORBIDDEN", "Access denied"));
+    }
+    
     /**
      * Handle business logic errors
      */
@@ -53,6 +74,13 @@ public class GlobalExceptionHandler {
         } else if (message.contains("already") || message.contains("Limit reached")) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                 .body(ApiResponse.error("CONFLICT", message));
+        } else if (message.toLowerCase().contains("refresh token")) {
+            // Case-insensitive: "Invalid or expired refresh token" and "Refresh token reuse detected ..."
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(ApiResponse.error("UNAUTHORIZED", message));
+        } else if (message.contains("Too many")) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(ApiResponse.error("TOO_MANY_REQUESTS", message));
         } else {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error("BUSINESS_ERROR", message));
@@ -4,11 +4,15 @@ import com.library.entity.Book;
 import com.library.entity.BookCopy;
 import com.library.entity.Library;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * BookCopy Repository - Data access layer for BookCopy entity
@@ -17,7 +21,7 @@ import java.util.List;
  * @version 1.0.0
  */
 @Repository
-public interface BookCopyRepository extends JpaRepository<BookCopy, Long> {
+public interface BookCopyRepository extends JpaRepository<BookCopy, Long>, BookCopyRepositoryCustom {
     
     // Basic query methods
     List<BookCopy> findByBook(Book book);
@@ -46,4 +50,68 @@ public interface BookCopyRepository extends JpaRepository<BookCopy, Long> {
     // Find copies by book and library
     @Query("SELECT bc FROM BookCopy bc WHERE bc.book.id = :bookId AND bc.library.id = :libraryId")
     List<BookCopy> findByBookIdAndLibraryId(@Param("bookId") Long bookId, @Param("libraryId") Long libraryId);
+    
+    /**
+     * Set the given copies back to AVAILABLE with one set-based update
+     */
+    @Modifying
+    @Query("UPDATE BookCopy bc SET bc.status = 'AVAILABLE', bc.updatedAt = :now WHERE bc.id IN :ids")
+    int markAvailable(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    // Find copies by ID with their book loaded in the same query
+    @Query("SELECT bc FROM BookCopy bc JOIN FETCH bc.book WHERE bc.id IN :ids")
+    List<BookCopy> findAllWithBookByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Find a copy with its book and library loaded in the same query
+    @Query("SELECT bc FROM BookCopy bc JOIN FETCH bc.book JOIN FETCH bc.library WHERE bc.id = :id")
+    Optional<BookCopy> findWithBookAndLibraryById(@Param("id") Long id);
+    
+    /**
+     * Highest copy number of a book in a library, or 0 if it has no copies there
+     */
+    @Query("SELECT COALESCE(MAX(bc.copyNumber), 0) FROM BookCopy bc " +
+           "WHERE bc.book.id = :bookId AND bc.library.id = :libraryId")
+    int findMaxCopyNumber(@Param("bookId") Long bookId, @Param("libraryId") Long libraryId);
+    
+    // Check whether another copy already uses a copy number
+    boolean existsByBookIdAndLibraryIdAndCopyNumberAndIdNot(Long bookId, Long libraryId, Integer copyNumber, Long id);
+    
+    /**
+     * Atomically move a copy from expectedStatus to newStatus
+     * Returns the number of rows updated: 0 means the copy does not exist or its status has already changed.
+     * Pending changes are flushed first. The update bypasses the persistence context, so a caller holding
+     * the copy refreshes it after a successful claim (see BorrowService.borrowBook).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE BookCopy bc SET bc.status = :newStatus, bc.updatedAt = :now " +
+           "WHERE bc.id = :id AND bc.status = :expectedStatus")
+    int compareAndSetStatus(@Param("id") Long id,
+                            @Param("expectedStatus") String expectedStatus,
+                            @Param("newStatus") String newStatus,
+                            @Param("now") LocalDateTime now);
+    
+    /**
+     * Count total and available copies per (book, library) for a set of books in one grouped query
+     * libraryId is optional and restricts the counts to a single library
+     */
+    @Query("SELECT bc.book.id AS bookId, l.id AS libraryId, l.name AS libraryName, " +
+           "COUNT(bc) AS totalCopies, " +
+           "SUM(CASE WHEN bc.status = 'AVAILABLE' THEN 1 ELSE 0 END) AS availableCopies " +
+           "FROM BookCopy bc JOIN bc.library l " +
+           "WHERE bc.book.id IN :bookIds AND (:libraryId IS NULL OR l.id = :libraryId) " +
+           "GROUP BY bc.book.id, l.id, l.name " +
+           "ORDER BY bc.book.id, l.id")
+    List<LibraryCopyCount> countCopiesByBookAndLibrary(@Param("bookIds") Collection<Long> bookIds,
+                                                       @Param("libraryId") Long libraryId);
+    
+    /**
+     * Projection for per-library copy counts of a book
+     */
+    interface LibraryCopyCount {
+        Long getBookId();
+        Long getLibraryId();
+        String getLibraryName();
+        Long getTotalCopies();
+        Long getAvailableCopies();
+    }
 }
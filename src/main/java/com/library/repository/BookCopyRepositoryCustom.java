@@ -0,0 +1,19 @@
+package com.library.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Custom BookCopy data access implemented with JDBC batching
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+public interface BookCopyRepositoryCustom {
+    
+    /**
+     * Move each copy from expectedStatus to newStatus with one batched conditional UPDATE
+     * Returns the affected row count per ID, in the order given: 0 means the copy was missing or already changed
+     */
+    int[] compareAndSetStatuses(List<Long> ids, String expectedStatus, String newStatus, LocalDateTime now);
+}
@@ -0,0 +1,48 @@
+package com.library.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC batch implementation of BookCopyRepositoryCustom
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+public class BookCopyRepositoryCustomImpl implements BookCopyRepositoryCustom {
+    
+    private static final String COMPARE_AND_SET_STATUS_SQL =
+        "UPDATE book_copies SET status = ?, updated_at = ? WHERE id = ? AND status = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    public BookCopyRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    @Override
+    public int[] compareAndSetStatuses(List<Long> ids, String expectedStatus, String newStatus, LocalDateTime now) {
+        if (ids.isEmpty()) {
+            return new int[0];
+        }
+        
+        // Push pending JPA changes so the JDBC batch sees the same state
+        entityManager.flush();
+        
+        Timestamp updatedAt = Timestamp.valueOf(now);
+        return jdbcTemplate.batchUpdate(COMPARE_AND_SET_STATUS_SQL, ids, ids.size(), (ps, id) -> {
+            ps.setString(1, newStatus);
+            ps.setTimestamp(2, updatedAt);
+            ps.setLong(3, id);
+            ps.setString(4, expectedStatus);
+        })[0];
+    }
+}
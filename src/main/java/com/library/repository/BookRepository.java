@@ -1,14 +1,19 @@
 package com.library.repository;
 
 import com.library.entity.Book;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Book Repository - Data access layer for Book entity
@@ -17,13 +22,18 @@ import java.util.List;
  * @version 1.0.0
  */
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
     
     // Basic query methods
     List<Book> findByAuthor(String author);
     List<Book> findByCategory(String category);
     List<Book> findByPublishedYear(Integer publishedYear);
     
+    /**
+     * Load every book with one of the given titles (used to match import rows against the catalog)
+     */
+    List<Book> findByTitleIn(Collection<String> titles);
+    
     // Search functionality
     @Query(value = "SELECT * FROM books WHERE " +
            "(:title IS NULL OR title ILIKE '%' || :title || '%') AND " +
@@ -34,7 +44,59 @@ public interface BookRepository extends JpaRepository<Book, Long> {
                            @Param("author") String author, 
                            @Param("publishedYear") Integer publishedYear);
     
+    /**
+     * Ranked search - PostgreSQL only, requires the pg_trgm extension
+     * The ILIKE filters are served by the trigram GIN indexes; results are ordered by title/author similarity
+     */
+    @Query(value = "SELECT * FROM books WHERE " +
+           "(:title IS NULL OR title ILIKE '%' || :title || '%') AND " +
+           "(:author IS NULL OR author ILIKE '%' || :author || '%') AND " +
+           "(:publishedYear IS NULL OR published_year = :publishedYear) " +
+           "ORDER BY COALESCE(similarity(title, CAST(:title AS text)), 0) + " +
+           "COALESCE(similarity(author, CAST(:author AS text)), 0) DESC, id " +
+           "LIMIT :limit OFFSET :offset", 
+           nativeQuery = true)
+    List<Book> searchBooksRanked(@Param("title") String title, 
+                                 @Param("author") String author, 
+                                 @Param("publishedYear") Integer publishedYear,
+                                 @Param("limit") int limit,
+                                 @Param("offset") long offset);
+    
+    /**
+     * Keyset search - returns up to limit matches with id greater than afterId, ordered by id
+     */
+    @Query(value = "SELECT * FROM books WHERE " +
+           "(:title IS NULL OR title ILIKE '%' || :title || '%') AND " +
+           "(:author IS NULL OR author ILIKE '%' || :author || '%') AND " +
+           "(:publishedYear IS NULL OR published_year = :publishedYear) AND " +
+           "id > :afterId " +
+           "ORDER BY id LIMIT :limit", 
+           nativeQuery = true)
+    List<Book> searchBooksAfter(@Param("title") String title, 
+                                @Param("author") String author, 
+                                @Param("publishedYear") Integer publishedYear,
+                                @Param("afterId") Long afterId,
+                                @Param("limit") int limit);
+    
+    /**
+     * Load a book with a row lock held until the transaction ends
+     * Serializes copy number allocation for the book
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id = :id")
+    Optional<Book> findByIdForUpdate(@Param("id") Long id);
+    
     // Pagination queries
+    /**
+     * Load one page of books without issuing a count query
+     */
+    Slice<Book> findAllBy(Pageable pageable);
+    
+    /**
+     * Load the next chunk of books after the given ID (used to stream the table in ID order)
+     */
+    Slice<Book> findByIdGreaterThan(Long id, Pageable pageable);
+    
     Page<Book> findByCategory(String category, Pageable pageable);
     Page<Book> findByAuthor(String author, Pageable pageable);
     
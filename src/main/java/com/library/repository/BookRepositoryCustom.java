@@ -0,0 +1,21 @@
+package com.library.repository;
+
+import com.library.dto.response.BookWithCopySummaryResponse;
+
+import java.util.function.Consumer;
+
+/**
+ * Custom Book data access implemented with a JDBC cursor
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+public interface BookRepositoryCustom {
+    
+    /**
+     * Stream every book with its per-library copy counts, in ID order
+     * Rows are read through a server-side cursor and handed to the consumer one book at a time;
+     * the caller must hold a transaction (PostgreSQL only honours the fetch size outside auto-commit)
+     */
+    void streamBooksWithCopySummary(Consumer<BookWithCopySummaryResponse> consumer);
+}
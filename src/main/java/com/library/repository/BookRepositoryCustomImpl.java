@@ -0,0 +1,83 @@
+package com.library.repository;
+
+import com.library.dto.response.BookWithCopySummaryResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * JDBC cursor implementation of BookRepositoryCustom
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+    
+    private static final int FETCH_SIZE = 1000;
+    
+    // One row per book and library (a single row with NULL library columns for books without copies)
+    private static final String BOOKS_WITH_COPY_COUNTS_SQL =
+        "SELECT b.id, b.title, b.author, b.published_year, b.category, b.book_type, " +
+        "bc.library_id, l.name AS library_name, " +
+        "COUNT(bc.id) AS total_copies, " +
+        "COUNT(CASE WHEN bc.status = 'AVAILABLE' THEN 1 END) AS available_copies " +
+        "FROM books b " +
+        "LEFT JOIN book_copies bc ON bc.book_id = b.id " +
+        "LEFT JOIN libraries l ON l.id = bc.library_id " +
+        "GROUP BY b.id, b.title, b.author, b.published_year, b.category, b.book_type, bc.library_id, l.name " +
+        "ORDER BY b.id, bc.library_id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public BookRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    @Override
+    public void streamBooksWithCopySummary(Consumer<BookWithCopySummaryResponse> consumer) {
+        BookWithCopySummaryResponse[] current = new BookWithCopySummaryResponse[1];
+        
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(BOOKS_WITH_COPY_COUNTS_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            long bookId = resultSet.getLong("id");
+            BookWithCopySummaryResponse book = current[0];
+            
+            // Rows arrive grouped by book; emit the previous book once its rows are complete
+            if (book == null || !book.getId().equals(bookId)) {
+                if (book != null) {
+                    consumer.accept(book);
+                }
+                book = new BookWithCopySummaryResponse(
+                    bookId,
+                    resultSet.getString("title"),
+                    resultSet.getString("author"),
+                    resultSet.getObject("published_year", Integer.class),
+                    resultSet.getString("category"),
+                    resultSet.getString("book_type"),
+                    new BookWithCopySummaryResponse.CopySummary(0, 0, new ArrayList<>())
+                );
+                current[0] = book;
+            }
+            
+            Long libraryId = resultSet.getObject("library_id", Long.class);
+            if (libraryId != null) {
+                int totalCopies = resultSet.getInt("total_copies");
+                int availableCopies = resultSet.getInt("available_copies");
+                BookWithCopySummaryResponse.CopySummary summary = book.getCopySummary();
+                summary.setTotalCopies(summary.getTotalCopies() + totalCopies);
+                summary.setAvailableCopies(summary.getAvailableCopies() + availableCopies);
+                summary.getLibraryCopies().add(new BookWithCopySummaryResponse.LibraryCopySummary(
+                    libraryId, resultSet.getString("library_name"), totalCopies, availableCopies));
+            }
+        });
+        
+        if (current[0] != null) {
+            consumer.accept(current[0]);
+        }
+    }
+}
@@ -6,12 +6,15 @@ import com.library.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * BorrowRecord Repository - Data access layer for BorrowRecord entity
@@ -20,7 +23,7 @@ import java.util.List;
  * @version 1.0.0
  */
 @Repository
-public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long> {
+public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long>, BorrowRecordRepositoryCustom {
     
     // Basic query methods
     List<BorrowRecord> findByUser(User user);
@@ -39,6 +42,17 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long
                                           @Param("status") String status, 
                                           @Param("currentDate") LocalDateTime currentDate);
     
+    /**
+     * Check whether the user has any record in the given status due before the date (stops at the first match)
+     */
+    boolean existsByUserIdAndStatusAndDueAtBefore(Long userId, String status, LocalDateTime dueAt);
+    
+    /**
+     * Earliest due date among the user's records in the given status, or null if there are none
+     */
+    @Query("SELECT MIN(br.dueAt) FROM BorrowRecord br WHERE br.user.id = :userId AND br.status = :status")
+    LocalDateTime findEarliestDueAt(@Param("userId") Long userId, @Param("status") String status);
+    
     // Notification queries - find records due in specific date range
     @Query("SELECT br FROM BorrowRecord br WHERE " +
            "br.status = :status AND " +
@@ -48,6 +62,23 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long
                                                    @Param("startDate") LocalDateTime startDate,
                                                    @Param("endDate") LocalDateTime endDate);
     
+    /**
+     * Find a borrow record with its user, copy, book and library loaded in the same query
+     */
+    @Query("SELECT br FROM BorrowRecord br JOIN FETCH br.user JOIN FETCH br.bookCopy bc " +
+           "JOIN FETCH bc.book JOIN FETCH bc.library WHERE br.id = :id")
+    Optional<BorrowRecord> findWithDetailsById(@Param("id") Long id);
+    
+    /**
+     * Close a borrow record only if it is still BORROWED
+     * Returns 1 if this call returned it, 0 if it was already returned. Pending changes are flushed first;
+     * a caller holding the record refreshes it afterwards (see BorrowService.returnBook)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE BorrowRecord br SET br.status = 'RETURNED', br.returnedAt = :returnedAt " +
+           "WHERE br.id = :id AND br.status = 'BORROWED'")
+    int markReturnedIfBorrowed(@Param("id") Long id, @Param("returnedAt") LocalDateTime returnedAt);
+    
     // Pagination queries
     Page<BorrowRecord> findByUser(User user, Pageable pageable);
     Page<BorrowRecord> findByUserAndStatus(User user, String status, Pageable pageable);
@@ -56,4 +87,50 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long
     long countByUserAndStatus(User user, String status);
     long countByBookCopy(BookCopy bookCopy);
     long countByStatus(String status);
+    
+    /**
+     * Count a user's borrow records in the given status, grouped by book type
+     */
+    @Query("SELECT b.bookType AS bookType, COUNT(br) AS borrowCount " +
+           "FROM BorrowRecord br JOIN br.bookCopy bc JOIN bc.book b " +
+           "WHERE br.user.id = :userId AND br.status = :status " +
+           "GROUP BY b.bookType")
+    List<BookTypeCount> countByUserIdAndStatusGroupByBookType(@Param("userId") Long userId,
+                                                              @Param("status") String status);
+    
+    /**
+     * Load what a return needs for each borrow record, without loading the entities
+     */
+    @Query("SELECT br.id AS id, br.user.id AS userId, bc.id AS bookCopyId, b.bookType AS bookType, br.status AS status " +
+           "FROM BorrowRecord br JOIN br.bookCopy bc JOIN bc.book b " +
+           "WHERE br.id IN :ids")
+    List<ReturnCandidate> findReturnCandidatesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Same as findReturnCandidatesByIdIn, looked up by book copy for records in the given status
+     */
+    @Query("SELECT br.id AS id, br.user.id AS userId, bc.id AS bookCopyId, b.bookType AS bookType, br.status AS status " +
+           "FROM BorrowRecord br JOIN br.bookCopy bc JOIN bc.book b " +
+           "WHERE bc.id IN :bookCopyIds AND br.status = :status")
+    List<ReturnCandidate> findReturnCandidatesByBookCopyIdIn(@Param("bookCopyIds") Collection<Long> bookCopyIds,
+                                                             @Param("status") String status);
+    
+    /**
+     * Projection for borrow counts per book type
+     */
+    interface BookTypeCount {
+        String getBookType();
+        Long getBorrowCount();
+    }
+    
+    /**
+     * Projection for a borrow record about to be returned
+     */
+    interface ReturnCandidate {
+        Long getId();
+        Long getUserId();
+        Long getBookCopyId();
+        String getBookType();
+        String getStatus();
+    }
 }
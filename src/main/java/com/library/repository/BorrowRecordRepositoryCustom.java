@@ -0,0 +1,41 @@
+package com.library.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Custom BorrowRecord data access implemented with JDBC batching and cursors
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+public interface BorrowRecordRepositoryCustom {
+    
+    /**
+     * Insert one BORROWED record per book copy with a single JDBC batch
+     * Returns the generated record IDs in the order of bookCopyIds
+     */
+    List<Long> insertBorrowRecords(Long userId, List<Long> bookCopyIds, LocalDateTime borrowedAt, LocalDateTime dueAt);
+    
+    /**
+     * Mark each BORROWED record as RETURNED with one batched conditional UPDATE
+     * Returns the affected row count per ID, in the order given: 0 means the record was already returned
+     */
+    int[] markReturned(List<Long> ids, LocalDateTime returnedAt);
+    
+    /**
+     * Stream the records in the given status due in [startDate, endDate) with what a reminder needs, in ID order
+     * Rows are read through a server-side cursor and handed to the consumer in chunks of up to chunkSize;
+     * the caller must hold a transaction (PostgreSQL only honours the fetch size outside auto-commit)
+     */
+    void streamDueLoans(String status, LocalDateTime startDate, LocalDateTime endDate,
+                        int chunkSize, Consumer<List<DueLoan>> chunkConsumer);
+    
+    /**
+     * A borrow record joined with its user, book, copy and library for a due-date reminder
+     */
+    record DueLoan(Long id, String userName, String userEmail, String bookTitle, Integer copyNumber,
+                   String libraryName, LocalDateTime borrowedAt, LocalDateTime dueAt) {
+    }
+}
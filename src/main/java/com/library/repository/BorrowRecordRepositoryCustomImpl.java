@@ -0,0 +1,149 @@
+package com.library.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * JDBC batch and cursor implementation of BorrowRecordRepositoryCustom
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+public class BorrowRecordRepositoryCustomImpl implements BorrowRecordRepositoryCustom {
+    
+    private static final String INSERT_BORROW_RECORD_SQL =
+        "INSERT INTO borrow_records (user_id, book_copy_id, borrowed_at, due_at, status) " +
+        "VALUES (?, ?, ?, ?, 'BORROWED')";
+    
+    private static final String MARK_RETURNED_SQL =
+        "UPDATE borrow_records SET status = 'RETURNED', returned_at = ? WHERE id = ? AND status = 'BORROWED'";
+    
+    private static final int FETCH_SIZE = 1000;
+    
+    private static final String DUE_LOANS_SQL =
+        "SELECT br.id, u.name AS user_name, u.email AS user_email, b.title, bc.copy_number, " +
+        "l.name AS library_name, br.borrowed_at, br.due_at " +
+        "FROM borrow_records br " +
+        "JOIN users u ON u.id = br.user_id " +
+        "JOIN book_copies bc ON bc.id = br.book_copy_id " +
+        "JOIN books b ON b.id = bc.book_id " +
+        "JOIN libraries l ON l.id = bc.library_id " +
+        "WHERE br.status = ? AND br.due_at >= ? AND br.due_at < ? " +
+        "ORDER BY br.id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    public BorrowRecordRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    @Override
+    public List<Long> insertBorrowRecords(Long userId, List<Long> bookCopyIds,
+                                          LocalDateTime borrowedAt, LocalDateTime dueAt) {
+        List<Long> ids = new ArrayList<>();
+        if (bookCopyIds.isEmpty()) {
+            return ids;
+        }
+        
+        // Push pending JPA changes so the JDBC batch sees the same state
+        entityManager.flush();
+        
+        Timestamp borrowedAtValue = Timestamp.valueOf(borrowedAt);
+        Timestamp dueAtValue = Timestamp.valueOf(dueAt);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        
+        jdbcTemplate.batchUpdate(
+            connection -> connection.prepareStatement(INSERT_BORROW_RECORD_SQL, new String[] {"id"}),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, userId);
+                    ps.setLong(2, bookCopyIds.get(i));
+                    ps.setTimestamp(3, borrowedAtValue);
+                    ps.setTimestamp(4, dueAtValue);
+                }
+                
+                @Override
+                public int getBatchSize() {
+                    return bookCopyIds.size();
+                }
+            },
+            keyHolder
+        );
+        
+        // Only the id column is requested, so each key map has a single value (column name case varies by driver)
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+    
+    @Override
+    public int[] markReturned(List<Long> ids, LocalDateTime returnedAt) {
+        if (ids.isEmpty()) {
+            return new int[0];
+        }
+        
+        // Push pending JPA changes so the JDBC batch sees the same state
+        entityManager.flush();
+        
+        Timestamp returnedAtValue = Timestamp.valueOf(returnedAt);
+        return jdbcTemplate.batchUpdate(MARK_RETURNED_SQL, ids, ids.size(), (ps, id) -> {
+            ps.setTimestamp(1, returnedAtValue);
+            ps.setLong(2, id);
+        })[0];
+    }
+    
+    @Override
+    public void streamDueLoans(String status, LocalDateTime startDate, LocalDateTime endDate,
+                               int chunkSize, Consumer<List<DueLoan>> chunkConsumer) {
+        int size = Math.max(1, chunkSize);
+        List<DueLoan> chunk = new ArrayList<>(size);
+        
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(DUE_LOANS_SQL);
+            statement.setFetchSize(Math.max(FETCH_SIZE, size));
+            statement.setString(1, status);
+            statement.setTimestamp(2, Timestamp.valueOf(startDate));
+            statement.setTimestamp(3, Timestamp.valueOf(endDate));
+            return statement;
+        }, resultSet -> {
+            Timestamp borrowedAt = resultSet.getTimestamp("borrowed_at");
+            Timestamp dueAt = resultSet.getTimestamp("due_at");
+            chunk.add(new DueLoan(
+                resultSet.getLong("id"),
+                resultSet.getString("user_name"),
+                resultSet.getString("user_email"),
+                resultSet.getString("title"),
+                resultSet.getObject("copy_number", Integer.class),
+                resultSet.getString("library_name"),
+                borrowedAt != null ? borrowedAt.toLocalDateTime() : null,
+                dueAt != null ? dueAt.toLocalDateTime() : null
+            ));
+            if (chunk.size() == size) {
+                chunkConsumer.accept(List.copyOf(chunk));
+                chunk.clear();
+            }
+        });
+        
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(List.copyOf(chunk));
+        }
+    }
+}
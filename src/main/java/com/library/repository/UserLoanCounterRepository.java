@@ -0,0 +1,57 @@
+package com.library.repository;
+
+import com.library.entity.UserLoanCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * UserLoanCounter Repository - Data access layer for UserLoanCounter entity
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@Repository
+public interface UserLoanCounterRepository extends JpaRepository<UserLoanCounter, Long> {
+    
+    // Basic query methods
+    Optional<UserLoanCounter> findByUserIdAndBookType(Long userId, String bookType);
+    List<UserLoanCounter> findByUserId(Long userId);
+    boolean existsByUserIdAndBookType(Long userId, String bookType);
+    
+    /**
+     * Load a counter with a row lock held until the transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM UserLoanCounter c WHERE c.userId = :userId AND c.bookType = :bookType")
+    Optional<UserLoanCounter> findForUpdate(@Param("userId") Long userId, @Param("bookType") String bookType);
+    
+    /**
+     * Increment the counter only while it is below the limit
+     * Returns 0 when the limit is reached or the counter does not exist yet
+     */
+    @Modifying
+    @Query("UPDATE UserLoanCounter c SET c.activeCount = c.activeCount + 1 " +
+           "WHERE c.userId = :userId AND c.bookType = :bookType AND c.activeCount < :limit")
+    int incrementIfBelow(@Param("userId") Long userId,
+                         @Param("bookType") String bookType,
+                         @Param("limit") int limit);
+    
+    /**
+     * Decrement the counter by the given amount, never going below zero
+     */
+    @Modifying
+    @Query("UPDATE UserLoanCounter c SET c.activeCount = " +
+           "CASE WHEN c.activeCount > :amount THEN c.activeCount - :amount ELSE 0 END " +
+           "WHERE c.userId = :userId AND c.bookType = :bookType")
+    int decrement(@Param("userId") Long userId,
+                  @Param("bookType") String bookType,
+                  @Param("amount") int amount);
+}
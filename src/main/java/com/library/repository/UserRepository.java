@@ -5,10 +5,12 @@ import com.library.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,6 +40,23 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.role = :role AND u.isVerified = :verified")
     List<User> findVerifiedUsersByRole(@Param("role") Role role, @Param("verified") Boolean verified);
     
+    /**
+     * Librarians whose external verification is due, oldest first
+     */
+    @Query("SELECT u FROM User u WHERE u.nextVerificationAt IS NOT NULL AND u.nextVerificationAt <= :now " +
+           "AND u.isVerified = false ORDER BY u.nextVerificationAt")
+    List<User> findDueForVerification(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    /**
+     * Claim a due librarian by moving next_verification_at to the end of a lease
+     * Returns 0 when another instance claimed it first (or it is no longer due)
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.nextVerificationAt = :leaseUntil WHERE u.id = :id AND u.isVerified = false " +
+           "AND u.nextVerificationAt IS NOT NULL AND u.nextVerificationAt <= :now")
+    int claimForVerification(@Param("id") Long id, @Param("now") LocalDateTime now,
+                             @Param("leaseUntil") LocalDateTime leaseUntil);
+    
     // Search functionality
     @Query(value = "SELECT * FROM users u JOIN roles r ON u.role_id = r.id WHERE " +
            "(:name IS NULL OR u.name ILIKE '%' || :name || '%') AND " +
@@ -0,0 +1,63 @@
+package com.library.security;
+
+import com.library.entity.User;
+import com.library.service.UserService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Current User Argument Resolver - Resolves @CurrentUser parameters from the SecurityContext
+ *
+ * JwtAuthenticationFilter already stores a UserPrincipal, so no query is needed. For any other
+ * principal type the user is loaded once and the SecurityContext is updated, so later
+ * resolutions in the same request reuse it.
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final ObjectProvider<UserService> userServiceProvider;
+
+    public CurrentUserArgumentResolver(ObjectProvider<UserService> userServiceProvider) {
+        this.userServiceProvider = userServiceProvider;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+            && UserPrincipal.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            throw new RuntimeException("User not found");
+        }
+
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal;
+        }
+
+        User user = userServiceProvider.getObject().findByEmail(authentication.getName())
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        UserPrincipal principal = UserPrincipal.from(user);
+
+        UsernamePasswordAuthenticationToken resolved =
+            new UsernamePasswordAuthenticationToken(principal, null, authentication.getAuthorities());
+        resolved.setDetails(authentication.getDetails());
+        SecurityContextHolder.getContext().setAuthentication(resolved);
+        return principal;
+    }
+}
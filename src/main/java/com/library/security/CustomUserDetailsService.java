@@ -2,31 +2,50 @@ package com.library.security;
 
 import com.library.entity.User;
 import com.library.repository.UserRepository;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 /**
  * Custom UserDetailsService - Loads user information from database
+ * Lookups go through UserDetailsCache so repeated requests do not query users each time.
+ * Also stores password hashes upgraded on login (see RehashingAuthenticationProvider).
  *
  * @author Library System
  * @version 1.0.0
  */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        return userDetailsCache.get(email, this::loadFromDatabase);
+    }
+
+    /**
+     * Store an upgraded password hash and drop the cached entry holding the old one
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+        userDetailsCache.invalidate(user.getEmail());
+        return createUserDetails(user);
+    }
+
+    private UserPrincipal loadFromDatabase(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
@@ -35,26 +54,9 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     /**
      * Create UserDetails from User entity
+     * Only LIBRARIAN users need is_verified; MEMBER users may log in regardless (see UserPrincipal.isEnabled)
      */
-    private UserDetails createUserDetails(User user) {
-        // Set authorities based on user role
-        String role = user.getRole() != null ? user.getRole().getName() : "MEMBER";
-        
-        // Only check is_verified for LIBRARIAN users
-        boolean isDisabled = false;
-        if ("LIBRARIAN".equals(role)) {
-            isDisabled = !user.getIsVerified();
-        }
-        // For MEMBER users, always allow login regardless of is_verified status
-        
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPassword())
-                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)))
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(isDisabled)
-                .build();
+    private UserPrincipal createUserDetails(User user) {
+        return UserPrincipal.from(user);
     }
 }
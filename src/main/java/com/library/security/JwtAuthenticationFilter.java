@@ -1,9 +1,11 @@
 package com.library.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,6 +16,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.Date;
 
 /**
  * JWT Authentication Filter - Extracts JWT tokens from requests and performs authentication
@@ -26,10 +30,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
 
-    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserDetailsService userDetailsService) {
+    /**
+     * Build the principal from token claims instead of loading the user on every request
+     */
+    @Value("${jwt.stateless-principal:true}")
+    private boolean statelessPrincipal;
+
+    /**
+     * Claims older than this are re-checked against the database (milliseconds, 0 = token lifetime)
+     */
+    @Value("${jwt.claims-max-age:0}")
+    private long claimsMaxAgeMs;
+
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserDetailsService userDetailsService,
+                                   TokenRevocationRegistry tokenRevocationRegistry) {
         this.tokenProvider = tokenProvider;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
     }
 
     @Override
@@ -39,16 +58,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
+            // Verify the signature once and read the subject from the same parsed claims
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.parseClaims(jwt).orElse(null) : null;
+
+            if (claims != null) {
+                UserDetails userDetails = trustedPrincipal(claims);
+                if (userDetails == null) {
+                    // Old token format, stale or aged claims: load the current user state
+                    userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+                }
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                if (userDetails.isEnabled()) {
+                    UsernamePasswordAuthenticationToken authentication = 
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
@@ -57,6 +84,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Principal built from the token claims, or null when they cannot be trusted without a database check
+     */
+    private UserPrincipal trustedPrincipal(Claims claims) {
+        if (!statelessPrincipal) {
+            return null;
+        }
+
+        UserPrincipal principal = tokenProvider.getPrincipalFromClaims(claims).orElse(null);
+        if (principal == null) {
+            return null;
+        }
+
+        Date issuedAt = claims.getIssuedAt();
+        if (claimsMaxAgeMs > 0
+                && (issuedAt == null || issuedAt.toInstant().plusMillis(claimsMaxAgeMs).isBefore(Instant.now()))) {
+            return null;
+        }
+        if (tokenRevocationRegistry.isStale(principal.getId(), issuedAt)) {
+            return null;
+        }
+        return principal;
+    }
+
     /**
      * Extract JWT token from Authorization header
      */
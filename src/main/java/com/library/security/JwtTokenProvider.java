@@ -2,6 +2,7 @@ package com.library.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,6 +12,7 @@ import javax.crypto.SecretKey;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.Optional;
 
 /**
  * JWT Token Provider - Responsible for generating and validating JWT tokens
@@ -21,22 +23,65 @@ import java.util.Date;
 @Component
 public class JwtTokenProvider {
 
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_VERIFIED = "verified";
+
     @Value("${jwt.secret:defaultSecretKeyForDevelopmentOnly}")
     private String jwtSecret;
 
     @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
     private long jwtExpirationMs;
-    
 
+    // Built once from the secret; both are immutable and safe to share between threads
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
 
     /**
      * Generate JWT token from authentication
      */
     public String generateToken(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return generateToken(principal);
+        }
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
         return generateTokenFromUsername(userPrincipal.getUsername());
     }
 
+    /**
+     * Generate JWT token carrying the user ID, role and verification state
+     * so requests can be authenticated without loading the user
+     */
+    public String generateToken(UserPrincipal principal) {
+        Instant now = Instant.now();
+        Instant expiryDate = now.plus(jwtExpirationMs, ChronoUnit.MILLIS);
+
+        return Jwts.builder()
+                .subject(principal.getUsername())
+                .claim(CLAIM_USER_ID, principal.getId())
+                .claim(CLAIM_ROLE, principal.getRole())
+                .claim(CLAIM_VERIFIED, principal.isVerified())
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(expiryDate))
+                .signWith(signingKey, Jwts.SIG.HS256)
+                .compact();
+    }
+
+    /**
+     * Access token lifetime in milliseconds
+     */
+    public long getExpirationMs() {
+        return jwtExpirationMs;
+    }
+
     /**
      * Generate JWT token from username
      */
@@ -44,65 +89,63 @@ public class JwtTokenProvider {
         Instant now = Instant.now();
         Instant expiryDate = now.plus(jwtExpirationMs, ChronoUnit.MILLIS);
 
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-
         return Jwts.builder()
                 .subject(username)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(expiryDate))
-                .signWith(key, Jwts.SIG.HS256)
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
 
+    /**
+     * Parse and verify a token once
+     * 
+     * @return the token's claims, or empty if the signature is invalid, the token is malformed or it has expired
+     */
+    public Optional<Claims> parseClaims(String token) {
+        try {
+            return Optional.of(jwtParser.parseSignedClaims(token).getPayload());
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Build a principal from verified claims
+     * 
+     * @return empty for tokens issued without user claims (subject only)
+     */
+    public Optional<UserPrincipal> getPrincipalFromClaims(Claims claims) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        if (userId == null || role == null || claims.getSubject() == null) {
+            return Optional.empty();
+        }
+        boolean verified = Boolean.TRUE.equals(claims.get(CLAIM_VERIFIED, Boolean.class));
+        return Optional.of(new UserPrincipal(userId, claims.getSubject(), null, role, verified));
+    }
+
     /**
      * Get username from JWT token
      */
     public String getUsernameFromToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-        
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return claims.getSubject();
+        return jwtParser.parseSignedClaims(token).getPayload().getSubject();
     }
 
     /**
      * Validate JWT token
      */
     public boolean validateToken(String token) {
-        try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-            
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
-            
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return parseClaims(token).isPresent();
     }
 
     /**
      * Check if token is expired
      */
     public boolean isTokenExpired(String token) {
-        try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-            
-            Claims claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-            return claims.getExpiration().before(Date.from(Instant.now()));
-        } catch (JwtException | IllegalArgumentException e) {
-            return true;
-        }
+        // The parser rejects expired tokens, so any token it cannot verify counts as expired
+        return parseClaims(token)
+                .map(claims -> claims.getExpiration().before(Date.from(Instant.now())))
+                .orElse(true);
     }
 }
@@ -0,0 +1,163 @@
+package com.library.security;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Password Hashing Service - Role-aware BCrypt hashing on a dedicated, bounded thread pool
+ *
+ * New hashes are stored as {bcrypt}... (DelegatingPasswordEncoder format) with the BCrypt cost configured
+ * for the user's role; legacy hashes without the prefix still match. A stored hash that lacks the prefix or
+ * uses a lower cost than its role requires is re-hashed after the next successful login
+ * (see RehashingAuthenticationProvider).
+ *
+ * All hashing runs on library.security.password.hashing-threads threads, so concurrent logins can never
+ * occupy more than that many CPUs. When the queue is full, or a hash is not finished within hashing-timeout,
+ * the caller fails fast with a "Too many ..." error (HTTP 429) instead of piling up servlet threads.
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+@Component
+public class PasswordHashingService implements PasswordEncoder {
+
+    static final String ENCODING_ID = "bcrypt";
+    static final String BUSY_MESSAGE = "Too many login attempts in progress. Please try again later.";
+
+    private static final String PREFIX = "{" + ENCODING_ID + "}";
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final int memberStrength;
+    private final int librarianStrength;
+    private final BCryptPasswordEncoder memberEncoder;
+    private final BCryptPasswordEncoder librarianEncoder;
+    private final DelegatingPasswordEncoder matcher;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    public PasswordHashingService(@Value("${library.security.password.member-strength:10}") int memberStrength,
+                                  @Value("${library.security.password.librarian-strength:12}") int librarianStrength,
+                                  @Value("${library.security.password.hashing-threads:0}") int hashingThreads,
+                                  @Value("${library.security.password.hashing-queue-capacity:64}") int queueCapacity,
+                                  @Value("${library.security.password.hashing-timeout:5s}") Duration timeout) {
+        this.memberStrength = memberStrength;
+        this.librarianStrength = librarianStrength;
+        this.memberEncoder = new BCryptPasswordEncoder(memberStrength);
+        this.librarianEncoder = new BCryptPasswordEncoder(librarianStrength);
+
+        // BCrypt verification reads the cost from the hash, so one matcher handles every strength
+        this.matcher = new DelegatingPasswordEncoder(ENCODING_ID, Map.of(ENCODING_ID, memberEncoder));
+        this.matcher.setDefaultPasswordEncoderForMatches(memberEncoder);
+
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * Hash a password at the default (member) cost
+     */
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encode(rawPassword, UserPrincipal.DEFAULT_ROLE);
+    }
+
+    /**
+     * Hash a password at the cost configured for the role
+     */
+    public String encode(CharSequence rawPassword, String role) {
+        BCryptPasswordEncoder encoder = "LIBRARIAN".equals(role) ? librarianEncoder : memberEncoder;
+        return PREFIX + run(() -> encoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> matcher.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return needsRehash(encodedPassword, UserPrincipal.DEFAULT_ROLE);
+    }
+
+    /**
+     * Whether a stored hash should be replaced: missing the {bcrypt} prefix or cheaper than the role's cost
+     */
+    public boolean needsRehash(String encodedPassword, String role) {
+        if (encodedPassword == null || !encodedPassword.startsWith(PREFIX)) {
+            return true;
+        }
+        Matcher cost = BCRYPT_COST.matcher(encodedPassword.substring(PREFIX.length()));
+        return !cost.find() || Integer.parseInt(cost.group(1)) < strengthFor(role);
+    }
+
+    int strengthFor(String role) {
+        return "LIBRARIAN".equals(role) ? librarianStrength : memberStrength;
+    }
+
+    /**
+     * Number of hashing requests waiting for a thread
+     */
+    public int queuedTasks() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run a hashing task on the hashing pool and wait for its result
+     */
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new RuntimeException(BUSY_MESSAGE);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RuntimeException(BUSY_MESSAGE);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Password hashing was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.library.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+
+/**
+ * Rehashing Authentication Provider - DaoAuthenticationProvider that upgrades stored hashes per role
+ *
+ * After a successful login, a stored hash that PasswordHashingService reports as outdated for the user's role
+ * is replaced with a new hash of the password the user just presented. A failed upgrade is logged and does
+ * not fail the login.
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+@Slf4j
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final PasswordHashingService passwordHashingService;
+    private final UserDetailsPasswordService passwordUpdater;
+
+    public RehashingAuthenticationProvider(CustomUserDetailsService userDetailsService,
+                                           PasswordHashingService passwordHashingService) {
+        this.passwordHashingService = passwordHashingService;
+        this.passwordUpdater = userDetailsService;
+        setUserDetailsService(userDetailsService);
+        setPasswordEncoder(passwordHashingService);
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user) {
+        UserDetails current = user;
+        if (user instanceof UserPrincipal userPrincipal && authentication.getCredentials() != null
+                && passwordHashingService.needsRehash(userPrincipal.getPassword(), userPrincipal.getRole())) {
+            try {
+                String encoded = passwordHashingService.encode(authentication.getCredentials().toString(), userPrincipal.getRole());
+                current = passwordUpdater.updatePassword(user, encoded);
+            } catch (RuntimeException e) {
+                log.warn("Could not upgrade password hash for {}: {}", user.getUsername(), e.getMessage());
+            }
+        }
+        return super.createSuccessAuthentication(principal == user ? current : principal, authentication, current);
+    }
+}
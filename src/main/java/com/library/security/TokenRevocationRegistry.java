@@ -0,0 +1,76 @@
+package com.library.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token Revocation Registry - Tracks users whose token claims are out of date
+ *
+ * When a user's role, verification state or credentials change, tokens issued before the
+ * change can no longer be trusted on their claims alone. Entries are kept for one token
+ * lifetime, after which every older token has expired anyway. The registry is in-memory,
+ * so each application instance only sees changes made through itself; the claim age limit
+ * (jwt.claims-max-age) bounds how long another instance may act on stale claims.
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private final Map<Long, Instant> changedAt = new ConcurrentHashMap<>();
+    private final long tokenLifetimeMs;
+
+    public TokenRevocationRegistry(@Value("${jwt.expiration:86400000}") long tokenLifetimeMs) {
+        this.tokenLifetimeMs = tokenLifetimeMs;
+    }
+
+    /**
+     * Mark the user's existing tokens as stale once the surrounding transaction commits
+     * (immediately if there is none)
+     */
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markChanged(userId);
+                }
+            });
+        } else {
+            markChanged(userId);
+        }
+    }
+
+    /**
+     * Whether a token issued at issuedAt predates the user's last change
+     * Token timestamps have one-second precision, so a token from the same second counts as stale
+     */
+    public boolean isStale(Long userId, Date issuedAt) {
+        Instant changed = changedAt.get(userId);
+        if (changed == null) {
+            return false;
+        }
+        return issuedAt == null || !issuedAt.toInstant().isAfter(changed);
+    }
+
+    private void markChanged(Long userId) {
+        Instant now = Instant.now();
+        changedAt.put(userId, now);
+
+        // Drop entries that no unexpired token can predate
+        Instant cutoff = now.minusMillis(tokenLifetimeMs);
+        changedAt.values().removeIf(changed -> changed.isBefore(cutoff));
+    }
+}
@@ -0,0 +1,161 @@
+package com.library.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * UserDetails Cache - Size-bounded, TTL-expiring cache of loaded users keyed by email
+ *
+ * Entries are evicted least-recently-used once max-size is reached and expire after ttl,
+ * so role and verification changes made elsewhere become visible within ttl. Changes made
+ * through UserService invalidate the entry immediately, and a load that was already running
+ * when an invalidation happened is returned but not cached. Hit, miss and eviction counts are
+ * published as library.user-details.cache.* metrics.
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+@Component
+public class UserDetailsCache {
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // Access-ordered so the eldest entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped by every invalidation (guarded by entries); a load only caches its result if it did not change
+    private long invalidationGeneration;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Counter invalidations;
+
+    public UserDetailsCache(@Value("${library.security.user-cache.enabled:true}") boolean enabled,
+                            @Value("${library.security.user-cache.max-size:10000}") int maxSize,
+                            @Value("${library.security.user-cache.ttl:30s}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled && maxSize > 0 && !ttl.isZero() && !ttl.isNegative();
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+
+        this.hits = Counter.builder("library.user-details.cache.requests").tag("result", "hit")
+            .description("UserDetails lookups served from the cache").register(meterRegistry);
+        this.misses = Counter.builder("library.user-details.cache.requests").tag("result", "miss")
+            .description("UserDetails lookups that loaded the user from the database").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("library.user-details.cache.evictions").tag("cause", "size")
+            .description("Entries evicted to stay within max-size").register(meterRegistry);
+        this.expiredEvictions = Counter.builder("library.user-details.cache.evictions").tag("cause", "expired")
+            .description("Entries dropped after their TTL").register(meterRegistry);
+        this.invalidations = Counter.builder("library.user-details.cache.evictions").tag("cause", "invalidated")
+            .description("Entries removed because the user changed").register(meterRegistry);
+        Gauge.builder("library.user-details.cache.size", this, UserDetailsCache::size)
+            .description("Number of cached users").register(meterRegistry);
+    }
+
+    /**
+     * Return the cached value for the email, loading and caching it on a miss
+     * Loader exceptions (e.g. user not found) are not cached.
+     */
+    public UserPrincipal get(String email, Function<String, UserPrincipal> loader) {
+        if (!enabled) {
+            return loader.apply(email);
+        }
+
+        String key = key(email);
+        long now = System.nanoTime();
+        long generation;
+        synchronized (entries) {
+            generation = invalidationGeneration;
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.loadedAt < ttlNanos) {
+                    hits.increment();
+                    return entry.value;
+                }
+                entries.remove(key);
+                expiredEvictions.increment();
+            }
+        }
+
+        misses.increment();
+        UserPrincipal value = loader.apply(email);
+
+        synchronized (entries) {
+            // An invalidation during the load may mean the loader read the old state; do not cache it
+            if (generation == invalidationGeneration) {
+                entries.put(key, new Entry(value, now));
+                evictOverflow();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drop the entry now and again once the surrounding transaction commits,
+     * so a lookup racing with the update cannot leave the old state cached
+     */
+    public void invalidate(String email) {
+        if (!enabled || email == null) {
+            return;
+        }
+
+        remove(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(email);
+                }
+            });
+        }
+    }
+
+    /**
+     * Number of cached users
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void remove(String email) {
+        synchronized (entries) {
+            invalidationGeneration++;
+            if (entries.remove(key(email)) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    // Emails are matched exactly, like UserRepository.findByEmail
+    private static String key(String email) {
+        return email;
+    }
+
+    private record Entry(UserPrincipal value, long loadedAt) {
+    }
+}
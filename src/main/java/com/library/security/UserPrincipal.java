@@ -0,0 +1,106 @@
+package com.library.security;
+
+import com.library.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * User Principal - Authenticated user carrying the ID, role and verification state
+ *
+ * Built either from the users table (login, DB-backed requests) or from JWT claims
+ * (stateless requests, no password).
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+public class UserPrincipal implements UserDetails {
+
+    public static final String DEFAULT_ROLE = "MEMBER";
+
+    private final Long id;
+    private final String email;
+    private final String password;
+    private final String role;
+    private final boolean verified;
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    public UserPrincipal(Long id, String email, String password, String role, boolean verified) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.role = role != null ? role : DEFAULT_ROLE;
+        this.verified = verified;
+        this.authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + this.role));
+    }
+
+    /**
+     * Create a principal from a User entity
+     */
+    public static UserPrincipal from(User user) {
+        return new UserPrincipal(
+            user.getId(),
+            user.getEmail(),
+            user.getPassword(),
+            user.getRole() != null ? user.getRole().getName() : null,
+            Boolean.TRUE.equals(user.getIsVerified())
+        );
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean isVerified() {
+        return verified;
+    }
+
+    public boolean isLibrarian() {
+        return "LIBRARIAN".equals(role);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    /**
+     * Only unverified librarians are disabled; members may log in regardless of is_verified
+     */
+    @Override
+    public boolean isEnabled() {
+        return !isLibrarian() || verified;
+    }
+}
@@ -0,0 +1,414 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Book Search Index - In-process inverted index over book titles and authors
+ *
+ * Terms are lower-cased letter/digit runs; each term maps to a sorted list of book IDs.
+ * Every query token is matched as a prefix and all tokens must match (AND).
+ * Disabled unless library.search.index.enabled is true; until the startup rebuild
+ * has finished, callers fall back to the database.
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class BookSearchIndex {
+
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, LongPostings> titlePostings = new TreeMap<>();
+    private final TreeMap<String, LongPostings> authorPostings = new TreeMap<>();
+    private final Map<Long, Book> documents = new HashMap<>();
+    private final LongPostings allIds = new LongPostings();
+    // Books indexed while a rebuild runs, replayed after its last chunk (guarded by the write lock)
+    private final List<Book> indexedDuringRebuild = new ArrayList<>();
+    private boolean rebuilding;
+
+    private volatile boolean ready;
+
+    public BookSearchIndex(BookRepository bookRepository,
+                           @Value("${library.search.index.enabled:false}") boolean enabled) {
+        this.bookRepository = bookRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Whether searches can be served from the index
+     */
+    public boolean isAvailable() {
+        return enabled && ready;
+    }
+
+    /**
+     * Build the index once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuild the index from the books table, reading it in ID-ordered chunks
+     *
+     * A chunk may have been read before a concurrent index() of one of its books, so books indexed
+     * during the rebuild are applied again at the end; the chunk snapshot never has the last word.
+     */
+    public synchronized void rebuild() {
+        log.info("Rebuilding book search index");
+        ready = false;
+
+        lock.writeLock().lock();
+        try {
+            titlePostings.clear();
+            authorPostings.clear();
+            documents.clear();
+            allIds.clear();
+            indexedDuringRebuild.clear();
+            rebuilding = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long afterId = 0L;
+        long indexed = 0L;
+        try {
+            Slice<Book> chunk;
+            do {
+                chunk = bookRepository.findByIdGreaterThan(afterId, PageRequest.of(0, REBUILD_CHUNK_SIZE, Sort.by("id")));
+                List<Book> books = chunk.getContent();
+                if (books.isEmpty()) {
+                    break;
+                }
+
+                lock.writeLock().lock();
+                try {
+                    // A book indexed concurrently since the clear is replaced, not added twice
+                    for (Book book : books) {
+                        replaceDocument(snapshot(book));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+
+                indexed += books.size();
+                afterId = books.get(books.size() - 1).getId();
+            } while (chunk.hasNext());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                for (Book book : indexedDuringRebuild) {
+                    replaceDocument(book);
+                }
+                indexedDuringRebuild.clear();
+                rebuilding = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        ready = true;
+        log.info("Book search index rebuilt with {} books", indexed);
+    }
+
+    /**
+     * Index a book once the surrounding transaction commits (immediately if there is none)
+     */
+    public void indexAfterCommit(Book book) {
+        if (!enabled || book == null || book.getId() == null) {
+            return;
+        }
+
+        Book document = snapshot(book);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    index(document);
+                }
+            });
+        } else {
+            index(document);
+        }
+    }
+
+    /**
+     * Add or replace a book in the index
+     */
+    public void index(Book book) {
+        Book document = snapshot(book);
+        lock.writeLock().lock();
+        try {
+            replaceDocument(document);
+            if (rebuilding) {
+                indexedDuringRebuild.add(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Search books by title/author tokens and published year
+     * Results are ordered by ID; afterId and offset select the page
+     */
+    public List<Book> search(String title, String author, Integer publishedYear, long afterId, int offset, int limit) {
+        List<String> titleTokens = tokenize(title);
+        List<String> authorTokens = tokenize(author);
+
+        lock.readLock().lock();
+        try {
+            long[] candidates = null;
+            for (String token : titleTokens) {
+                candidates = intersect(candidates, prefixUnion(titlePostings, token));
+            }
+            for (String token : authorTokens) {
+                candidates = intersect(candidates, prefixUnion(authorPostings, token));
+            }
+            if (candidates == null) {
+                candidates = allIds.toArray();
+            }
+
+            List<Book> results = new ArrayList<>();
+            int skipped = 0;
+            int start = lowerBound(candidates, afterId + 1);
+            for (int i = start; i < candidates.length && results.size() < limit; i++) {
+                Book book = documents.get(candidates[i]);
+                if (publishedYear != null && !publishedYear.equals(book.getPublishedYear())) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                results.add(snapshot(book));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed books
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the current version of the book, if any, then add this one (caller holds the write lock)
+     */
+    private void replaceDocument(Book book) {
+        Book previous = documents.get(book.getId());
+        if (previous != null) {
+            removeDocument(previous);
+        }
+        addDocument(book);
+    }
+
+    private void addDocument(Book book) {
+        documents.put(book.getId(), book);
+        allIds.add(book.getId());
+        for (String term : tokenize(book.getTitle())) {
+            titlePostings.computeIfAbsent(term, key -> new LongPostings()).add(book.getId());
+        }
+        for (String term : tokenize(book.getAuthor())) {
+            authorPostings.computeIfAbsent(term, key -> new LongPostings()).add(book.getId());
+        }
+    }
+
+    private void removeDocument(Book book) {
+        documents.remove(book.getId());
+        allIds.remove(book.getId());
+        removePostings(titlePostings, tokenize(book.getTitle()), book.getId());
+        removePostings(authorPostings, tokenize(book.getAuthor()), book.getId());
+    }
+
+    private static void removePostings(Map<String, LongPostings> postings, List<String> terms, long id) {
+        for (String term : terms) {
+            LongPostings list = postings.get(term);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorted, de-duplicated IDs of every term starting with the given prefix
+     */
+    private static long[] prefixUnion(TreeMap<String, LongPostings> postings, String prefix) {
+        NavigableMap<String, LongPostings> matches = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (matches.size() == 1) {
+            return matches.values().iterator().next().toArray();
+        }
+
+        int total = 0;
+        for (LongPostings list : matches.values()) {
+            total += list.size();
+        }
+        long[] merged = new long[total];
+        int position = 0;
+        for (LongPostings list : matches.values()) {
+            position = list.copyTo(merged, position);
+        }
+        Arrays.sort(merged);
+
+        int unique = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (i == 0 || merged[i] != merged[i - 1]) {
+                merged[unique++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, unique);
+    }
+
+    /**
+     * Intersect two sorted ID arrays; null means "no constraint yet"
+     */
+    private static long[] intersect(long[] left, long[] right) {
+        if (left == null) {
+            return right;
+        }
+        long[] result = new long[Math.min(left.length, right.length)];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[size++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int lowerBound(long[] ids, long value) {
+        int index = Arrays.binarySearch(ids, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Split text into lower-cased letter/digit terms
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Detached copy of the searchable and returned book fields
+     */
+    private static Book snapshot(Book book) {
+        Book copy = new Book(book.getTitle(), book.getAuthor(), book.getPublishedYear(),
+            book.getCategory(), book.getBookType());
+        copy.setId(book.getId());
+        copy.setCreatedAt(book.getCreatedAt());
+        copy.setUpdatedAt(book.getUpdatedAt());
+        return copy;
+    }
+
+    /**
+     * Growable sorted array of primitive book IDs
+     */
+    private static final class LongPostings {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+        }
+
+        int copyTo(long[] target, int position) {
+            System.arraycopy(ids, 0, target, position, size);
+            return position + size;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            ids = new long[4];
+            size = 0;
+        }
+    }
+}
@@ -1,20 +1,29 @@
 package com.library.service;
 
+import com.library.config.DatabaseSchemaInitializer;
 import com.library.constant.BookType;
 import com.library.dto.request.AddBookCopiesRequest;
 import com.library.dto.request.CreateBookWithCopiesRequest;
 import com.library.dto.response.BookWithCopiesResponse;
 import com.library.dto.response.BookWithCopySummaryResponse;
+import com.library.dto.response.CursorPageResponse;
 import com.library.entity.Book;
 import com.library.entity.BookCopy;
 import com.library.entity.Library;
 import com.library.repository.BookCopyRepository;
 import com.library.repository.BookRepository;
 import com.library.repository.LibraryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -29,16 +38,32 @@ import java.util.stream.Collectors;
 @Transactional
 public class BookService {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String SEARCH_MODE_TRIGRAM = "trigram";
+    
+    /**
+     * Search mode: "like" (portable, used with H2) or "trigram" (PostgreSQL pg_trgm, ranked)
+     * Trigram mode is only used once DatabaseSchemaInitializer has set up pg_trgm; otherwise "like" applies
+     */
+    @Value("${library.search.mode:like}")
+    private String searchMode;
+    
     private final BookRepository bookRepository;
     private final BookCopyRepository bookCopyRepository;
     private final LibraryRepository libraryRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final DatabaseSchemaInitializer databaseSchemaInitializer;
     
     public BookService(BookRepository bookRepository, 
                       BookCopyRepository bookCopyRepository,
-                      LibraryRepository libraryRepository) {
+                      LibraryRepository libraryRepository,
+                      BookSearchIndex bookSearchIndex,
+                      DatabaseSchemaInitializer databaseSchemaInitializer) {
         this.bookRepository = bookRepository;
         this.bookCopyRepository = bookCopyRepository;
         this.libraryRepository = libraryRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.databaseSchemaInitializer = databaseSchemaInitializer;
     }
     
     /**
@@ -60,7 +85,9 @@ public class BookService {
         
         // Create book with default type "圖書"
         Book book = new Book(title, author, publishedYear, category);
-        return bookRepository.save(book);
+        book = bookRepository.save(book);
+        bookSearchIndex.indexAfterCommit(book);
+        return book;
     }
     
     /**
@@ -91,7 +118,9 @@ public class BookService {
         
         // Create book with specified type
         Book book = new Book(title, author, publishedYear, category, bookType);
-        return bookRepository.save(book);
+        book = bookRepository.save(book);
+        bookSearchIndex.indexAfterCommit(book);
+        return book;
     }
     
     /**
@@ -105,28 +134,26 @@ public class BookService {
      * Get all books with pagination
      */
     public List<Book> getAllBooks(int page, int size) {
+        return getBooksPage(page, size, false).getContent();
+    }
+    
+    /**
+     * Get one page of books ordered by ID
+     * Paging is done by the database; the total count query only runs when includeTotal is true
+     */
+    public Slice<Book> getBooksPage(int page, int size, boolean includeTotal) {
         if (page < 0) {
             page = 0;
         }
         if (size <= 0) {
             size = 10;
         }
-        
-        // Calculate offset
-        int offset = page * size;
-        
-        // Get all books first (since we don't have a paginated search method)
-        List<Book> allBooks = bookRepository.searchBooks(null, null, null);
-        
-        // Apply pagination manually
-        int startIndex = offset;
-        int endIndex = Math.min(startIndex + size, allBooks.size());
-        
-        if (startIndex >= allBooks.size()) {
-            return new ArrayList<>();
+        if (size > MAX_PAGE_SIZE) {
+            size = MAX_PAGE_SIZE;
         }
         
-        return allBooks.subList(startIndex, endIndex);
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        return includeTotal ? bookRepository.findAll(pageable) : bookRepository.findAllBy(pageable);
     }
     
     /**
@@ -317,12 +344,28 @@ public class BookService {
     public List<BookWithCopySummaryResponse> searchBooksWithCopySummary(
             String title, String author, Integer publishedYear, Long libraryId, int page, int size) {
         
+        if (page < 0) page = 0;
+        if (size <= 0) size = 10;
+        
+        // Served from the in-process index when it is enabled and built
+        if (bookSearchIndex.isAvailable()) {
+            if (size > MAX_PAGE_SIZE) size = MAX_PAGE_SIZE;
+            List<Book> books = bookSearchIndex.search(title, author, publishedYear, 0L, page * size, size);
+            return createBookWithCopySummaries(books, libraryId);
+        }
+        
+        // Trigram mode pages and ranks in the database
+        if (SEARCH_MODE_TRIGRAM.equalsIgnoreCase(searchMode) && databaseSchemaInitializer.isTrigramAvailable()) {
+            if (size > MAX_PAGE_SIZE) size = MAX_PAGE_SIZE;
+            List<Book> books = bookRepository.searchBooksRanked(
+                title, author, publishedYear, size, (long) page * size);
+            return createBookWithCopySummaries(books, libraryId);
+        }
+        
         // Get books based on search criteria
         List<Book> books = bookRepository.searchBooks(title, author, publishedYear);
         
         // Apply pagination
-        if (page < 0) page = 0;
-        if (size <= 0) size = 10;
         int offset = page * size;
         int startIndex = offset;
         int endIndex = Math.min(startIndex + size, books.size());
@@ -334,60 +377,112 @@ public class BookService {
         List<Book> paginatedBooks = books.subList(startIndex, endIndex);
         
         // Convert to response with copy summary
-        return paginatedBooks.stream()
-            .map(book -> createBookWithCopySummary(book, libraryId))
-            .toList();
+        return createBookWithCopySummaries(paginatedBooks, libraryId);
     }
     
     /**
-     * Create book with copy summary response
+     * Search books with copy summary using keyset (cursor) pagination
+     * Seeks on book ID, so every page costs the same regardless of depth
      */
-    private BookWithCopySummaryResponse createBookWithCopySummary(Book book, Long libraryId) {
-        List<BookCopy> allCopies = bookCopyRepository.findByBook(book);
+    public CursorPageResponse<BookWithCopySummaryResponse> searchBooksWithCopySummaryAfter(
+            String title, String author, Integer publishedYear, Long libraryId, String after, int limit) {
+        
+        if (limit <= 0) limit = 10;
+        if (limit > MAX_PAGE_SIZE) limit = MAX_PAGE_SIZE;
+        long afterId = decodeCursor(after);
         
-        // Filter by library if specified
-        List<BookCopy> relevantCopies = libraryId != null 
-            ? allCopies.stream()
-                .filter(copy -> copy.getLibrary().getId().equals(libraryId))
-                .toList()
-            : allCopies;
+        // Fetch one extra row to find out whether another page exists
+        List<Book> books = bookSearchIndex.isAvailable()
+            ? bookSearchIndex.search(title, author, publishedYear, afterId, 0, limit + 1)
+            : bookRepository.searchBooksAfter(title, author, publishedYear, afterId, limit + 1);
+        boolean hasNext = books.size() > limit;
+        if (hasNext) {
+            books = books.subList(0, limit);
+        }
         
-        // Calculate statistics
-        int totalCopies = relevantCopies.size();
-        int availableCopies = (int) relevantCopies.stream()
-            .filter(copy -> "AVAILABLE".equals(copy.getStatus()))
-            .count();
+        String nextCursor = hasNext ? encodeCursor(books.get(books.size() - 1).getId()) : null;
         
-        // Group by library
-        Map<Long, List<BookCopy>> copiesByLibrary = relevantCopies.stream()
-            .collect(Collectors.groupingBy(copy -> copy.getLibrary().getId()));
+        List<BookWithCopySummaryResponse> content = createBookWithCopySummaries(books, libraryId);
         
-        List<BookWithCopySummaryResponse.LibraryCopySummary> librarySummaries = copiesByLibrary.entrySet().stream()
-            .map(entry -> {
-                Long libId = entry.getKey();
-                List<BookCopy> libCopies = entry.getValue();
-                String libName = libCopies.get(0).getLibrary().getName();
-                int libTotal = libCopies.size();
-                int libAvailable = (int) libCopies.stream()
-                    .filter(copy -> "AVAILABLE".equals(copy.getStatus()))
-                    .count();
-                
-                return new BookWithCopySummaryResponse.LibraryCopySummary(libId, libName, libTotal, libAvailable);
-            })
+        return new CursorPageResponse<>(content, limit, hasNext, nextCursor);
+    }
+    
+    /**
+     * Encode the last seen book ID as an opaque cursor
+     */
+    private String encodeCursor(Long bookId) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(String.valueOf(bookId).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decode a cursor back to the last seen book ID (0 when starting from the first page)
+     */
+    private long decodeCursor(String cursor) {
+        if (cursor == null || cursor.trim().isEmpty()) {
+            return 0L;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            return Long.parseLong(value);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+    
+    /**
+     * Create book with copy summary responses for a page of books
+     * Copy counts for all books are loaded with a single grouped query
+     */
+    private List<BookWithCopySummaryResponse> createBookWithCopySummaries(List<Book> books, Long libraryId) {
+        if (books.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        List<Long> bookIds = books.stream()
+            .map(Book::getId)
             .toList();
         
-        BookWithCopySummaryResponse.CopySummary copySummary = new BookWithCopySummaryResponse.CopySummary(
-            totalCopies, availableCopies, librarySummaries);
+        // Group per-library counts by book
+        Map<Long, List<BookWithCopySummaryResponse.LibraryCopySummary>> librarySummariesByBook =
+            bookCopyRepository.countCopiesByBookAndLibrary(bookIds, libraryId).stream()
+                .collect(Collectors.groupingBy(
+                    BookCopyRepository.LibraryCopyCount::getBookId,
+                    Collectors.mapping(count -> new BookWithCopySummaryResponse.LibraryCopySummary(
+                        count.getLibraryId(),
+                        count.getLibraryName(),
+                        count.getTotalCopies().intValue(),
+                        count.getAvailableCopies().intValue()
+                    ), Collectors.toList())
+                ));
         
-        return new BookWithCopySummaryResponse(
-            book.getId(),
-            book.getTitle(),
-            book.getAuthor(),
-            book.getPublishedYear(),
-            book.getCategory(),
-            book.getBookType(),
-            copySummary
-        );
+        return books.stream()
+            .map(book -> {
+                List<BookWithCopySummaryResponse.LibraryCopySummary> librarySummaries =
+                    librarySummariesByBook.getOrDefault(book.getId(), new ArrayList<>());
+                
+                // Calculate statistics
+                int totalCopies = librarySummaries.stream()
+                    .mapToInt(BookWithCopySummaryResponse.LibraryCopySummary::getTotalCopies)
+                    .sum();
+                int availableCopies = librarySummaries.stream()
+                    .mapToInt(BookWithCopySummaryResponse.LibraryCopySummary::getAvailableCopies)
+                    .sum();
+                
+                BookWithCopySummaryResponse.CopySummary copySummary = new BookWithCopySummaryResponse.CopySummary(
+                    totalCopies, availableCopies, librarySummaries);
+                
+                return new BookWithCopySummaryResponse(
+                    book.getId(),
+                    book.getTitle(),
+                    book.getAuthor(),
+                    book.getPublishedYear(),
+                    book.getCategory(),
+                    book.getBookType(),
+                    copySummary
+                );
+            })
+            .toList();
     }
     
     /**
@@ -430,6 +525,7 @@ public class BookService {
             request.getBookType()
         );
         book = bookRepository.save(book);
+        bookSearchIndex.indexAfterCommit(book);
         
         // Create copies for each library
         List<BookWithCopiesResponse.LibraryCopyInfo> libraryCopyInfos = new ArrayList<>();
@@ -443,8 +539,8 @@ public class BookService {
                 throw new RuntimeException("Number of copies must be greater than 0 for library: " + library.getName());
             }
             
-            // Create copies for this library
-            List<BookWithCopiesResponse.CopyInfo> copyInfos = new ArrayList<>();
+            // Create copies for this library; saveAll lets Hibernate send them as one JDBC batch
+            List<BookCopy> copies = new ArrayList<>();
             
             for (int i = 1; i <= config.getNumberOfCopies(); i++) {
                 BookCopy copy = new BookCopy();
@@ -452,16 +548,11 @@ public class BookService {
                 copy.setLibrary(library);
                 copy.setCopyNumber(i);
                 copy.setStatus("AVAILABLE");
-                
-                copy = bookCopyRepository.save(copy);
-                
-                copyInfos.add(new BookWithCopiesResponse.CopyInfo(
-                    copy.getId(),
-                    copy.getCopyNumber(),
-                    copy.getStatus()
-                ));
+                copies.add(copy);
             }
             
+            List<BookWithCopiesResponse.CopyInfo> copyInfos = toCopyInfos(bookCopyRepository.saveAll(copies));
+            
             libraryCopyInfos.add(new BookWithCopiesResponse.LibraryCopyInfo(
                 library.getId(),
                 library.getName(),
@@ -486,8 +577,9 @@ public class BookService {
      * Supports adding copies to existing libraries or new libraries
      */
     public BookWithCopiesResponse addBookCopies(AddBookCopiesRequest request) {
-        // Validate book exists
-        Book book = findById(request.getBookId());
+        // Validate book exists and lock it so concurrent adds allocate distinct copy numbers
+        Book book = bookRepository.findByIdForUpdate(request.getBookId())
+            .orElseThrow(() -> new RuntimeException("Book not found"));
         
         if (request.getLibraryCopies() == null || request.getLibraryCopies().isEmpty()) {
             throw new RuntimeException("At least one library copy configuration is required");
@@ -505,11 +597,11 @@ public class BookService {
                 throw new RuntimeException("Number of copies must be greater than 0 for library: " + library.getName());
             }
             
-            // Get the next copy number for this book in this library
+            // Get the next copy number for this book in this library; the whole range is ours while the book is locked
             int nextCopyNumber = getNextCopyNumber(book.getId(), library.getId());
             
-            // Create copies for this library
-            List<BookWithCopiesResponse.CopyInfo> copyInfos = new ArrayList<>();
+            // Create copies for this library; saveAll lets Hibernate send them as one JDBC batch
+            List<BookCopy> copies = new ArrayList<>();
             
             for (int i = 0; i < config.getNumberOfCopies(); i++) {
                 BookCopy copy = new BookCopy();
@@ -517,16 +609,11 @@ public class BookService {
                 copy.setLibrary(library);
                 copy.setCopyNumber(nextCopyNumber + i);
                 copy.setStatus("AVAILABLE");
-                
-                copy = bookCopyRepository.save(copy);
-                
-                copyInfos.add(new BookWithCopiesResponse.CopyInfo(
-                    copy.getId(),
-                    copy.getCopyNumber(),
-                    copy.getStatus()
-                ));
+                copies.add(copy);
             }
             
+            List<BookWithCopiesResponse.CopyInfo> copyInfos = toCopyInfos(bookCopyRepository.saveAll(copies));
+            
             libraryCopyInfos.add(new BookWithCopiesResponse.LibraryCopyInfo(
                 library.getId(),
                 library.getName(),
@@ -546,6 +633,19 @@ public class BookService {
         );
     }
     
+    /**
+     * Convert saved copies to copy info entries
+     */
+    private List<BookWithCopiesResponse.CopyInfo> toCopyInfos(List<BookCopy> copies) {
+        return copies.stream()
+            .map(copy -> new BookWithCopiesResponse.CopyInfo(
+                copy.getId(),
+                copy.getCopyNumber(),
+                copy.getStatus()
+            ))
+            .toList();
+    }
+    
     /**
      * Update book information
      */
@@ -575,10 +675,16 @@ public class BookService {
         }
         
         if (bookType != null && !bookType.trim().isEmpty()) {
+            // Active loans are counted per book type; changing it would leave them on the old type's counter
+            if (!bookType.equals(book.getBookType()) && bookCopyRepository.countByBookAndStatus(book, "BORROWED") > 0) {
+                throw new RuntimeException("Cannot change book type while copies are borrowed");
+            }
             book.setBookType(bookType);
         }
         
-        return bookRepository.save(book);
+        book = bookRepository.save(book);
+        bookSearchIndex.indexAfterCommit(book);
+        return book;
     }
     
     /**
@@ -596,11 +702,8 @@ public class BookService {
         // Update copy number if provided
         if (copyNumber != null && copyNumber > 0) {
             // Check if copy number already exists for this book in this library
-            List<BookCopy> existingCopies = bookCopyRepository.findByBookIdAndLibraryId(
-                bookCopy.getBook().getId(), bookCopy.getLibrary().getId());
-            
-            boolean copyNumberExists = existingCopies.stream()
-                .anyMatch(copy -> !copy.getId().equals(copyId) && copy.getCopyNumber().equals(copyNumber));
+            boolean copyNumberExists = bookCopyRepository.existsByBookIdAndLibraryIdAndCopyNumberAndIdNot(
+                bookCopy.getBook().getId(), bookCopy.getLibrary().getId(), copyNumber, copyId);
             
             if (copyNumberExists) {
                 throw new RuntimeException("Copy number already exists for this book in this library");
@@ -621,19 +724,7 @@ public class BookService {
      * Get the next copy number for a book in a specific library
      */
     private int getNextCopyNumber(Long bookId, Long libraryId) {
-        // Find the highest copy number for this book in this library
-        List<BookCopy> existingCopies = bookCopyRepository.findByBookIdAndLibraryId(bookId, libraryId);
-        
-        if (existingCopies.isEmpty()) {
-            return 1; // First copy in this library
-        }
-        
-        // Find the highest copy number and add 1
-        int maxCopyNumber = existingCopies.stream()
-            .mapToInt(BookCopy::getCopyNumber)
-            .max()
-            .orElse(0);
-        
-        return maxCopyNumber + 1;
+        // Highest copy number for this book in this library (0 if none) plus 1
+        return bookCopyRepository.findMaxCopyNumber(bookId, libraryId) + 1;
     }
 }
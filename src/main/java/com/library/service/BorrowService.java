@@ -1,17 +1,27 @@
 package com.library.service;
 
 import com.library.constant.BookType;
+import com.library.dto.response.BatchBorrowResponse;
+import com.library.dto.response.BatchReturnResponse;
 import com.library.entity.BookCopy;
 import com.library.entity.BorrowRecord;
 import com.library.entity.User;
 import com.library.repository.BookCopyRepository;
 import com.library.repository.BorrowRecordRepository;
 import com.library.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Borrow Service - Business logic for borrowing management
@@ -23,16 +33,38 @@ import java.util.List;
 @Transactional
 public class BorrowService {
     
+    private static final int LOAN_PERIOD_DAYS = 30;
+    private static final int OVERDUE_HINT_CACHE_SIZE = 10_000;
+    
     private final BorrowRecordRepository borrowRecordRepository;
     private final BookCopyRepository bookCopyRepository;
     private final UserRepository userRepository;
+    private final LoanCounterService loanCounterService;
+    private final EntityManager entityManager;
+    
+    /**
+     * Per-user lower bound on the earliest due date of active loans (LRU, bounded)
+     * Returns only move the earliest due date later and new loans are due LOAN_PERIOD_DAYS out,
+     * so a cached bound stays valid until it has passed
+     */
+    private final Map<Long, LocalDateTime> earliestDueHints = Collections.synchronizedMap(
+        new LinkedHashMap<Long, LocalDateTime>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, LocalDateTime> eldest) {
+                return size() > OVERDUE_HINT_CACHE_SIZE;
+            }
+        });
     
     public BorrowService(BorrowRecordRepository borrowRecordRepository,
                         BookCopyRepository bookCopyRepository,
-                        UserRepository userRepository) {
+                        UserRepository userRepository,
+                        LoanCounterService loanCounterService,
+                        EntityManager entityManager) {
         this.borrowRecordRepository = borrowRecordRepository;
         this.bookCopyRepository = bookCopyRepository;
         this.userRepository = userRepository;
+        this.loanCounterService = loanCounterService;
+        this.entityManager = entityManager;
     }
     
     /**
@@ -43,91 +75,305 @@ public class BorrowService {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
         
-        // Find book copy
-        BookCopy bookCopy = bookCopyRepository.findById(bookCopyId)
+        // Find book copy with its book and library in one query
+        BookCopy bookCopy = bookCopyRepository.findWithBookAndLibraryById(bookCopyId)
             .orElseThrow(() -> new RuntimeException("Book copy not found"));
         
-        // Check if book is available
+        // Fail fast if the copy is already out; the conditional update below is the authoritative check
         if (!"AVAILABLE".equals(bookCopy.getStatus())) {
             throw new RuntimeException("Book is not available");
         }
         
-        // Get book type and check borrowing limits
+        // Get book type and reserve a slot within the borrowing limits
         String bookType = bookCopy.getBook().getBookType();
-        checkBorrowingLimits(user, bookType);
+        reserveBorrowingSlot(userId, bookType);
         
         // Check for overdue books
-        List<BorrowRecord> overdueRecords = borrowRecordRepository.findOverdueRecords(
-            userId, "BORROWED", LocalDateTime.now()
-        );
-        if (!overdueRecords.isEmpty()) {
+        if (existsOverdue(userId, LocalDateTime.now())) {
             throw new RuntimeException("User has overdue books. Please return them first.");
         }
         
-        // Create borrow record with 30 days loan period
-        BorrowRecord borrowRecord = new BorrowRecord(user, bookCopy, LocalDateTime.now().plusDays(30));
+        // Claim the copy with a conditional update; only one concurrent borrower can win it
+        int claimed = bookCopyRepository.compareAndSetStatus(
+            bookCopyId, "AVAILABLE", "BORROWED", LocalDateTime.now()
+        );
+        if (claimed == 0) {
+            throw new RuntimeException("Book is not available");
+        }
+        // The update bypassed the persistence context; reload the claimed copy so it cannot hold the old status
+        entityManager.refresh(bookCopy);
         
-        // Update book copy status
-        bookCopy.setStatus("BORROWED");
-        bookCopyRepository.save(bookCopy);
+        // Create borrow record with 30 days loan period
+        BorrowRecord borrowRecord = new BorrowRecord(user, bookCopy, LocalDateTime.now().plusDays(LOAN_PERIOD_DAYS));
         
         // Save borrow record
         return borrowRecordRepository.save(borrowRecord);
     }
     
     /**
-     * Check borrowing limits based on book type
+     * Reserve a slot in the user's loan counter for the book type
+     * The increment is rolled back with the transaction if the borrow fails later on
+     */
+    private void reserveBorrowingSlot(Long userId, String bookType) {
+        int limit = borrowingLimit(bookType);
+        if (limit >= 0 && !loanCounterService.tryIncrement(userId, bookType, limit)) {
+            throw new RuntimeException(limitReachedMessage(bookType));
+        }
+    }
+    
+    /**
+     * Borrowing limit for a book type, or -1 if the type is not limited
      * 圖書: maximum 5 books
      * 書籍: maximum 10 books
      */
-    private void checkBorrowingLimits(User user, String bookType) {
-        List<BorrowRecord> activeBorrows = borrowRecordRepository.findByUserAndStatus(user, "BORROWED");
-        
+    private static int borrowingLimit(String bookType) {
         if (BookType.TRADITIONAL.equals(bookType)) {
-            // Check if user already has 5 traditional books
-            long bookCount = activeBorrows.stream()
-                .filter(record -> BookType.TRADITIONAL.equals(record.getBookCopy().getBook().getBookType()))
-                .count();
-            
-            if (bookCount >= 5) {
-                throw new RuntimeException("Traditional book borrowing limit reached (maximum 5 books)");
-            }
+            return 5;
         } else if (BookType.MODERN.equals(bookType)) {
-            // Check if user already has 10 modern books
-            long bookCount = activeBorrows.stream()
-                .filter(record -> BookType.MODERN.equals(record.getBookCopy().getBook().getBookType()))
-                .count();
+            return 10;
+        }
+        return -1;
+    }
+    
+    private static String limitReachedMessage(String bookType) {
+        return BookType.TRADITIONAL.equals(bookType)
+            ? "Traditional book borrowing limit reached (maximum 5 books)"
+            : "Modern book borrowing limit reached (maximum 10 books)";
+    }
+    
+    /**
+     * Borrow a basket of book copies in one transaction
+     * User checks and limit reservation run once for the whole basket; every copy gets its own result
+     */
+    public BatchBorrowResponse borrowBooks(Long userId, List<Long> bookCopyIds) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        if (existsOverdue(userId, now)) {
+            throw new RuntimeException("User has overdue books. Please return them first.");
+        }
+        
+        // Load all requested copies with their books in one query
+        List<Long> distinctIds = bookCopyIds.stream().distinct().toList();
+        Map<Long, BookCopy> copies = new HashMap<>();
+        for (BookCopy copy : bookCopyRepository.findAllWithBookByIdIn(distinctIds)) {
+            copies.put(copy.getId(), copy);
+        }
+        
+        // Filter out missing and unavailable copies, grouping the rest by book type
+        Map<Long, String> failures = new HashMap<>();
+        Map<String, List<Long>> candidatesByType = new LinkedHashMap<>();
+        for (Long copyId : distinctIds) {
+            BookCopy copy = copies.get(copyId);
+            if (copy == null) {
+                failures.put(copyId, "Book copy not found");
+            } else if (!"AVAILABLE".equals(copy.getStatus())) {
+                failures.put(copyId, "Book is not available");
+            } else {
+                candidatesByType.computeIfAbsent(copy.getBook().getBookType(), type -> new ArrayList<>()).add(copyId);
+            }
+        }
+        
+        // Reserve loan slots once per book type; copies beyond the limit fail
+        List<Long> claimable = new ArrayList<>();
+        for (Map.Entry<String, List<Long>> entry : candidatesByType.entrySet()) {
+            String bookType = entry.getKey();
+            List<Long> candidates = entry.getValue();
+            int limit = borrowingLimit(bookType);
+            int granted = limit < 0
+                ? candidates.size()
+                : loanCounterService.reserveUpTo(userId, bookType, candidates.size(), limit);
             
-            if (bookCount >= 10) {
-                throw new RuntimeException("Modern book borrowing limit reached (maximum 10 books)");
+            claimable.addAll(candidates.subList(0, granted));
+            for (Long copyId : candidates.subList(granted, candidates.size())) {
+                failures.put(copyId, limitReachedMessage(bookType));
+            }
+        }
+        
+        // Claim all copies with one batched conditional update; release slots for copies lost to other borrowers
+        int[] updated = bookCopyRepository.compareAndSetStatuses(claimable, "AVAILABLE", "BORROWED", now);
+        List<Long> claimed = new ArrayList<>();
+        Map<String, Integer> lostByType = new HashMap<>();
+        for (int i = 0; i < claimable.size(); i++) {
+            Long copyId = claimable.get(i);
+            if (updated[i] > 0) {
+                claimed.add(copyId);
+            } else {
+                failures.put(copyId, "Book is not available");
+                lostByType.merge(copies.get(copyId).getBook().getBookType(), 1, Integer::sum);
+            }
+        }
+        lostByType.forEach((bookType, count) -> {
+            if (borrowingLimit(bookType) >= 0) {
+                loanCounterService.decrement(userId, bookType, count);
             }
+        });
+        
+        // Insert borrow records with one JDBC batch
+        LocalDateTime dueAt = now.plusDays(LOAN_PERIOD_DAYS);
+        List<Long> recordIds = borrowRecordRepository.insertBorrowRecords(userId, claimed, now, dueAt);
+        Map<Long, Long> recordIdByCopy = new HashMap<>();
+        for (int i = 0; i < claimed.size(); i++) {
+            recordIdByCopy.put(claimed.get(i), recordIds.get(i));
+        }
+        
+        // Report results in request order
+        List<BatchBorrowResponse.ItemResult> results = new ArrayList<>();
+        Set<Long> reported = new HashSet<>();
+        for (Long copyId : bookCopyIds) {
+            Long recordId = recordIdByCopy.get(copyId);
+            if (!reported.add(copyId)) {
+                results.add(new BatchBorrowResponse.ItemResult(copyId, false, null, null, "Duplicate book copy in request"));
+            } else if (recordId != null) {
+                results.add(new BatchBorrowResponse.ItemResult(copyId, true, recordId, dueAt, "Book borrowed successfully"));
+            } else {
+                results.add(new BatchBorrowResponse.ItemResult(copyId, false, null, null, failures.get(copyId)));
+            }
+        }
+        
+        return new BatchBorrowResponse(results, claimed.size(), results.size() - claimed.size());
+    }
+    
+    /**
+     * Count a user's active borrows per book type with one grouped query
+     */
+    private Map<String, Long> countActiveBorrowsByBookType(Long userId) {
+        Map<String, Long> counts = new HashMap<>();
+        for (BorrowRecordRepository.BookTypeCount count :
+                borrowRecordRepository.countByUserIdAndStatusGroupByBookType(userId, "BORROWED")) {
+            counts.put(count.getBookType(), count.getBorrowCount());
         }
+        return counts;
     }
     
     /**
      * Return a book
      */
     public BorrowRecord returnBook(Long borrowRecordId) {
-        // Find borrow record
-        BorrowRecord borrowRecord = borrowRecordRepository.findById(borrowRecordId)
+        // Find borrow record with its user, copy, book and library in one query
+        BorrowRecord borrowRecord = borrowRecordRepository.findWithDetailsById(borrowRecordId)
             .orElseThrow(() -> new RuntimeException("Borrow record not found"));
         
-        // Check if already returned
+        // Fail fast if already returned; the conditional update below is the authoritative check
         if ("RETURNED".equals(borrowRecord.getStatus())) {
             throw new RuntimeException("Book already returned");
         }
         
-        // Update borrow record
-        borrowRecord.setReturnedAt(LocalDateTime.now());
-        borrowRecord.setStatus("RETURNED");
+        // Close the record with a conditional update; only one concurrent return (single or batch) can win it
+        LocalDateTime now = LocalDateTime.now();
+        if (borrowRecordRepository.markReturnedIfBorrowed(borrowRecordId, now) == 0) {
+            throw new RuntimeException("Book already returned");
+        }
         
         // Update book copy status
         BookCopy bookCopy = borrowRecord.getBookCopy();
-        bookCopy.setStatus("AVAILABLE");
-        bookCopyRepository.save(bookCopy);
+        bookCopyRepository.markAvailable(List.of(bookCopy.getId()), now);
         
-        // Save borrow record
-        return borrowRecordRepository.save(borrowRecord);
+        // Release the user's loan slot, exactly once per returned record
+        loanCounterService.decrement(borrowRecord.getUser().getId(), bookCopy.getBook().getBookType(), 1);
+        
+        // Both updates bypassed the persistence context; reload just these two entities
+        entityManager.refresh(borrowRecord);
+        entityManager.refresh(bookCopy);
+        return borrowRecord;
+    }
+    
+    /**
+     * Return a batch of books by borrow record ID and/or scanned book copy ID
+     * Records and copies are updated with set-based statements; every item gets its own result
+     */
+    public BatchReturnResponse returnBooks(List<Long> borrowRecordIds, List<Long> bookCopyIds) {
+        List<Long> recordIds = borrowRecordIds != null ? borrowRecordIds : List.of();
+        List<Long> copyIds = bookCopyIds != null ? bookCopyIds : List.of();
+        
+        // Resolve requested records and scanned copies with one query each
+        Map<Long, BorrowRecordRepository.ReturnCandidate> candidatesByRecord = new HashMap<>();
+        if (!recordIds.isEmpty()) {
+            for (BorrowRecordRepository.ReturnCandidate candidate :
+                    borrowRecordRepository.findReturnCandidatesByIdIn(new HashSet<>(recordIds))) {
+                candidatesByRecord.put(candidate.getId(), candidate);
+            }
+        }
+        Map<Long, BorrowRecordRepository.ReturnCandidate> candidatesByCopy = new HashMap<>();
+        if (!copyIds.isEmpty()) {
+            for (BorrowRecordRepository.ReturnCandidate candidate :
+                    borrowRecordRepository.findReturnCandidatesByBookCopyIdIn(new HashSet<>(copyIds), "BORROWED")) {
+                candidatesByCopy.put(candidate.getBookCopyId(), candidate);
+            }
+        }
+        
+        // Validate each item in request order
+        List<BatchReturnResponse.ItemResult> results = new ArrayList<>();
+        Map<Long, BatchReturnResponse.ItemResult> resultByRecord = new LinkedHashMap<>();
+        Map<Long, BorrowRecordRepository.ReturnCandidate> toReturn = new LinkedHashMap<>();
+        for (Long recordId : recordIds) {
+            BorrowRecordRepository.ReturnCandidate candidate = candidatesByRecord.get(recordId);
+            String failure = candidate == null ? "Borrow record not found"
+                : !"BORROWED".equals(candidate.getStatus()) ? "Book already returned"
+                : toReturn.containsKey(candidate.getId()) ? "Duplicate item in request"
+                : null;
+            results.add(addReturnItem(candidate, recordId, candidate != null ? candidate.getBookCopyId() : null,
+                failure, toReturn, resultByRecord));
+        }
+        for (Long copyId : copyIds) {
+            BorrowRecordRepository.ReturnCandidate candidate = candidatesByCopy.get(copyId);
+            String failure = candidate == null ? "No active borrow found for this book copy"
+                : toReturn.containsKey(candidate.getId()) ? "Duplicate item in request"
+                : null;
+            results.add(addReturnItem(candidate, candidate != null ? candidate.getId() : null, copyId,
+                failure, toReturn, resultByRecord));
+        }
+        
+        // Close all records with one batched conditional update; records returned concurrently fail
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> returnIds = new ArrayList<>(toReturn.keySet());
+        int[] updated = borrowRecordRepository.markReturned(returnIds, now);
+        
+        List<Long> returnedCopyIds = new ArrayList<>();
+        Map<Long, Map<String, Integer>> releasedSlots = new HashMap<>();
+        for (int i = 0; i < returnIds.size(); i++) {
+            BorrowRecordRepository.ReturnCandidate candidate = toReturn.get(returnIds.get(i));
+            if (updated[i] > 0) {
+                returnedCopyIds.add(candidate.getBookCopyId());
+                releasedSlots.computeIfAbsent(candidate.getUserId(), user -> new HashMap<>())
+                    .merge(candidate.getBookType(), 1, Integer::sum);
+            } else {
+                BatchReturnResponse.ItemResult result = resultByRecord.get(candidate.getId());
+                result.setSuccess(false);
+                result.setMessage("Book already returned");
+            }
+        }
+        
+        // Make the copies available again with one set-based update
+        if (!returnedCopyIds.isEmpty()) {
+            bookCopyRepository.markAvailable(returnedCopyIds, now);
+        }
+        
+        // Release loan slots per user and book type
+        releasedSlots.forEach((userId, slotsByType) ->
+            slotsByType.forEach((bookType, count) -> loanCounterService.decrement(userId, bookType, count)));
+        
+        return new BatchReturnResponse(results, returnedCopyIds.size(), results.size() - returnedCopyIds.size());
+    }
+    
+    /**
+     * Build the result for one batch return item and queue its record when it passed validation
+     */
+    private BatchReturnResponse.ItemResult addReturnItem(BorrowRecordRepository.ReturnCandidate candidate,
+                                                         Long recordId, Long copyId, String failure,
+                                                         Map<Long, BorrowRecordRepository.ReturnCandidate> toReturn,
+                                                         Map<Long, BatchReturnResponse.ItemResult> resultByRecord) {
+        if (failure != null) {
+            return new BatchReturnResponse.ItemResult(recordId, copyId, false, failure);
+        }
+        
+        BatchReturnResponse.ItemResult result =
+            new BatchReturnResponse.ItemResult(recordId, copyId, true, "Book returned successfully");
+        toReturn.put(candidate.getId(), candidate);
+        resultByRecord.put(candidate.getId(), result);
+        return result;
     }
     
     /**
@@ -187,28 +433,42 @@ public class BorrowService {
      * Check if user has overdue books
      */
     public boolean hasOverdueBooks(Long userId) {
-        List<BorrowRecord> overdueRecords = borrowRecordRepository.findOverdueRecords(
-            userId, "BORROWED", LocalDateTime.now()
-        );
-        return !overdueRecords.isEmpty();
+        return existsOverdue(userId, LocalDateTime.now());
+    }
+    
+    /**
+     * Check for overdue loans with an EXISTS query, skipped while the cached earliest due date is in the future
+     */
+    private boolean existsOverdue(Long userId, LocalDateTime now) {
+        LocalDateTime earliestDueHint = earliestDueHints.get(userId);
+        if (earliestDueHint != null && earliestDueHint.isAfter(now)) {
+            return false;
+        }
+        
+        if (borrowRecordRepository.existsByUserIdAndStatusAndDueAtBefore(userId, "BORROWED", now)) {
+            earliestDueHints.remove(userId);
+            return true;
+        }
+        
+        // Nothing overdue: remember when the next loan can become overdue
+        LocalDateTime earliestDue = borrowRecordRepository.findEarliestDueAt(userId, "BORROWED");
+        LocalDateTime newLoanDue = now.plusDays(LOAN_PERIOD_DAYS);
+        earliestDueHints.put(userId, earliestDue != null && earliestDue.isBefore(newLoanDue) ? earliestDue : newLoanDue);
+        return false;
     }
     
     /**
      * Get borrowing statistics for a user
      */
     public BorrowingStats getBorrowingStats(Long userId) {
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
         
-        List<BorrowRecord> activeBorrows = borrowRecordRepository.findByUserAndStatus(user, "BORROWED");
+        Map<String, Long> activeCounts = countActiveBorrowsByBookType(userId);
         
-        long bookCount = activeBorrows.stream()
-            .filter(record -> BookType.TRADITIONAL.equals(record.getBookCopy().getBook().getBookType()))
-            .count();
-            
-        long bookCount2 = activeBorrows.stream()
-            .filter(record -> BookType.MODERN.equals(record.getBookCopy().getBook().getBookType()))
-            .count();
+        long bookCount = activeCounts.getOrDefault(BookType.TRADITIONAL, 0L);
+        long bookCount2 = activeCounts.getOrDefault(BookType.MODERN, 0L);
         
         return new BorrowingStats(bookCount, bookCount2);
     }
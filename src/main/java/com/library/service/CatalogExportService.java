@@ -0,0 +1,129 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.response.BookWithCopySummaryResponse;
+import com.library.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Catalog Export Service - Streams the whole catalog with copy availability
+ *
+ * Books are read through a JDBC cursor and written as they arrive, so memory use is
+ * constant regardless of catalog size.
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class CatalogExportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final String CSV_HEADER =
+        "id,title,author,publishedYear,category,bookType,libraryId,libraryName,totalCopies,availableCopies";
+
+    private final BookRepository bookRepository;
+    private final ObjectMapper objectMapper;
+
+    public CatalogExportService(BookRepository bookRepository, ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Validate and normalize an export format
+     */
+    public String resolveFormat(String format) {
+        String normalized = format == null ? FORMAT_NDJSON : format.trim().toLowerCase(Locale.ROOT);
+        if (!FORMAT_CSV.equals(normalized) && !FORMAT_NDJSON.equals(normalized)) {
+            throw new RuntimeException("Unsupported export format: " + format + ". Use csv or ndjson");
+        }
+        return normalized;
+    }
+
+    /**
+     * Write every book to the stream
+     * NDJSON: one BookWithCopySummaryResponse per line.
+     * CSV: one line per book and library (library columns empty for books without copies).
+     */
+    @Transactional(readOnly = true)
+    public void export(OutputStream output, String format) throws IOException {
+        boolean csv = FORMAT_CSV.equals(resolveFormat(format));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        long[] exported = new long[1];
+
+        if (csv) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try {
+            bookRepository.streamBooksWithCopySummary(book -> {
+                try {
+                    if (csv) {
+                        writeCsv(writer, book);
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(book));
+                        writer.write('\n');
+                    }
+                    exported[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client disconnected; stop reading the cursor
+            throw e.getCause();
+        }
+
+        writer.flush();
+        log.info("Catalog export finished: {} books", exported[0]);
+    }
+
+    private static void writeCsv(Writer writer, BookWithCopySummaryResponse book) throws IOException {
+        String bookColumns = book.getId() + "," +
+            csvField(book.getTitle()) + "," +
+            csvField(book.getAuthor()) + "," +
+            (book.getPublishedYear() != null ? book.getPublishedYear() : "") + "," +
+            csvField(book.getCategory()) + "," +
+            csvField(book.getBookType());
+
+        if (book.getCopySummary().getLibraryCopies().isEmpty()) {
+            writer.write(bookColumns + ",,,0,0\n");
+            return;
+        }
+        for (BookWithCopySummaryResponse.LibraryCopySummary library : book.getCopySummary().getLibraryCopies()) {
+            writer.write(bookColumns + "," +
+                library.getLibraryId() + "," +
+                csvField(library.getLibraryName()) + "," +
+                library.getTotalCopies() + "," +
+                library.getAvailableCopies() + "\n");
+        }
+    }
+
+    /**
+     * Quote a CSV field when it contains a delimiter, quote or line break (RFC 4180)
+     */
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,416 @@
+package com.library.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.constant.BookType;
+import com.library.dto.request.CatalogImportRow;
+import com.library.dto.response.CatalogImportResponse;
+import com.library.entity.Book;
+import com.library.entity.BookCopy;
+import com.library.entity.Library;
+import com.library.repository.BookCopyRepository;
+import com.library.repository.BookRepository;
+import com.library.repository.LibraryRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Catalog Import Service - Streams large catalog files into the books and copies tables
+ *
+ * The file is read line by line and written in chunks, each chunk in its own transaction,
+ * so memory use does not grow with the file size. Books are matched on title, author and
+ * published year; a matching book (already stored or earlier in the file) gets the new
+ * copies instead of a duplicate book row.
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class CatalogImportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_COPIES_PER_ROW = 1000;
+
+    private final BookRepository bookRepository;
+    private final BookCopyRepository bookCopyRepository;
+    private final LibraryRepository libraryRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate chunkTransaction;
+
+    public CatalogImportService(BookRepository bookRepository,
+                                BookCopyRepository bookCopyRepository,
+                                LibraryRepository libraryRepository,
+                                BookSearchIndex bookSearchIndex,
+                                ObjectMapper objectMapper,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.bookCopyRepository = bookCopyRepository;
+        this.libraryRepository = libraryRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Import a catalog file
+     *
+     * @param input  file content (UTF-8)
+     * @param format "csv" (header row required) or "ndjson" (one JSON object per line)
+     * @return counts of imported and rejected rows with the first row errors
+     */
+    public CatalogImportResponse importCatalog(InputStream input, String format) {
+        String normalizedFormat = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+        if (!FORMAT_CSV.equals(normalizedFormat) && !FORMAT_NDJSON.equals(normalizedFormat)) {
+            throw new RuntimeException("Unsupported import format: " + format + ". Use csv or ndjson");
+        }
+
+        Set<Long> libraryIds = libraryRepository.findAll().stream()
+            .map(Library::getId)
+            .collect(Collectors.toSet());
+
+        CatalogImportResponse result = new CatalogImportResponse();
+        List<PendingRow> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> header = null;
+            long lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                if (FORMAT_CSV.equals(normalizedFormat) && header == null) {
+                    header = parseCsvLine(line).stream()
+                        .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                        .collect(Collectors.toList());
+                    continue;
+                }
+
+                result.setRowsRead(result.getRowsRead() + 1);
+                try {
+                    CatalogImportRow row = FORMAT_CSV.equals(normalizedFormat)
+                        ? toRow(header, parseCsvLine(line))
+                        : parseJsonLine(line);
+                    validateRow(row, libraryIds);
+                    chunk.add(new PendingRow(lineNumber, row));
+                } catch (RuntimeException e) {
+                    reject(result, lineNumber, e.getMessage());
+                }
+
+                if (chunk.size() >= CHUNK_SIZE) {
+                    writeChunk(chunk, result);
+                    chunk.clear();
+                    log.info("Catalog import progress: {} rows read, {} imported, {} rejected",
+                        result.getRowsRead(), result.getRowsImported(), result.getRowsRejected());
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read import file: " + e.getMessage());
+        }
+
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, result);
+        }
+
+        log.info("Catalog import finished: {} rows read, {} imported, {} rejected, {} books created, {} copies created",
+            result.getRowsRead(), result.getRowsImported(), result.getRowsRejected(),
+            result.getBooksCreated(), result.getCopiesCreated());
+        return result;
+    }
+
+    /**
+     * Write one chunk in its own transaction; if the transaction fails every row in it is rejected
+     */
+    private void writeChunk(List<PendingRow> chunk, CatalogImportResponse result) {
+        try {
+            ChunkStats stats = chunkTransaction.execute(status -> persistChunk(chunk));
+            result.setRowsImported(result.getRowsImported() + chunk.size());
+            result.setBooksCreated(result.getBooksCreated() + stats.booksCreated);
+            result.setBooksMatched(result.getBooksMatched() + stats.booksMatched);
+            result.setCopiesCreated(result.getCopiesCreated() + stats.copiesCreated);
+        } catch (RuntimeException e) {
+            log.warn("Catalog import chunk starting at line {} failed: {}", chunk.get(0).lineNumber, e.getMessage());
+            for (PendingRow pending : chunk) {
+                reject(result, pending.lineNumber, "Chunk write failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private ChunkStats persistChunk(List<PendingRow> chunk) {
+        ChunkStats stats = new ChunkStats();
+
+        // One query resolves every book in the chunk that already exists
+        Set<String> titles = chunk.stream()
+            .map(pending -> pending.row.getTitle())
+            .collect(Collectors.toSet());
+        Map<BookKey, Book> books = new HashMap<>();
+        for (Book book : bookRepository.findByTitleIn(titles)) {
+            books.putIfAbsent(BookKey.of(book.getTitle(), book.getAuthor(), book.getPublishedYear()), book);
+        }
+
+        Set<BookKey> createdInChunk = new HashSet<>();
+        Set<BookKey> matchedInChunk = new HashSet<>();
+        Set<Long> lockedBookIds = new HashSet<>();
+        Map<String, Integer> nextCopyNumbers = new HashMap<>();
+        List<Book> newBooks = new ArrayList<>();
+        List<BookCopy> copies = new ArrayList<>();
+
+        for (PendingRow pending : chunk) {
+            CatalogImportRow row = pending.row;
+            BookKey key = BookKey.of(row.getTitle(), row.getAuthor(), row.getPublishedYear());
+
+            Book book = books.get(key);
+            if (book == null) {
+                book = new Book(row.getTitle(), row.getAuthor(), row.getPublishedYear(), row.getCategory(),
+                    row.getBookType() != null ? row.getBookType() : BookType.DEFAULT);
+                book = bookRepository.save(book);
+                books.put(key, book);
+                createdInChunk.add(key);
+                newBooks.add(book);
+                stats.booksCreated++;
+            } else if (!createdInChunk.contains(key) && matchedInChunk.add(key)) {
+                stats.booksMatched++;
+            }
+
+            if (row.getLibraryId() == null) {
+                continue;
+            }
+
+            int copyCount = row.getCopies() != null ? row.getCopies() : 1;
+            String copyKey = key + "|" + row.getLibraryId();
+            Integer nextCopyNumber = nextCopyNumbers.get(copyKey);
+            if (nextCopyNumber == null) {
+                if (createdInChunk.contains(key)) {
+                    nextCopyNumber = 1;
+                } else {
+                    // Same row lock as BookService.addBookCopies so concurrent copy numbering cannot collide
+                    if (lockedBookIds.add(book.getId())) {
+                        bookRepository.findByIdForUpdate(book.getId());
+                    }
+                    nextCopyNumber = bookCopyRepository.findMaxCopyNumber(book.getId(), row.getLibraryId()) + 1;
+                }
+            }
+
+            Library library = libraryRepository.getReferenceById(row.getLibraryId());
+            for (int i = 0; i < copyCount; i++) {
+                BookCopy copy = new BookCopy();
+                copy.setBook(book);
+                copy.setLibrary(library);
+                copy.setCopyNumber(nextCopyNumber + i);
+                copy.setStatus("AVAILABLE");
+                copies.add(copy);
+            }
+            nextCopyNumbers.put(copyKey, nextCopyNumber + copyCount);
+            stats.copiesCreated += copyCount;
+        }
+
+        // saveAll lets Hibernate send the copies as JDBC batches
+        bookCopyRepository.saveAll(copies);
+        for (Book book : newBooks) {
+            bookSearchIndex.indexAfterCommit(book);
+        }
+
+        // Release the chunk's entities so the persistence context stays small
+        entityManager.flush();
+        entityManager.clear();
+        return stats;
+    }
+
+    /**
+     * Trim fields and reject rows that cannot be imported
+     */
+    private void validateRow(CatalogImportRow row, Set<Long> libraryIds) {
+        row.setTitle(trimToNull(row.getTitle()));
+        row.setAuthor(trimToNull(row.getAuthor()));
+        row.setCategory(trimToNull(row.getCategory()));
+        row.setBookType(trimToNull(row.getBookType()));
+
+        if (row.getTitle() == null) {
+            throw new RuntimeException("Book title is required");
+        }
+        if (row.getAuthor() == null) {
+            throw new RuntimeException("Book author is required");
+        }
+        if (row.getCategory() == null) {
+            throw new RuntimeException("Book category is required");
+        }
+        if (row.getTitle().length() > 200 || row.getAuthor().length() > 200 || row.getCategory().length() > 50) {
+            throw new RuntimeException("Title/author must be at most 200 characters and category at most 50");
+        }
+        if (row.getPublishedYear() != null && row.getPublishedYear() <= 0) {
+            throw new RuntimeException("Published year must be positive");
+        }
+        if (row.getBookType() != null && !BookType.isValid(row.getBookType())) {
+            throw new RuntimeException("Invalid book type: " + row.getBookType());
+        }
+        if (row.getCopies() != null && (row.getCopies() <= 0 || row.getCopies() > MAX_COPIES_PER_ROW)) {
+            throw new RuntimeException("Number of copies must be between 1 and " + MAX_COPIES_PER_ROW);
+        }
+        if (row.getCopies() != null && row.getLibraryId() == null) {
+            throw new RuntimeException("Library ID is required when copies are given");
+        }
+        if (row.getLibraryId() != null && !libraryIds.contains(row.getLibraryId())) {
+            throw new RuntimeException("Library not found with ID: " + row.getLibraryId());
+        }
+    }
+
+    private CatalogImportRow parseJsonLine(String line) {
+        try {
+            return objectMapper.readValue(line, CatalogImportRow.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static CatalogImportRow toRow(List<String> header, List<String> values) {
+        if (values.size() > header.size()) {
+            throw new RuntimeException("Expected " + header.size() + " columns but found " + values.size());
+        }
+
+        CatalogImportRow row = new CatalogImportRow();
+        for (int i = 0; i < values.size(); i++) {
+            String value = trimToNull(values.get(i));
+            switch (header.get(i)) {
+                case "title" -> row.setTitle(value);
+                case "author" -> row.setAuthor(value);
+                case "publishedyear", "published_year" -> row.setPublishedYear(parseInteger(value, "published year"));
+                case "category" -> row.setCategory(value);
+                case "booktype", "book_type" -> row.setBookType(value);
+                case "libraryid", "library_id" -> row.setLibraryId(parseLong(value, "library ID"));
+                case "copies" -> row.setCopies(parseInteger(value, "copies"));
+                default -> {
+                    // Unknown columns are ignored
+                }
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Split one CSV record (RFC 4180 quoting; quoted fields may not span lines)
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new RuntimeException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static Integer parseInteger(String value, String field) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static Long parseLong(String value, String field) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static void reject(CatalogImportResponse result, long lineNumber, String message) {
+        result.setRowsRejected(result.getRowsRejected() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new CatalogImportResponse.RowError(lineNumber, message));
+        }
+    }
+
+    /**
+     * Validated row waiting for its chunk to be written
+     */
+    private record PendingRow(long lineNumber, CatalogImportRow row) {
+    }
+
+    /**
+     * Identity used to detect duplicate books
+     */
+    private record BookKey(String title, String author, Integer publishedYear) {
+        static BookKey of(String title, String author, Integer publishedYear) {
+            return new BookKey(title, author, publishedYear);
+        }
+    }
+
+    private static final class ChunkStats {
+        private long booksCreated;
+        private long booksMatched;
+        private long copiesCreated;
+    }
+}
@@ -0,0 +1,52 @@
+package com.library.service;
+
+import java.time.Duration;
+
+/**
+ * Circuit Breaker - Stops calling a failing upstream for a while
+ *
+ * Opens after failureThreshold consecutive failures. While open, calls are refused until
+ * openDuration has passed; after that calls are let through again (half-open) and the first
+ * success closes the breaker, while a failure re-opens it for another openDuration.
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean open;
+
+    CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Whether a call may be made now
+     */
+    synchronized boolean allowRequest() {
+        return !open || System.nanoTime() - openedAt >= openNanos;
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        open = false;
+    }
+
+    synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (open || consecutiveFailures >= failureThreshold) {
+            open = true;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    synchronized boolean isOpen() {
+        return open && System.nanoTime() - openedAt < openNanos;
+    }
+}
@@ -1,38 +1,102 @@
 package com.library.service;
 
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.RestClientException;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * External API Service - Handles external system integration
- * 
+ *
+ * Remote librarian verification uses a pooled, non-blocking WebClient with connect/response timeouts.
+ * Definite answers (verified / rejected) are cached per librarianId for cache-ttl, and after repeated
+ * upstream failures a circuit breaker answers UNAVAILABLE without calling out until it recovers.
+ *
  * @author Library System
  * @version 1.0.0
  */
+@Slf4j
 @Service
 public class ExternalApiService {
-    
-    private final RestTemplate restTemplate;
-    
+
+    /**
+     * Outcome of a remote librarian verification
+     */
+    public enum VerificationOutcome {
+        VERIFIED,
+        REJECTED,
+        // Upstream failed, timed out or the circuit breaker is open; the ID may still be valid
+        UNAVAILABLE
+    }
+
+    static final String MODE_MOCK = "mock";
+    static final String MODE_REMOTE = "remote";
+
     @Value("${external.librarian.verification-url:https://todo.com.tw}")
     private String verificationUrl;
-    
+
     @Value("${external.librarian.authorization-header:todo}")
     private String authorizationHeader;
-    
+
+    // mock: IDs starting with 'L' pass; remote: ask verification-url
+    @Value("${external.librarian.mode:mock}")
+    private String mode = MODE_MOCK;
+
+    @Value("${external.librarian.connect-timeout:2s}")
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    @Value("${external.librarian.response-timeout:5s}")
+    private Duration responseTimeout = Duration.ofSeconds(5);
+
+    @Value("${external.librarian.max-connections:20}")
+    private int maxConnections = 20;
+
+    @Value("${external.librarian.pending-acquire-timeout:2s}")
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+
+    @Value("${external.librarian.cache-ttl:10m}")
+    private Duration cacheTtl = Duration.ofMinutes(10);
+
+    @Value("${external.librarian.cache-max-size:10000}")
+    private int cacheMaxSize = 10000;
+
+    @Value("${external.librarian.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold = 5;
+
+    @Value("${external.librarian.circuit-breaker.open-duration:30s}")
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    // Built on first use from the settings above
+    private ConnectionProvider connectionProvider;
+    private volatile CircuitBreaker circuitBreaker;
+    private volatile WebClient webClient;
+
+    // Access-ordered so the eldest entry is the least recently used
+    private final LinkedHashMap<String, CachedOutcome> outcomeCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedOutcome> eldest) {
+            return size() > cacheMaxSize;
+        }
+    };
+
     public ExternalApiService() {
-        this.restTemplate = new RestTemplate();
     }
-    
+
     /**
      * Verify librarian identity with external system
-     * 
+     *
      * @param librarianId The librarian identification code
      * @return true if verification successful, false otherwise
      */
@@ -42,49 +106,185 @@ public class ExternalApiService {
             System.out.println("External API verification failed: librarianId is null or empty");
             return false;
         }
-        
+
+        if (MODE_REMOTE.equalsIgnoreCase(mode)) {
+            // Bounded by response-timeout; an open circuit answers immediately
+            return verifyLibrarianRemote(librarianId).block() == VerificationOutcome.VERIFIED;
+        }
+
         boolean isValid = librarianId.startsWith("L");
-        
+
         if (isValid) {
             System.out.println("External API verification successful for librarianId: " + librarianId);
         } else {
             System.out.println("External API verification failed for librarianId: " + librarianId + " (must start with 'L')");
         }
-        
+
         return isValid;
     }
-    
+
+    /**
+     * Verify a librarian ID against verification-url without blocking
+     * 2xx means verified, a 4xx about the ID means rejected; anything else (5xx, timeouts,
+     * bad credentials, open circuit) completes with UNAVAILABLE rather than an error.
+     *
+     * @param librarianId The librarian identification code
+     * @return the verification outcome
+     */
+    public Mono<VerificationOutcome> verifyLibrarianRemote(String librarianId) {
+        if (librarianId == null || librarianId.trim().isEmpty()) {
+            return Mono.just(VerificationOutcome.REJECTED);
+        }
+
+        VerificationOutcome cached = cachedOutcome(librarianId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        ensureInitialized();
+        if (!circuitBreaker.allowRequest()) {
+            log.debug("Librarian verification circuit is open, skipping call for {}", librarianId);
+            return Mono.just(VerificationOutcome.UNAVAILABLE);
+        }
+
+        return webClient.get()
+            .uri(verificationUrl, uriBuilder -> uriBuilder.queryParam("librarianId", librarianId).build())
+            .header(HttpHeaders.AUTHORIZATION, authorizationHeader)
+            .exchangeToMono(response -> response.releaseBody().thenReturn(classify(response.statusCode())))
+            .timeout(responseTimeout)
+            .onErrorResume(e -> {
+                log.warn("Librarian verification call failed for {}: {}", librarianId, e.toString());
+                return Mono.just(VerificationOutcome.UNAVAILABLE);
+            })
+            .doOnNext(outcome -> record(librarianId, outcome));
+    }
+
+    /**
+     * Verify a librarian ID without blocking, honouring external.librarian.mode
+     *
+     * @param librarianId The librarian identification code
+     * @return VERIFIED or REJECTED in mock mode; the remote outcome otherwise
+     */
+    public Mono<VerificationOutcome> verifyLibrarianAsync(String librarianId) {
+        if (MODE_REMOTE.equalsIgnoreCase(mode)) {
+            return verifyLibrarianRemote(librarianId);
+        }
+        return Mono.fromSupplier(() -> verifyLibrarian(librarianId)
+            ? VerificationOutcome.VERIFIED : VerificationOutcome.REJECTED);
+    }
+
     /**
      * Verify librarian identity with custom URL and authorization
-     * 
+     *
      * @param url Custom verification URL
      * @param authorization Custom authorization header
      * @return true if verification successful, false otherwise
      */
     public boolean verifyLibrarian(String url, String authorization) {
+        if (url == null) {
+            throw new IllegalArgumentException("Verification URL must not be null");
+        }
+
+        ensureInitialized();
         try {
-            // Set up headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", authorization);
-            
-            // Create HTTP entity with headers
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            // Make GET request to external API
-            ResponseEntity<String> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                entity,
-                String.class
-            );
-            
-            // Check if request was successful (HTTP 200)
-            return response.getStatusCode().is2xxSuccessful();
-            
-        } catch (RestClientException e) {
-            // Log the error (in production, use proper logging)
-            System.err.println("External API verification failed: " + e.getMessage());
+            Boolean successful = webClient.get()
+                .uri(url)
+                .headers(headers -> {
+                    if (authorization != null) {
+                        headers.set(HttpHeaders.AUTHORIZATION, authorization);
+                    }
+                })
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().is2xxSuccessful()))
+                .timeout(responseTimeout)
+                .block();
+
+            // Check if request was successful (HTTP 2xx)
+            return Boolean.TRUE.equals(successful);
+
+        } catch (RuntimeException e) {
+            log.warn("External API verification failed: {}", e.getMessage());
             return false;
         }
     }
+
+    /**
+     * Whether remote verification is currently short-circuited
+     */
+    public boolean isCircuitOpen() {
+        ensureInitialized();
+        return circuitBreaker.isOpen();
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+    }
+
+    static VerificationOutcome classify(HttpStatusCode status) {
+        if (status.is2xxSuccessful()) {
+            return VerificationOutcome.VERIFIED;
+        }
+        int code = status.value();
+        // Our credentials, timeouts and throttling say nothing about the librarian ID
+        if (status.is4xxClientError() && code != 401 && code != 403 && code != 408 && code != 429) {
+            return VerificationOutcome.REJECTED;
+        }
+        return VerificationOutcome.UNAVAILABLE;
+    }
+
+    private void record(String librarianId, VerificationOutcome outcome) {
+        if (outcome == VerificationOutcome.UNAVAILABLE) {
+            circuitBreaker.recordFailure();
+            return;
+        }
+        circuitBreaker.recordSuccess();
+        if (!cacheTtl.isZero() && !cacheTtl.isNegative()) {
+            synchronized (outcomeCache) {
+                outcomeCache.put(librarianId, new CachedOutcome(outcome, System.nanoTime() + cacheTtl.toNanos()));
+            }
+        }
+    }
+
+    private VerificationOutcome cachedOutcome(String librarianId) {
+        synchronized (outcomeCache) {
+            CachedOutcome entry = outcomeCache.get(librarianId);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAt() >= 0) {
+                outcomeCache.remove(librarianId);
+                return null;
+            }
+            return entry.outcome();
+        }
+    }
+
+    private void ensureInitialized() {
+        if (webClient == null) {
+            initialize();
+        }
+    }
+
+    private synchronized void initialize() {
+        if (webClient != null) {
+            return;
+        }
+        connectionProvider = ConnectionProvider.builder("librarian-verification")
+            .maxConnections(maxConnections)
+            .pendingAcquireTimeout(pendingAcquireTimeout)
+            .maxIdleTime(Duration.ofSeconds(30))
+            .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .responseTimeout(responseTimeout);
+        circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+        webClient = WebClient.builder()
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+    }
+
+    private record CachedOutcome(VerificationOutcome outcome, long expiresAt) {
+    }
 }
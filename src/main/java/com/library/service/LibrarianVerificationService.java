@@ -0,0 +1,244 @@
+package com.library.service;
+
+import com.library.entity.User;
+import com.library.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Librarian Verification Service - Verifies newly registered librarians in the background
+ *
+ * Registration stores librarians unverified with next_verification_at set, so it never waits for the
+ * external system. This service loads due librarians in batches, claims each row by pushing
+ * next_verification_at forward by a lease (so several instances never verify the same librarian or count
+ * an attempt twice), verifies the claimed rows concurrently through ExternalApiService and records the
+ * outcome: VERIFIED flips is_verified via
+ * UserService.updateVerificationStatus, REJECTED stops further attempts and UNAVAILABLE is retried with
+ * exponential backoff until max-attempts. A registration wakes the worker once it commits; the periodic
+ * reconciliation run picks up retries that came due and anything missed by a restart or another instance.
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+public class LibrarianVerificationService {
+
+    private final UserRepository userRepository;
+    private final ExternalApiService externalApiService;
+    // UserService depends on this service to request verification, so it is looked up lazily
+    private final ObjectProvider<UserService> userServiceProvider;
+
+    private final int batchSize;
+    private final int concurrency;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration batchTimeout;
+    // How long a claimed row stays hidden from other instances: the batch wait plus time to record outcomes
+    private final Duration claimLease;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "librarian-verification");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean runQueued = new AtomicBoolean();
+
+    public LibrarianVerificationService(UserRepository userRepository, ExternalApiService externalApiService,
+                                        ObjectProvider<UserService> userServiceProvider,
+                                        @Value("${library.librarian-verification.batch-size:50}") int batchSize,
+                                        @Value("${library.librarian-verification.concurrency:8}") int concurrency,
+                                        @Value("${library.librarian-verification.max-attempts:8}") int maxAttempts,
+                                        @Value("${library.librarian-verification.initial-backoff:30s}") Duration initialBackoff,
+                                        @Value("${library.librarian-verification.max-backoff:1h}") Duration maxBackoff,
+                                        @Value("${library.librarian-verification.batch-timeout:2m}") Duration batchTimeout) {
+        this.userRepository = userRepository;
+        this.externalApiService = externalApiService;
+        this.userServiceProvider = userServiceProvider;
+        this.batchSize = Math.max(1, batchSize);
+        this.concurrency = Math.max(1, concurrency);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.batchTimeout = batchTimeout;
+        this.claimLease = batchTimeout.multipliedBy(2);
+    }
+
+    /**
+     * Wake the worker once the surrounding transaction commits (immediately if there is none)
+     */
+    public void requestVerificationAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        } else {
+            wakeUp();
+        }
+    }
+
+    /**
+     * Periodically pick up retries that came due and registrations missed by a restart
+     */
+    @Scheduled(fixedDelayString = "${library.librarian-verification.reconcile-interval:60000}")
+    public void reconcile() {
+        wakeUp();
+    }
+
+    /**
+     * Queue one worker run; wake-ups while a run is already queued are merged into it
+     */
+    void wakeUp() {
+        if (!runQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            worker.execute(() -> {
+                runQueued.set(false);
+                processDue();
+            });
+        } catch (RejectedExecutionException e) {
+            runQueued.set(false);
+        }
+    }
+
+    /**
+     * Verify every librarian that is due, one batch at a time
+     *
+     * @return number of librarians processed
+     */
+    int processDue() {
+        int processed = 0;
+        try {
+            List<User> due;
+            do {
+                due = userRepository.findDueForVerification(LocalDateTime.now(), PageRequest.of(0, batchSize));
+                if (due.isEmpty()) {
+                    break;
+                }
+                List<User> claimed = claim(due);
+                // Rows claimed by another instance are no longer due, so the next page moves past them
+                if (claimed.isEmpty()) {
+                    continue;
+                }
+                // Stop if nothing could be recorded; the leases expire and a later run retries them
+                if (verifyBatch(claimed) == 0) {
+                    break;
+                }
+                processed += claimed.size();
+            } while (due.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Librarian verification run failed", e);
+        }
+        return processed;
+    }
+
+    /**
+     * Claim the due rows this instance will verify; rows another instance claimed first are dropped
+     */
+    private List<User> claim(List<User> due) {
+        UserService userService = userServiceProvider.getObject();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plus(claimLease);
+        List<User> claimed = new ArrayList<>(due.size());
+        for (User user : due) {
+            if (userService.claimForVerification(user.getId(), now, leaseUntil)) {
+                claimed.add(user);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Verify a batch concurrently and record each outcome
+     *
+     * @return number of outcomes recorded
+     */
+    private int verifyBatch(List<User> batch) {
+        Map<Long, ExternalApiService.VerificationOutcome> outcomes;
+        try {
+            outcomes = Flux.fromIterable(batch)
+                .flatMap(user -> externalApiService.verifyLibrarianAsync(user.getLibrarianId())
+                    .onErrorReturn(ExternalApiService.VerificationOutcome.UNAVAILABLE)
+                    .map(outcome -> Map.entry(user.getId(), outcome)), concurrency)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .block(batchTimeout);
+        } catch (RuntimeException e) {
+            log.warn("Librarian verification batch did not complete: {}", e.getMessage());
+            outcomes = Map.of();
+        }
+
+        UserService userService = userServiceProvider.getObject();
+        int recorded = 0;
+        for (User user : batch) {
+            ExternalApiService.VerificationOutcome outcome =
+                outcomes.getOrDefault(user.getId(), ExternalApiService.VerificationOutcome.UNAVAILABLE);
+            try {
+                record(userService, user, outcome);
+                recorded++;
+            } catch (RuntimeException e) {
+                log.warn("Could not record verification outcome {} for user {}: {}", outcome, user.getId(), e.getMessage());
+            }
+        }
+        return recorded;
+    }
+
+    private void record(UserService userService, User user, ExternalApiService.VerificationOutcome outcome) {
+        switch (outcome) {
+            case VERIFIED -> {
+                userService.updateVerificationStatus(user.getId(), true);
+                log.info("Librarian {} verified", user.getId());
+            }
+            case REJECTED -> {
+                userService.rescheduleVerification(user.getId(), null);
+                log.info("Librarian {} rejected by external verification", user.getId());
+            }
+            case UNAVAILABLE -> {
+                int attempts = (user.getVerificationAttempts() != null ? user.getVerificationAttempts() : 0) + 1;
+                LocalDateTime nextAttemptAt = attempts >= maxAttempts ? null : LocalDateTime.now().plus(backoff(attempts));
+                userService.rescheduleVerification(user.getId(), nextAttemptAt);
+                if (nextAttemptAt == null) {
+                    log.warn("Giving up external verification of librarian {} after {} attempts", user.getId(), attempts);
+                }
+            }
+        }
+    }
+
+    /**
+     * Delay before the next attempt: initial-backoff doubled per failed attempt, capped at max-backoff
+     */
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff;
+        for (int i = 1; i < attempts && delay.compareTo(maxBackoff) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,105 @@
+package com.library.service;
+
+import com.library.entity.UserLoanCounter;
+import com.library.repository.BorrowRecordRepository;
+import com.library.repository.UserLoanCounterRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Loan Counter Service - Maintains per-user active loan counters by book type
+ * 
+ * Counters are updated with conditional UPDATEs inside the caller's transaction, so a
+ * failed borrow rolls its increment back. A missing counter is seeded once from the
+ * user's borrow records.
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@Transactional
+public class LoanCounterService {
+    
+    private final UserLoanCounterRepository userLoanCounterRepository;
+    private final BorrowRecordRepository borrowRecordRepository;
+    private final TransactionTemplate seedTransaction;
+    
+    public LoanCounterService(UserLoanCounterRepository userLoanCounterRepository,
+                              BorrowRecordRepository borrowRecordRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.userLoanCounterRepository = userLoanCounterRepository;
+        this.borrowRecordRepository = borrowRecordRepository;
+        this.seedTransaction = new TransactionTemplate(transactionManager);
+        this.seedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    /**
+     * Reserve one loan slot for the user
+     * 
+     * @return false when the user already holds limit active loans of this book type
+     */
+    public boolean tryIncrement(Long userId, String bookType, int limit) {
+        if (userLoanCounterRepository.incrementIfBelow(userId, bookType, limit) == 1) {
+            return true;
+        }
+        
+        if (userLoanCounterRepository.existsByUserIdAndBookType(userId, bookType)) {
+            return false;
+        }
+        
+        seedCounter(userId, bookType);
+        return userLoanCounterRepository.incrementIfBelow(userId, bookType, limit) == 1;
+    }
+    
+    /**
+     * Reserve up to requested loan slots at once under a row lock on the counter
+     * 
+     * @return the number of slots granted, between 0 and requested
+     */
+    public int reserveUpTo(Long userId, String bookType, int requested, int limit) {
+        UserLoanCounter counter = userLoanCounterRepository.findForUpdate(userId, bookType).orElse(null);
+        if (counter == null) {
+            seedCounter(userId, bookType);
+            counter = userLoanCounterRepository.findForUpdate(userId, bookType)
+                .orElseThrow(() -> new IllegalStateException("Loan counter could not be created"));
+        }
+        
+        int granted = Math.max(0, Math.min(requested, limit - counter.getActiveCount()));
+        counter.setActiveCount(counter.getActiveCount() + granted);
+        return granted;
+    }
+    
+    /**
+     * Release loan slots after returns
+     */
+    public void decrement(Long userId, String bookType, int amount) {
+        if (amount > 0) {
+            userLoanCounterRepository.decrement(userId, bookType, amount);
+        }
+    }
+    
+    /**
+     * Create the counter from the user's current active borrows
+     * Runs in its own transaction; a concurrent request seeding the same counter wins harmlessly
+     */
+    private void seedCounter(Long userId, String bookType) {
+        long activeCount = borrowRecordRepository.countByUserIdAndStatusGroupByBookType(userId, "BORROWED").stream()
+            .filter(count -> bookType.equals(count.getBookType()))
+            .mapToLong(BorrowRecordRepository.BookTypeCount::getBorrowCount)
+            .sum();
+        
+        try {
+            seedTransaction.executeWithoutResult(status -> userLoanCounterRepository.saveAndFlush(
+                new UserLoanCounter(userId, bookType, (int) activeCount)));
+            log.debug("Seeded loan counter for user {} ({}) with {} active loans", userId, bookType, activeCount);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Loan counter for user {} ({}) was seeded concurrently", userId, bookType);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.library.service;
+
+import com.library.entity.RefreshToken;
+import com.library.entity.User;
+import com.library.repository.RefreshTokenRepository;
+import com.library.repository.UserRepository;
+import com.library.security.UserPrincipal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Refresh Token Service - Issues and rotates refresh tokens
+ *
+ * Refresh tokens are random 256-bit values; only their SHA-256 hash is stored. Every refresh revokes
+ * the presented token and issues a new one in the same family, so no password hashing is involved.
+ * Presenting a token that was already rotated means it was copied, so the whole family is revoked and
+ * the user has to log in again. Recently issued tokens are kept in a bounded in-memory cache so a
+ * refresh normally skips the SELECT; the conditional revoke UPDATE keeps rotation correct when several
+ * instances (or concurrent requests) see the same token.
+ *
+ * @author Library System
+ * @version 1.0.0
+ */
+@Slf4j
+@Service
+@Transactional
+public class RefreshTokenService {
+
+    static final String INVALID_MESSAGE = "Invalid or expired refresh token";
+    static final String REUSED_MESSAGE = "Refresh token reuse detected, please log in again";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final long refreshExpirationMs;
+    private final int cacheMaxSize;
+
+    // Insertion-ordered; the eldest entry is dropped once cacheMaxSize is reached
+    private final LinkedHashMap<String, CachedToken> hotTokens = new LinkedHashMap<>();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository,
+                               @Value("${jwt.refresh-expiration:1209600000}") long refreshExpirationMs,
+                               @Value("${jwt.refresh-cache-size:10000}") int cacheMaxSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.refreshExpirationMs = refreshExpirationMs;
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    /**
+     * Result of a refresh: the user as currently stored and the replacement refresh token
+     */
+    public record Rotation(UserPrincipal principal, String refreshToken) {
+    }
+
+    /**
+     * Issue a refresh token starting a new family (on login)
+     */
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchange a refresh token for a new one and reload the user
+     * The presented token stays revoked even if the refresh fails (noRollbackFor), so a rejected
+     * token can never be retried.
+     */
+    @Transactional(noRollbackFor = RuntimeException.class)
+    public Rotation rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new RuntimeException(INVALID_MESSAGE);
+        }
+
+        String tokenHash = hash(rawToken);
+        LocalDateTime now = LocalDateTime.now();
+
+        CachedToken token = takeCached(tokenHash);
+        if (token == null) {
+            token = refreshTokenRepository.findByTokenHash(tokenHash)
+                .map(stored -> new CachedToken(stored.getUserId(), stored.getFamilyId(), stored.getExpiresAt()))
+                .orElseThrow(() -> new RuntimeException(INVALID_MESSAGE));
+        }
+
+        if (refreshTokenRepository.revokeIfActive(tokenHash, now) == 0) {
+            // Already rotated or revoked: someone is replaying an old token
+            refreshTokenRepository.revokeFamily(token.familyId(), now);
+            log.warn("Refresh token reuse detected for user {}, token family revoked", token.userId());
+            throw new RuntimeException(REUSED_MESSAGE);
+        }
+        if (!token.expiresAt().isAfter(now)) {
+            throw new RuntimeException(INVALID_MESSAGE);
+        }
+
+        // Reload so role and verification changes since login are picked up
+        User user = userRepository.findById(token.userId())
+            .orElseThrow(() -> new RuntimeException(INVALID_MESSAGE));
+        UserPrincipal principal = UserPrincipal.from(user);
+        if (!principal.isEnabled()) {
+            refreshTokenRepository.revokeFamily(token.familyId(), now);
+            throw new RuntimeException(INVALID_MESSAGE);
+        }
+
+        return new Rotation(principal, issue(user.getId(), token.familyId()));
+    }
+
+    /**
+     * Revoke every refresh token of a user (e.g. after a password change)
+     */
+    public void revokeAllForUser(Long userId) {
+        refreshTokenRepository.revokeAllForUser(userId, LocalDateTime.now());
+        synchronized (hotTokens) {
+            hotTokens.values().removeIf(token -> token.userId().equals(userId));
+        }
+    }
+
+    /**
+     * Delete expired tokens
+     */
+    @Scheduled(fixedDelay = 3600000) // One hour after previous execution completes
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        String tokenHash = hash(rawToken);
+        LocalDateTime expiresAt = LocalDateTime.now().plus(refreshExpirationMs, ChronoUnit.MILLIS);
+
+        refreshTokenRepository.save(new RefreshToken(tokenHash, userId, familyId, expiresAt));
+        putCached(tokenHash, new CachedToken(userId, familyId, expiresAt));
+        return rawToken;
+    }
+
+    private CachedToken takeCached(String tokenHash) {
+        synchronized (hotTokens) {
+            return hotTokens.remove(tokenHash);
+        }
+    }
+
+    private void putCached(String tokenHash, CachedToken token) {
+        if (cacheMaxSize <= 0) {
+            return;
+        }
+        synchronized (hotTokens) {
+            hotTokens.put(tokenHash, token);
+            if (hotTokens.size() > cacheMaxSize) {
+                Map.Entry<String, CachedToken> eldest = hotTokens.entrySet().iterator().next();
+                hotTokens.remove(eldest.getKey());
+            }
+        }
+    }
+
+    /**
+     * Number of cached tokens
+     */
+    int cacheSize() {
+        synchronized (hotTokens) {
+            return hotTokens.size();
+        }
+    }
+
+    static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record CachedToken(Long userId, String familyId, LocalDateTime expiresAt) {
+    }
+}
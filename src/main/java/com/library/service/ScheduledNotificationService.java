@@ -1,17 +1,21 @@
 package com.library.service;
 
-import com.library.entity.BorrowRecord;
 import com.library.repository.BorrowRecordRepository;
+import com.library.repository.BorrowRecordRepositoryCustom.DueLoan;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 /**
  * Scheduled notification service for overdue book reminders
  * 
+ * Due records are read with one joined query through a server-side cursor and processed in
+ * chunks of chunk-size, so memory use and query count stay constant however many loans are due.
+ * 
  * @author Library System
  * @version 1.0.0
  */
@@ -21,6 +25,9 @@ public class ScheduledNotificationService {
     
     private final BorrowRecordRepository borrowRecordRepository;
     
+    @Value("${library.notification.chunk-size:500}")
+    private int chunkSize = 500;
+    
     public ScheduledNotificationService(BorrowRecordRepository borrowRecordRepository) {
         this.borrowRecordRepository = borrowRecordRepository;
     }
@@ -33,6 +40,7 @@ public class ScheduledNotificationService {
      * Format: second minute hour day month day-of-week
      */
     @Scheduled(cron = "0 * * * * *") // Every minute
+    @Transactional(readOnly = true)
     public void scheduledCheckOverdueNotifications() {
         checkOverdueNotifications();
     }
@@ -40,7 +48,9 @@ public class ScheduledNotificationService {
     /**
      * Check for books due in 5 days and send notifications
      * This method can be called manually for testing
+     * Read-only transaction so the cursor is honoured and no dirty checking happens
      */
+    @Transactional(readOnly = true)
     public void checkOverdueNotifications() {
         log.info("=== Starting overdue notification check ===");
         
@@ -49,24 +59,22 @@ public class ScheduledNotificationService {
             LocalDateTime fiveDaysFromNow = LocalDateTime.now().plusDays(5);
             LocalDateTime sixDaysFromNow = LocalDateTime.now().plusDays(6);
             
-            // Find all borrow records due in 5 days
-            List<BorrowRecord> dueRecords = borrowRecordRepository.findByStatusAndDueAtBetween(
-                "BORROWED", fiveDaysFromNow, sixDaysFromNow
-            );
+            // Stream borrow records due in 5 days, one chunk at a time
+            long[] notified = new long[1];
+            borrowRecordRepository.streamDueLoans("BORROWED", fiveDaysFromNow, sixDaysFromNow, chunkSize, chunk -> {
+                for (DueLoan loan : chunk) {
+                    sendOverdueNotification(loan);
+                }
+                notified[0] += chunk.size();
+                log.debug("Processed {} due records so far", notified[0]);
+            });
             
-            if (dueRecords.isEmpty()) {
+            if (notified[0] == 0) {
                 log.info("No books due in 5 days");
                 return;
             }
             
-            log.info("Found {} books due in 5 days", dueRecords.size());
-            
-            // Send notifications for each due record
-            for (BorrowRecord record : dueRecords) {
-                sendOverdueNotification(record);
-            }
-            
-            log.info("=== Overdue notification check completed ===");
+            log.info("=== Overdue notification check completed: {} books due in 5 days ===", notified[0]);
             
         } catch (Exception e) {
             log.error("Error during overdue notification check", e);
@@ -76,26 +84,26 @@ public class ScheduledNotificationService {
     /**
      * Send overdue notification for a specific borrow record
      * 
-     * @param record The borrow record to send notification for
+     * @param loan The due borrow record to send notification for
      */
-    private void sendOverdueNotification(BorrowRecord record) {
+    private void sendOverdueNotification(DueLoan loan) {
         try {
             // Simulate sending notification using System.out.println
             System.out.println("=== 借閱到期通知 ===");
-            System.out.println("用戶: " + record.getUser().getName() + " (" + record.getUser().getEmail() + ")");
-            System.out.println("書籍: " + record.getBookCopy().getBook().getTitle());
-            System.out.println("副本編號: " + record.getBookCopy().getCopyNumber());
-            System.out.println("借閱日期: " + record.getBorrowedAt());
-            System.out.println("到期日期: " + record.getDueAt());
-            System.out.println("圖書館: " + record.getBookCopy().getLibrary().getName());
+            System.out.println("用戶: " + loan.userName() + " (" + loan.userEmail() + ")");
+            System.out.println("書籍: " + loan.bookTitle());
+            System.out.println("副本編號: " + loan.copyNumber());
+            System.out.println("借閱日期: " + loan.borrowedAt());
+            System.out.println("到期日期: " + loan.dueAt());
+            System.out.println("圖書館: " + loan.libraryName());
             System.out.println("請在到期日前歸還書籍，避免逾期罰款。");
             System.out.println("==================");
             
             log.info("Sent overdue notification for user: {}, book: {}", 
-                record.getUser().getName(), record.getBookCopy().getBook().getTitle());
+                loan.userName(), loan.bookTitle());
                 
         } catch (Exception e) {
-            log.error("Error sending notification for record ID: {}", record.getId(), e);
+            log.error("Error sending notification for record ID: {}", loan.id(), e);
         }
     }
     
@@ -4,10 +4,13 @@ import com.library.entity.Role;
 import com.library.entity.User;
 import com.library.repository.RoleRepository;
 import com.library.repository.UserRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.library.security.PasswordHashingService;
+import com.library.security.TokenRevocationRegistry;
+import com.library.security.UserDetailsCache;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,14 +26,23 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
-    private final ExternalApiService externalApiService;
-    private final PasswordEncoder passwordEncoder;
+    private final LibrarianVerificationService librarianVerificationService;
+    private final PasswordHashingService passwordHashingService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final UserDetailsCache userDetailsCache;
+    private final RefreshTokenService refreshTokenService;
     
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, ExternalApiService externalApiService, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository,
+                       LibrarianVerificationService librarianVerificationService,
+                       PasswordHashingService passwordHashingService, TokenRevocationRegistry tokenRevocationRegistry,
+                       UserDetailsCache userDetailsCache, RefreshTokenService refreshTokenService) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
-        this.externalApiService = externalApiService;
-        this.passwordEncoder = passwordEncoder;
+        this.librarianVerificationService = librarianVerificationService;
+        this.passwordHashingService = passwordHashingService;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.userDetailsCache = userDetailsCache;
+        this.refreshTokenService = refreshTokenService;
     }
     
     /**
@@ -60,7 +72,7 @@ public class UserService {
             .orElseThrow(() -> new RuntimeException("Default role not found"));
         
         // Encrypt password
-        String encodedPassword = passwordEncoder.encode(password);
+        String encodedPassword = passwordHashingService.encode(password, userRole.getName());
         
         // Create user
         User user = new User(name, encodedPassword, email, userRole);
@@ -68,7 +80,9 @@ public class UserService {
     }
     
     /**
-     * Register a new librarian with external verification
+     * Register a new librarian
+     * The librarian is stored unverified and verified with the external system in the background
+     * (LibrarianVerificationService); they can log in once verification succeeds.
      */
     public User registerLibrarian(String name, String email, String password, String librarianId) {
         // Validate input
@@ -93,24 +107,23 @@ public class UserService {
             throw new RuntimeException("Email already exists");
         }
         
-        // Verify librarian with external system
-        boolean isVerified = externalApiService.verifyLibrarian(librarianId);
-        if (!isVerified) {
-            throw new RuntimeException("Librarian verification failed. Please check your librarian ID.");
-        }
-        
         // Get librarian role
         Role librarianRole = roleRepository.findByName("LIBRARIAN")
             .orElseThrow(() -> new RuntimeException("Librarian role not found"));
         
         // Encrypt password
-        String encodedPassword = passwordEncoder.encode(password);
+        String encodedPassword = passwordHashingService.encode(password, librarianRole.getName());
         
         // Create librarian user
         User librarian = new User(name, encodedPassword, email, librarianRole);
         librarian.setLibrarianId(librarianId);
-        librarian.setIsVerified(true);
-        return userRepository.save(librarian);
+        librarian.setIsVerified(false);
+        librarian.setNextVerificationAt(LocalDateTime.now());
+        User saved = userRepository.save(librarian);
+        
+        // Verify with the external system once the librarian is committed
+        librarianVerificationService.requestVerificationAfterCommit();
+        return saved;
     }
     
     /**
@@ -162,6 +175,36 @@ public class UserService {
     public User updateVerificationStatus(Long userId, boolean isVerified) {
         User user = findById(userId);
         user.setIsVerified(isVerified);
+        // A decision (manual or from the verification worker) ends background verification
+        user.setNextVerificationAt(null);
+        // Tokens issued before this change carry the old verification state
+        tokenRevocationRegistry.invalidateUser(userId);
+        userDetailsCache.invalidate(user.getEmail());
+        return userRepository.save(user);
+    }
+    
+    /**
+     * Claim a due librarian for one verification attempt
+     * 
+     * Pushes next_verification_at to leaseUntil in a conditional update, so only one instance
+     * verifies the row; if the claimer dies, the row becomes due again when the lease runs out.
+     * 
+     * @return true if this caller claimed the librarian
+     */
+    public boolean claimForVerification(Long userId, LocalDateTime now, LocalDateTime leaseUntil) {
+        return userRepository.claimForVerification(userId, now, leaseUntil) == 1;
+    }
+    
+    /**
+     * Record a verification attempt that did not verify the librarian
+     * 
+     * @param nextAttemptAt when to try again, or null to stop (rejected or out of attempts)
+     */
+    public User rescheduleVerification(Long userId, LocalDateTime nextAttemptAt) {
+        User user = findById(userId);
+        int attempts = user.getVerificationAttempts() != null ? user.getVerificationAttempts() : 0;
+        user.setVerificationAttempts(attempts + 1);
+        user.setNextVerificationAt(nextAttemptAt);
         return userRepository.save(user);
     }
     
@@ -170,6 +213,7 @@ public class UserService {
      */
     public User updateUser(Long userId, String name, String email, String password) {
         User user = findById(userId);
+        String previousEmail = user.getEmail();
         
         // Update name if provided
         if (name != null && !name.trim().isEmpty()) {
@@ -189,9 +233,16 @@ public class UserService {
             if (password.length() < 6) {
                 throw new RuntimeException("Password must be at least 6 characters");
             }
-            user.setPassword(passwordEncoder.encode(password));
+            String role = user.getRole() != null ? user.getRole().getName() : null;
+            user.setPassword(passwordHashingService.encode(password, role));
+            // Sessions started with the old password must log in again
+            refreshTokenService.revokeAllForUser(userId);
         }
         
+        // Tokens issued before this change carry the old email and should not be trusted on their claims
+        tokenRevocationRegistry.invalidateUser(userId);
+        userDetailsCache.invalidate(previousEmail);
+        userDetailsCache.invalidate(user.getEmail());
         return userRepository.save(user);
     }
     
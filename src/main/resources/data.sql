@@ -27,12 +27,18 @@ INSERT INTO users (name, password, email, role_id, librarian_id, is_verified) VA
 ON CONFLICT (email) DO NOTHING;
 
 -- Initialize books
-INSERT INTO books (title, author, published_year, category, book_type) VALUES
-('Java Programming Practice Guide', 'John Smith', 2023, 'Programming', '圖書'),
-('Database Systems Introduction', 'Mary Johnson', 2022, 'Computer Science', '圖書'),
-('Algorithms and Data Structures', 'David Wilson', 2021, 'Computer Science', '圖書'),
-('Software Engineering Best Practices', 'Sarah Chen', 2024, 'Software Engineering', '書籍'),
-('Artificial Intelligence and Machine Learning', 'Michael Brown', 2023, 'Artificial Intelligence', '書籍');
+-- Explicit ids: books_id_seq increments by 50 (pooled allocation), so generated ids would be 1, 51, 101, ...
+-- and the book copies below reference books 1-5
+INSERT INTO books (id, title, author, published_year, category, book_type) VALUES
+(1, 'Java Programming Practice Guide', 'John Smith', 2023, 'Programming', '圖書'),
+(2, 'Database Systems Introduction', 'Mary Johnson', 2022, 'Computer Science', '圖書'),
+(3, 'Algorithms and Data Structures', 'David Wilson', 2021, 'Computer Science', '圖書'),
+(4, 'Software Engineering Best Practices', 'Sarah Chen', 2024, 'Software Engineering', '書籍'),
+(5, 'Artificial Intelligence and Machine Learning', 'Michael Brown', 2023, 'Artificial Intelligence', '書籍')
+ON CONFLICT (id) DO NOTHING;
+
+-- Move the sequence past the seeded ids so the next pooled block starts above them
+SELECT setval('books_id_seq', (SELECT MAX(id) FROM books));
 
 -- Initialize book copies
 -- Each book has 1-3 copies distributed across different libraries
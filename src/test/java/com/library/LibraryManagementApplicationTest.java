@@ -0,0 +1,67 @@
+package com.library;
+
+import com.library.config.PooledSequenceMigration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Application Context Test
+ * Loads the full context on H2 so startup problems such as bean dependency cycles fail the build,
+ * and checks the security wiring that web slice tests do not load
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:contextdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+public class LibraryManagementApplicationTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void contextLoads() {
+        // Every singleton is created eagerly, including the EntityManagerFactory and its dependencies
+        assertNotNull(applicationContext.getBean(EntityManagerFactory.class));
+        assertNotNull(applicationContext.getBean(PooledSequenceMigration.class));
+    }
+
+    @Test
+    void testLibrarianEndpoint_Anonymous() throws Exception {
+        // The path is public, so method security rejects the call; not being logged in is a 401
+        mockMvc.perform(get("/api/v1/books/export"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void testLibrarianEndpoint_Member() throws Exception {
+        mockMvc.perform(get("/api/v1/books/export"))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").value("Access denied"));
+    }
+}
@@ -0,0 +1,16 @@
+package com.library.config;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+
+/**
+ * Method Security Test Configuration
+ * Enables @PreAuthorize checks in web slice tests, which do not load SecurityConfig
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@TestConfiguration
+@EnableMethodSecurity
+public class MethodSecurityTestConfig {
+}
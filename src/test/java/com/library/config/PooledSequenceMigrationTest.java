@@ -0,0 +1,85 @@
+package com.library.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PooledSequenceMigration
+ * Testing the pooled sequence increment migration
+ */
+@ExtendWith(MockitoExtension.class)
+public class PooledSequenceMigrationTest {
+
+    private static final String INCREMENT_QUERY =
+        "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private PooledSequenceMigration pooledSequenceMigration;
+
+    @BeforeEach
+    void setUp() {
+        pooledSequenceMigration = new PooledSequenceMigration(jdbcTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubProduct(String product) {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(product);
+    }
+
+    @Test
+    @DisplayName("Test afterPropertiesSet - BIGSERIAL sequences are moved to the allocationSize")
+    void testAfterPropertiesSet_AltersMismatchedSequence() {
+        // Arrange
+        stubProduct("PostgreSQL");
+        when(jdbcTemplate.queryForList(INCREMENT_QUERY, Long.class, "books_id_seq")).thenReturn(List.of(1L));
+        when(jdbcTemplate.queryForList(INCREMENT_QUERY, Long.class, "book_copies_id_seq")).thenReturn(List.of(50L));
+
+        // Act
+        pooledSequenceMigration.afterPropertiesSet();
+
+        // Assert - only the mismatched sequence is altered
+        verify(jdbcTemplate).execute("ALTER SEQUENCE books_id_seq INCREMENT BY 50");
+        verify(jdbcTemplate, never()).execute("ALTER SEQUENCE book_copies_id_seq INCREMENT BY 50");
+    }
+
+    @Test
+    @DisplayName("Test afterPropertiesSet - Missing sequences are left to ddl-auto")
+    void testAfterPropertiesSet_MissingSequence() {
+        // Arrange
+        stubProduct("PostgreSQL");
+        when(jdbcTemplate.queryForList(eq(INCREMENT_QUERY), eq(Long.class), anyString())).thenReturn(List.of());
+
+        // Act
+        pooledSequenceMigration.afterPropertiesSet();
+
+        // Assert
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    @DisplayName("Test afterPropertiesSet - Other databases are skipped")
+    void testAfterPropertiesSet_NotPostgreSql() {
+        // Arrange
+        stubProduct("H2");
+
+        // Act
+        pooledSequenceMigration.afterPropertiesSet();
+
+        // Assert
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(Long.class), any());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
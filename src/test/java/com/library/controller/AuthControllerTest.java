@@ -2,10 +2,14 @@ package com.library.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.library.dto.request.LoginRequest;
+import com.library.dto.request.RefreshTokenRequest;
 import com.library.dto.request.RegisterRequest;
 import com.library.entity.Role;
 import com.library.entity.User;
 import com.library.security.JwtTokenProvider;
+import com.library.security.LoginRateLimiter;
+import com.library.security.UserPrincipal;
+import com.library.service.RefreshTokenService;
 import com.library.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -49,6 +53,12 @@ class AuthControllerTest {
     @MockBean
     private PasswordEncoder passwordEncoder;
 
+    @MockBean
+    private LoginRateLimiter loginRateLimiter;
+
+    @MockBean
+    private RefreshTokenService refreshTokenService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -201,6 +211,67 @@ class AuthControllerTest {
         verify(passwordEncoder).matches(loginRequest.getPassword(), testUser.getPassword());
     }
 
+    @Test
+    void testLogin_Throttled() throws Exception {
+        // Arrange
+        doThrow(new RuntimeException("Too many login attempts. Please try again later."))
+            .when(loginRateLimiter).acquire(eq(loginRequest.getEmail()), anyString());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.success").value(false));
+
+        verifyNoInteractions(authenticationManager);
+        verify(passwordEncoder, never()).matches(anyString(), anyString());
+    }
+
+    @Test
+    void testRefresh_Success() throws Exception {
+        // Arrange
+        RefreshTokenRequest refreshRequest = new RefreshTokenRequest();
+        refreshRequest.setRefreshToken("old-refresh-token");
+        UserPrincipal principal = new UserPrincipal(1L, "john@example.com", null, "MEMBER", false);
+        when(refreshTokenService.rotate("old-refresh-token"))
+            .thenReturn(new RefreshTokenService.Rotation(principal, "new-refresh-token"));
+        when(tokenProvider.generateToken(principal)).thenReturn("new-access-token");
+        when(tokenProvider.getExpirationMs()).thenReturn(900000L);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(refreshRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.token").value("new-access-token"))
+                .andExpect(jsonPath("$.data.refreshToken").value("new-refresh-token"))
+                .andExpect(jsonPath("$.data.expiresIn").value(900))
+                .andExpect(jsonPath("$.data.roleName").value("MEMBER"));
+
+        verifyNoInteractions(authenticationManager);
+        verify(passwordEncoder, never()).matches(anyString(), anyString());
+    }
+
+    @Test
+    void testRefresh_InvalidToken() throws Exception {
+        // Arrange
+        RefreshTokenRequest refreshRequest = new RefreshTokenRequest();
+        refreshRequest.setRefreshToken("reused-refresh-token");
+        when(refreshTokenService.rotate("reused-refresh-token"))
+            .thenThrow(new RuntimeException("Refresh token reuse detected, please log in again"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(refreshRequest)))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.success").value(false));
+
+        verify(tokenProvider, never()).generateToken(any(UserPrincipal.class));
+    }
+
     @Test
     void testLogin_InvalidRequest() throws Exception {
         // Arrange - Create invalid request
@@ -1,22 +1,30 @@
 package com.library.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.config.MethodSecurityTestConfig;
 import com.library.constant.BookType;
 import com.library.dto.request.CreateBookRequest;
 import com.library.dto.request.UpdateBookRequest;
 import com.library.entity.Book;
-import com.library.entity.Role;
-import com.library.entity.User;
+import com.library.dto.response.CatalogImportResponse;
 import com.library.service.BookService;
+import com.library.service.CatalogExportService;
+import com.library.service.CatalogImportService;
 import com.library.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
 import java.util.List;
@@ -34,6 +42,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @version 1.0.0
  */
 @WebMvcTest(BookController.class)
+@Import(MethodSecurityTestConfig.class)
 class BookControllerTest {
 
     @Autowired
@@ -45,6 +54,12 @@ class BookControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private CatalogImportService catalogImportService;
+
+    @MockBean
+    private CatalogExportService catalogExportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -246,7 +261,8 @@ class BookControllerTest {
     void testGetAllBooks_Success() throws Exception {
         // Arrange
         List<Book> books = Arrays.asList(testBook);
-        when(bookService.getAllBooks(0, 10)).thenReturn(books);
+        when(bookService.getBooksPage(0, 10, false))
+            .thenReturn(new SliceImpl<>(books, PageRequest.of(0, 10), true));
 
         // Act & Assert
         mockMvc.perform(get("/api/v1/books")
@@ -254,10 +270,12 @@ class BookControllerTest {
                 .param("size", "10"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data").isArray())
-                .andExpect(jsonPath("$.data[0].id").value(1));
+                .andExpect(jsonPath("$.data.content").isArray())
+                .andExpect(jsonPath("$.data.content[0].id").value(1))
+                .andExpect(jsonPath("$.data.hasNext").value(true))
+                .andExpect(jsonPath("$.data.totalElements").doesNotExist());
 
-        verify(bookService).getAllBooks(0, 10);
+        verify(bookService).getBooksPage(0, 10, false);
     }
 
     @Test
@@ -265,14 +283,120 @@ class BookControllerTest {
     void testGetAllBooks_DefaultPagination() throws Exception {
         // Arrange
         List<Book> books = Arrays.asList(testBook);
-        when(bookService.getAllBooks(0, 20)).thenReturn(books);
+        when(bookService.getBooksPage(0, 10, false))
+            .thenReturn(new SliceImpl<>(books, PageRequest.of(0, 10), false));
 
         // Act & Assert
         mockMvc.perform(get("/api/v1/books"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data").isArray());
+                .andExpect(jsonPath("$.data.content").isArray());
+
+        verify(bookService).getBooksPage(0, 10, false);
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void testGetAllBooks_IncludeTotal() throws Exception {
+        // Arrange
+        List<Book> books = Arrays.asList(testBook);
+        when(bookService.getBooksPage(0, 10, true))
+            .thenReturn(new PageImpl<>(books, PageRequest.of(0, 10), 1));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/books")
+                .param("includeTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(1))
+                .andExpect(jsonPath("$.data.hasNext").value(false));
+
+        verify(bookService).getBooksPage(0, 10, true);
+    }
+
+    @Test
+    @WithMockUser(username = "librarian@example.com", roles = "LIBRARIAN")
+    void testImportCatalog_Success() throws Exception {
+        // Arrange
+        CatalogImportResponse summary = new CatalogImportResponse();
+        summary.setRowsRead(1);
+        summary.setRowsImported(1);
+        summary.setBooksCreated(1);
+        when(catalogImportService.importCatalog(any(), eq("csv"))).thenReturn(summary);
+
+        MockMultipartFile file = new MockMultipartFile("file", "catalog.csv", "text/csv",
+            "title,author,category\nNew Book,New Author,Fiction\n".getBytes());
+
+        // Act & Assert
+        mockMvc.perform(multipart("/api/v1/books/import").file(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.rowsImported").value(1))
+                .andExpect(jsonPath("$.data.booksCreated").value(1));
+
+        verify(catalogImportService).importCatalog(any(), eq("csv"));
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    @WithMockUser(username = "member@example.com", roles = "MEMBER")
+    void testImportCatalog_AccessDenied() throws Exception {
+        // Arrange
+        MockMultipartFile file = new MockMultipartFile("file", "catalog.jsonl", "application/x-ndjson",
+            "{\"title\":\"New Book\"}\n".getBytes());
+
+        // Act & Assert
+        mockMvc.perform(multipart("/api/v1/books/import").file(file))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(catalogImportService);
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void testExportCatalog_Ndjson() throws Exception {
+        // Arrange
+        when(catalogExportService.resolveFormat("ndjson")).thenReturn("ndjson");
+        doAnswer(invocation -> {
+            java.io.OutputStream output = invocation.getArgument(0);
+            output.write("{\"id\":1,\"title\":\"Test Book\"}\n".getBytes());
+            return null;
+        }).when(catalogExportService).export(any(), eq("ndjson"));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/v1/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"catalog.ndjson\""))
+                .andExpect(content().string("{\"id\":1,\"title\":\"Test Book\"}\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void testExportCatalog_UnsupportedFormat() throws Exception {
+        // Arrange
+        when(catalogExportService.resolveFormat("xml"))
+            .thenThrow(new RuntimeException("Unsupported export format: xml. Use csv or ndjson"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/books/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verify(catalogExportService, never()).export(any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "MEMBER")
+    void testExportCatalog_AccessDenied() throws Exception {
+        // Act & Assert - The full-catalog export is for librarians only
+        mockMvc.perform(get("/api/v1/books/export"))
+                .andExpect(status().isForbidden());
 
-        verify(bookService).getAllBooks(0, 20);
+        verifyNoInteractions(catalogExportService);
     }
 }
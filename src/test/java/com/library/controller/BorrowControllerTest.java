@@ -1,7 +1,12 @@
 package com.library.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.config.MethodSecurityTestConfig;
+import com.library.dto.request.BatchBorrowRequest;
+import com.library.dto.request.BatchReturnRequest;
 import com.library.dto.request.BorrowRequest;
+import com.library.dto.response.BatchBorrowResponse;
+import com.library.dto.response.BatchReturnResponse;
 import com.library.entity.BorrowRecord;
 import com.library.entity.BookCopy;
 import com.library.entity.Book;
@@ -14,6 +19,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -24,6 +30,7 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -35,6 +42,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @version 1.0.0
  */
 @WebMvcTest(BorrowController.class)
+@Import(MethodSecurityTestConfig.class)
 class BorrowControllerTest {
 
     @Autowired
@@ -124,6 +132,99 @@ class BorrowControllerTest {
         verify(borrowService, never()).borrowBook(anyLong(), anyLong());
     }
 
+    @Test
+    @WithMockUser(username = "john@example.com", roles = "MEMBER")
+    void testBorrowBooks_Batch() throws Exception {
+        // Arrange
+        BatchBorrowRequest batchRequest = new BatchBorrowRequest();
+        batchRequest.setBookCopyIds(List.of(1L, 2L));
+        BatchBorrowResponse batchResponse = new BatchBorrowResponse(List.of(
+            new BatchBorrowResponse.ItemResult(1L, true, 10L, LocalDateTime.now().plusDays(30), "Book borrowed successfully"),
+            new BatchBorrowResponse.ItemResult(2L, false, null, null, "Book is not available")
+        ), 1, 1);
+        when(userService.findByEmail("john@example.com")).thenReturn(java.util.Optional.of(testUser));
+        when(borrowService.borrowBooks(1L, List.of(1L, 2L))).thenReturn(batchResponse);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/borrows/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.borrowedCount").value(1))
+                .andExpect(jsonPath("$.data.results[0].borrowRecordId").value(10))
+                .andExpect(jsonPath("$.data.results[1].success").value(false));
+
+        verify(borrowService).borrowBooks(1L, List.of(1L, 2L));
+    }
+
+    @Test
+    @WithMockUser(username = "john@example.com", roles = "MEMBER")
+    void testBorrowBooks_EmptyBatch() throws Exception {
+        // Arrange
+        BatchBorrowRequest batchRequest = new BatchBorrowRequest();
+        batchRequest.setBookCopyIds(List.of());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/borrows/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isBadRequest());
+
+        verify(borrowService, never()).borrowBooks(anyLong(), anyList());
+    }
+
+    @Test
+    @WithMockUser(username = "librarian@example.com", roles = "LIBRARIAN")
+    void testReturnBooks_Batch() throws Exception {
+        // Arrange
+        BatchReturnRequest batchRequest = new BatchReturnRequest();
+        batchRequest.setBookCopyIds(List.of(1L));
+        BatchReturnResponse batchResponse = new BatchReturnResponse(List.of(
+            new BatchReturnResponse.ItemResult(10L, 1L, true, "Book returned successfully")
+        ), 1, 0);
+        when(borrowService.returnBooks(null, List.of(1L))).thenReturn(batchResponse);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/borrows/batch/return")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.returnedCount").value(1))
+                .andExpect(jsonPath("$.data.results[0].borrowRecordId").value(10));
+
+        verify(borrowService).returnBooks(null, List.of(1L));
+    }
+
+    @Test
+    @WithMockUser(username = "john@example.com", roles = "MEMBER")
+    void testReturnBooks_AccessDenied() throws Exception {
+        // Arrange
+        BatchReturnRequest batchRequest = new BatchReturnRequest();
+        batchRequest.setBookCopyIds(List.of(1L));
+
+        // Act & Assert - Members cannot return other users' books in bulk
+        mockMvc.perform(post("/api/v1/borrows/batch/return")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(borrowService);
+    }
+
+    @Test
+    @WithMockUser(username = "librarian@example.com", roles = "LIBRARIAN")
+    void testReturnBooks_EmptyBatch() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/borrows/batch/return")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        verify(borrowService, never()).returnBooks(any(), any());
+    }
+
     @Test
     @WithMockUser(username = "john@example.com", roles = "MEMBER")
     void testGetUserBorrows_Success() throws Exception {
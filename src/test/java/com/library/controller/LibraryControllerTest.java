@@ -1,6 +1,7 @@
 package com.library.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.config.MethodSecurityTestConfig;
 import com.library.dto.request.CreateLibraryRequest;
 import com.library.dto.request.UpdateLibraryRequest;
 import com.library.entity.Library;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -33,6 +35,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @version 1.0.0
  */
 @WebMvcTest(LibraryController.class)
+@Import(MethodSecurityTestConfig.class)
 class LibraryControllerTest {
 
     @Autowired
@@ -0,0 +1,67 @@
+package com.library.exception;
+
+import com.library.dto.ApiResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GlobalExceptionHandler
+ * Testing how method security failures are reported
+ */
+public class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler globalExceptionHandler = new GlobalExceptionHandler();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Test access denied - Authenticated caller gets a generic 403")
+    void testHandleAccessDenied_Authenticated() {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            "member@example.com", null, List.of(new SimpleGrantedAuthority("ROLE_MEMBER"))));
+
+        // Act
+        ResponseEntity<ApiResponse<?>> response = globalExceptionHandler.handleAccessDenied(new AccessDeniedException("Access Denied"));
+
+        // Assert
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertEquals("Access denied", response.getBody().getMessage());
+    }
+
+    @Test
+    @DisplayName("Test access denied - Anonymous caller is left to the authentication entry point")
+    void testHandleAccessDenied_Anonymous() {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken(
+            "key", "anonymousUser", List.of(new SimpleGrantedAuthority("ROLE_ANONYMOUS"))));
+        AccessDeniedException exception = new AccessDeniedException("Access Denied");
+
+        // Act & Assert - rethrown so ExceptionTranslationFilter answers 401
+        assertSame(exception, assertThrows(AccessDeniedException.class,
+            () -> globalExceptionHandler.handleAccessDenied(exception)));
+    }
+
+    @Test
+    @DisplayName("Test access denied - No authentication at all is treated as anonymous")
+    void testHandleAccessDenied_NoAuthentication() {
+        // Act & Assert
+        assertThrows(AccessDeniedException.class,
+            () -> globalExceptionHandler.handleAccessDenied(new AccessDeniedException("Access Denied")));
+    }
+}
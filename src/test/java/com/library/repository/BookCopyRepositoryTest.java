@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -287,4 +288,130 @@ public class BookCopyRepositoryTest {
         // Assert
         assertEquals(1, count);
     }
+
+    @Test
+    void testCountCopiesByBookAndLibrary() {
+        // Arrange
+        BookCopy borrowedCopy = new BookCopy();
+        borrowedCopy.setBook(testBook);
+        borrowedCopy.setLibrary(testLibrary);
+        borrowedCopy.setCopyNumber(2);
+        borrowedCopy.setStatus("BORROWED");
+        entityManager.persistAndFlush(borrowedCopy);
+
+        // Act
+        List<BookCopyRepository.LibraryCopyCount> counts =
+            bookCopyRepository.countCopiesByBookAndLibrary(List.of(testBook.getId()), null);
+
+        // Assert
+        assertEquals(1, counts.size());
+        assertEquals(testBook.getId(), counts.get(0).getBookId());
+        assertEquals(testLibrary.getId(), counts.get(0).getLibraryId());
+        assertEquals("Test Library", counts.get(0).getLibraryName());
+        assertEquals(2L, counts.get(0).getTotalCopies());
+        assertEquals(1L, counts.get(0).getAvailableCopies());
+    }
+
+    @Test
+    void testCountCopiesByBookAndLibrary_OtherLibrary() {
+        // Act
+        List<BookCopyRepository.LibraryCopyCount> counts =
+            bookCopyRepository.countCopiesByBookAndLibrary(List.of(testBook.getId()), testLibrary.getId() + 1);
+
+        // Assert
+        assertTrue(counts.isEmpty());
+    }
+
+    @Test
+    void testCompareAndSetStatus() {
+        // Act
+        int first = bookCopyRepository.compareAndSetStatus(testBookCopy.getId(), "AVAILABLE", "BORROWED", LocalDateTime.now());
+        int second = bookCopyRepository.compareAndSetStatus(testBookCopy.getId(), "AVAILABLE", "BORROWED", LocalDateTime.now());
+        entityManager.clear();
+
+        // Assert
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertEquals("BORROWED", entityManager.find(BookCopy.class, testBookCopy.getId()).getStatus());
+    }
+
+    @Test
+    void testCompareAndSetStatus_LoadedCopyNotStale() {
+        // Arrange - The copy and its library are already in the persistence context
+        BookCopy loaded = bookCopyRepository.findWithBookAndLibraryById(testBookCopy.getId()).orElseThrow();
+        assertEquals("AVAILABLE", loaded.getStatus());
+
+        // Act
+        int updated = bookCopyRepository.compareAndSetStatus(testBookCopy.getId(), "AVAILABLE", "BORROWED", LocalDateTime.now());
+        entityManager.refresh(loaded);
+
+        // Assert - The rest of the persistence context stays managed and the refreshed copy sees the claim
+        assertEquals(1, updated);
+        assertTrue(entityManager.getEntityManager().contains(loaded));
+        assertTrue(entityManager.getEntityManager().contains(loaded.getLibrary()));
+        assertEquals("BORROWED", loaded.getStatus());
+        assertEquals("Test Library", loaded.getLibrary().getName());
+    }
+
+    @Test
+    void testCompareAndSetStatuses_Batch() {
+        // Act - The same copy twice: only the first update can succeed
+        int[] updated = bookCopyRepository.compareAndSetStatuses(
+            List.of(testBookCopy.getId(), testBookCopy.getId(), testBookCopy.getId() + 100),
+            "AVAILABLE", "BORROWED", LocalDateTime.now());
+        entityManager.clear();
+
+        // Assert
+        assertArrayEquals(new int[] {1, 0, 0}, updated);
+        assertEquals("BORROWED", entityManager.find(BookCopy.class, testBookCopy.getId()).getStatus());
+    }
+
+    @Test
+    void testFindAllWithBookByIdIn() {
+        // Act
+        List<BookCopy> copies = bookCopyRepository.findAllWithBookByIdIn(List.of(testBookCopy.getId()));
+
+        // Assert
+        assertEquals(1, copies.size());
+        assertEquals("Test Book", copies.get(0).getBook().getTitle());
+    }
+
+    @Test
+    void testMarkAvailable() {
+        // Arrange
+        testBookCopy.setStatus("BORROWED");
+        entityManager.persistAndFlush(testBookCopy);
+
+        // Act
+        int updated = bookCopyRepository.markAvailable(List.of(testBookCopy.getId()), LocalDateTime.now());
+        entityManager.clear();
+
+        // Assert
+        assertEquals(1, updated);
+        assertEquals("AVAILABLE", entityManager.find(BookCopy.class, testBookCopy.getId()).getStatus());
+    }
+
+    @Test
+    void testFindMaxCopyNumber() {
+        // Arrange
+        BookCopy thirdCopy = new BookCopy();
+        thirdCopy.setBook(testBook);
+        thirdCopy.setLibrary(testLibrary);
+        thirdCopy.setCopyNumber(3);
+        thirdCopy.setStatus("AVAILABLE");
+        entityManager.persistAndFlush(thirdCopy);
+
+        // Act & Assert
+        assertEquals(3, bookCopyRepository.findMaxCopyNumber(testBook.getId(), testLibrary.getId()));
+        assertEquals(0, bookCopyRepository.findMaxCopyNumber(testBook.getId(), testLibrary.getId() + 1));
+    }
+
+    @Test
+    void testExistsByBookIdAndLibraryIdAndCopyNumberAndIdNot() {
+        // Act & Assert
+        assertTrue(bookCopyRepository.existsByBookIdAndLibraryIdAndCopyNumberAndIdNot(
+            testBook.getId(), testLibrary.getId(), 1, testBookCopy.getId() + 1));
+        assertFalse(bookCopyRepository.existsByBookIdAndLibraryIdAndCopyNumberAndIdNot(
+            testBook.getId(), testLibrary.getId(), 1, testBookCopy.getId()));
+    }
 }
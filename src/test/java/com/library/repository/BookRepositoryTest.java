@@ -1,13 +1,20 @@
 package com.library.repository;
 
+import com.library.dto.response.BookWithCopySummaryResponse;
 import com.library.entity.Book;
+import com.library.entity.BookCopy;
+import com.library.entity.Library;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -246,4 +253,67 @@ public class BookRepositoryTest {
         assertTrue(allBooks.stream().anyMatch(book -> "Python for Beginners".equals(book.getTitle())));
         assertTrue(allBooks.stream().anyMatch(book -> "The Great Gatsby".equals(book.getTitle())));
     }
+
+    @Test
+    void testFindAllBy_Paged() {
+        // Act
+        Slice<Book> firstPage = bookRepository.findAllBy(PageRequest.of(0, 2, Sort.by("id")));
+        Slice<Book> secondPage = bookRepository.findAllBy(PageRequest.of(1, 2, Sort.by("id")));
+
+        // Assert
+        assertEquals(2, firstPage.getContent().size());
+        assertTrue(firstPage.hasNext());
+        assertEquals(testBook1.getId(), firstPage.getContent().get(0).getId());
+        assertEquals(1, secondPage.getContent().size());
+        assertFalse(secondPage.hasNext());
+        assertEquals(testBook3.getId(), secondPage.getContent().get(0).getId());
+    }
+
+    @Test
+    void testSearchBooksAfter_SeeksById() {
+        // Act
+        List<Book> firstPage = bookRepository.searchBooksAfter(null, null, null, 0L, 2);
+        List<Book> secondPage = bookRepository.searchBooksAfter(null, null, null, firstPage.get(1).getId(), 2);
+        List<Book> filtered = bookRepository.searchBooksAfter("Python", null, null, 0L, 10);
+
+        // Assert
+        assertEquals(2, firstPage.size());
+        assertEquals(testBook1.getId(), firstPage.get(0).getId());
+        assertEquals(testBook2.getId(), firstPage.get(1).getId());
+        assertEquals(1, secondPage.size());
+        assertEquals(testBook3.getId(), secondPage.get(0).getId());
+        assertEquals(1, filtered.size());
+        assertEquals("Python for Beginners", filtered.get(0).getTitle());
+    }
+
+    @Test
+    void testStreamBooksWithCopySummary_GroupsCopiesByBook() {
+        // Arrange
+        Library library = new Library();
+        library.setName("Central Library");
+        library.setAddress("Test Address");
+        library.setPhone("123-456-7890");
+        library = entityManager.persistAndFlush(library);
+
+        BookCopy available = new BookCopy(testBook1, library, 1);
+        BookCopy borrowed = new BookCopy(testBook1, library, 2);
+        borrowed.setStatus("BORROWED");
+        entityManager.persist(available);
+        entityManager.persist(borrowed);
+        entityManager.flush();
+
+        // Act
+        List<BookWithCopySummaryResponse> books = new ArrayList<>();
+        bookRepository.streamBooksWithCopySummary(books::add);
+
+        // Assert
+        assertEquals(3, books.size());
+        assertEquals(testBook1.getId(), books.get(0).getId());
+        assertEquals(2, books.get(0).getCopySummary().getTotalCopies());
+        assertEquals(1, books.get(0).getCopySummary().getAvailableCopies());
+        assertEquals(1, books.get(0).getCopySummary().getLibraryCopies().size());
+        assertEquals("Central Library", books.get(0).getCopySummary().getLibraryCopies().get(0).getLibraryName());
+        assertEquals(0, books.get(1).getCopySummary().getTotalCopies());
+        assertTrue(books.get(1).getCopySummary().getLibraryCopies().isEmpty());
+    }
 }
@@ -14,6 +14,8 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -250,6 +252,27 @@ public class BorrowRecordRepositoryTest {
         assertTrue(overdueRecords.isEmpty());
     }
 
+    @Test
+    void testExistsByUserIdAndStatusAndDueAtBefore() {
+        // Act & Assert - testBorrowRecord is due in 20 days
+        assertFalse(borrowRecordRepository.existsByUserIdAndStatusAndDueAtBefore(
+            testUser.getId(), "BORROWED", LocalDateTime.now()));
+        assertTrue(borrowRecordRepository.existsByUserIdAndStatusAndDueAtBefore(
+            testUser.getId(), "BORROWED", LocalDateTime.now().plusDays(21)));
+    }
+
+    @Test
+    void testFindEarliestDueAt() {
+        // Act
+        LocalDateTime earliestDue = borrowRecordRepository.findEarliestDueAt(testUser.getId(), "BORROWED");
+        LocalDateTime noneReturned = borrowRecordRepository.findEarliestDueAt(testUser.getId(), "RETURNED");
+
+        // Assert
+        assertNotNull(earliestDue);
+        assertEquals(testBorrowRecord.getDueAt().truncatedTo(ChronoUnit.MILLIS), earliestDue.truncatedTo(ChronoUnit.MILLIS));
+        assertNull(noneReturned);
+    }
+
     @Test
     void testSave_NewBorrowRecord() {
         // Arrange
@@ -341,4 +364,159 @@ public class BorrowRecordRepositoryTest {
         // Assert
         assertEquals(1, count);
     }
+
+    @Test
+    void testCountByUserIdAndStatusGroupByBookType() {
+        // Arrange - Add an active modern-book borrow
+        Book modernBook = new Book();
+        modernBook.setTitle("Modern Book");
+        modernBook.setAuthor("Modern Author");
+        modernBook.setPublishedYear(2024);
+        modernBook.setCategory("Technology");
+        modernBook.setBookType(BookType.MODERN);
+        modernBook = entityManager.persistAndFlush(modernBook);
+
+        BookCopy modernCopy = new BookCopy();
+        modernCopy.setBook(modernBook);
+        modernCopy.setLibrary(testLibrary);
+        modernCopy.setCopyNumber(1);
+        modernCopy.setStatus("BORROWED");
+        modernCopy = entityManager.persistAndFlush(modernCopy);
+
+        BorrowRecord modernRecord = new BorrowRecord();
+        modernRecord.setUser(testUser);
+        modernRecord.setBookCopy(modernCopy);
+        modernRecord.setBorrowedAt(LocalDateTime.now());
+        modernRecord.setDueAt(LocalDateTime.now().plusDays(30));
+        modernRecord.setStatus("BORROWED");
+        entityManager.persistAndFlush(modernRecord);
+
+        // Act
+        List<BorrowRecordRepository.BookTypeCount> counts =
+            borrowRecordRepository.countByUserIdAndStatusGroupByBookType(testUser.getId(), "BORROWED");
+
+        // Assert
+        assertEquals(2, counts.size());
+        for (BorrowRecordRepository.BookTypeCount count : counts) {
+            assertEquals(1L, count.getBorrowCount());
+        }
+        assertTrue(counts.stream().anyMatch(count -> BookType.MODERN.equals(count.getBookType())));
+        assertTrue(counts.stream().anyMatch(count -> BookType.TRADITIONAL.equals(count.getBookType())));
+    }
+
+    @Test
+    void testInsertBorrowRecords_Batch() {
+        // Arrange
+        BookCopy secondCopy = new BookCopy();
+        secondCopy.setBook(testBook);
+        secondCopy.setLibrary(testLibrary);
+        secondCopy.setCopyNumber(2);
+        secondCopy.setStatus("BORROWED");
+        secondCopy = entityManager.persistAndFlush(secondCopy);
+        LocalDateTime now = LocalDateTime.now();
+
+        // Act
+        List<Long> ids = borrowRecordRepository.insertBorrowRecords(
+            testUser.getId(), List.of(secondCopy.getId()), now, now.plusDays(30));
+        entityManager.clear();
+
+        // Assert
+        assertEquals(1, ids.size());
+        BorrowRecord inserted = borrowRecordRepository.findById(ids.get(0)).orElseThrow();
+        assertEquals("BORROWED", inserted.getStatus());
+        assertEquals(secondCopy.getId(), inserted.getBookCopy().getId());
+        assertEquals(testUser.getId(), inserted.getUser().getId());
+    }
+
+    @Test
+    void testMarkReturned_Batch() {
+        // Act - The same record twice: only the first update can succeed
+        int[] updated = borrowRecordRepository.markReturned(
+            List.of(testBorrowRecord.getId(), testBorrowRecord.getId()), LocalDateTime.now());
+        entityManager.clear();
+
+        // Assert
+        assertArrayEquals(new int[] {1, 0}, updated);
+        BorrowRecord returned = borrowRecordRepository.findById(testBorrowRecord.getId()).orElseThrow();
+        assertEquals("RETURNED", returned.getStatus());
+        assertNotNull(returned.getReturnedAt());
+    }
+
+    @Test
+    void testFindReturnCandidatesByBookCopyIdIn() {
+        // Act
+        List<BorrowRecordRepository.ReturnCandidate> candidates =
+            borrowRecordRepository.findReturnCandidatesByBookCopyIdIn(List.of(testBookCopy.getId()), "BORROWED");
+
+        // Assert
+        assertEquals(1, candidates.size());
+        assertEquals(testBorrowRecord.getId(), candidates.get(0).getId());
+        assertEquals(testUser.getId(), candidates.get(0).getUserId());
+        assertEquals(BookType.TRADITIONAL, candidates.get(0).getBookType());
+    }
+
+    @Test
+    void testMarkReturnedIfBorrowed() {
+        // Act - Only the first of two returns of the same record succeeds
+        int first = borrowRecordRepository.markReturnedIfBorrowed(testBorrowRecord.getId(), LocalDateTime.now());
+        int second = borrowRecordRepository.markReturnedIfBorrowed(testBorrowRecord.getId(), LocalDateTime.now());
+
+        // Assert - The record stays managed; refreshing it picks up the update
+        assertEquals(1, first);
+        assertEquals(0, second);
+        BorrowRecord returned = borrowRecordRepository.findWithDetailsById(testBorrowRecord.getId()).orElseThrow();
+        entityManager.refresh(returned);
+        assertTrue(entityManager.getEntityManager().contains(returned.getUser()));
+        assertEquals("RETURNED", returned.getStatus());
+        assertNotNull(returned.getReturnedAt());
+        assertEquals("Test Library", returned.getBookCopy().getLibrary().getName());
+    }
+
+    @Test
+    void testStreamDueLoans_Chunks() {
+        // Arrange - A second due record so a chunk size of 1 yields two chunks
+        BookCopy secondCopy = new BookCopy();
+        secondCopy.setBook(testBook);
+        secondCopy.setLibrary(testLibrary);
+        secondCopy.setCopyNumber(2);
+        secondCopy.setStatus("BORROWED");
+        secondCopy = entityManager.persistAndFlush(secondCopy);
+
+        BorrowRecord secondRecord = new BorrowRecord();
+        secondRecord.setUser(testUser);
+        secondRecord.setBookCopy(secondCopy);
+        secondRecord.setBorrowedAt(LocalDateTime.now().minusDays(5));
+        secondRecord.setDueAt(LocalDateTime.now().plusDays(25));
+        secondRecord.setStatus("BORROWED");
+        entityManager.persistAndFlush(secondRecord);
+        List<List<BorrowRecordRepositoryCustom.DueLoan>> chunks = new ArrayList<>();
+
+        // Act
+        borrowRecordRepository.streamDueLoans("BORROWED", LocalDateTime.now(), LocalDateTime.now().plusDays(30),
+            1, chunks::add);
+
+        // Assert
+        assertEquals(2, chunks.size());
+        BorrowRecordRepositoryCustom.DueLoan first = chunks.get(0).get(0);
+        assertEquals(testBorrowRecord.getId(), first.id());
+        assertEquals("John Doe", first.userName());
+        assertEquals("john@example.com", first.userEmail());
+        assertEquals("Test Book", first.bookTitle());
+        assertEquals(1, first.copyNumber());
+        assertEquals("Test Library", first.libraryName());
+        assertEquals(2, chunks.get(1).get(0).copyNumber());
+    }
+
+    @Test
+    void testStreamDueLoans_NoRecords() {
+        // Arrange
+        List<List<BorrowRecordRepositoryCustom.DueLoan>> chunks = new ArrayList<>();
+
+        // Act
+        borrowRecordRepository.streamDueLoans("BORROWED", LocalDateTime.now().plusDays(30),
+            LocalDateTime.now().plusDays(60), 100, chunks::add);
+
+        // Assert
+        assertTrue(chunks.isEmpty());
+    }
 }
@@ -0,0 +1,84 @@
+package com.library.repository;
+
+import com.library.entity.RefreshToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RefreshTokenRepository Test
+ * Tests conditional revocation and cleanup for RefreshToken entity
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@DataJpaTest
+public class RefreshTokenRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshToken first;
+    private RefreshToken second;
+
+    @BeforeEach
+    void setUp() {
+        // Setup test data
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(1);
+        first = entityManager.persistAndFlush(new RefreshToken("hash-1", 1L, "family-1", expiresAt));
+        second = entityManager.persistAndFlush(new RefreshToken("hash-2", 1L, "family-1", expiresAt));
+    }
+
+    @Test
+    void testRevokeIfActive_OnlyOnce() {
+        // Act
+        int firstAttempt = refreshTokenRepository.revokeIfActive("hash-1", LocalDateTime.now());
+        int secondAttempt = refreshTokenRepository.revokeIfActive("hash-1", LocalDateTime.now());
+        int unknown = refreshTokenRepository.revokeIfActive("missing", LocalDateTime.now());
+        entityManager.clear();
+
+        // Assert
+        assertEquals(1, firstAttempt);
+        assertEquals(0, secondAttempt);
+        assertEquals(0, unknown);
+        assertNotNull(entityManager.find(RefreshToken.class, first.getId()).getRevokedAt());
+        assertNull(entityManager.find(RefreshToken.class, second.getId()).getRevokedAt());
+    }
+
+    @Test
+    void testRevokeFamily() {
+        // Arrange
+        refreshTokenRepository.revokeIfActive("hash-1", LocalDateTime.now());
+
+        // Act
+        int revoked = refreshTokenRepository.revokeFamily("family-1", LocalDateTime.now());
+        entityManager.clear();
+
+        // Assert
+        assertEquals(1, revoked);
+        assertNotNull(entityManager.find(RefreshToken.class, second.getId()).getRevokedAt());
+    }
+
+    @Test
+    void testDeleteExpired() {
+        // Arrange
+        entityManager.persistAndFlush(new RefreshToken("hash-old", 2L, "family-2", LocalDateTime.now().minusDays(1)));
+
+        // Act
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+
+        // Assert
+        assertEquals(1, deleted);
+        assertTrue(refreshTokenRepository.findByTokenHash("hash-old").isEmpty());
+        assertTrue(refreshTokenRepository.findByTokenHash("hash-1").isPresent());
+    }
+}
@@ -0,0 +1,73 @@
+package com.library.repository;
+
+import com.library.constant.BookType;
+import com.library.entity.UserLoanCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserLoanCounterRepository Test
+ * Tests conditional counter updates for UserLoanCounter entity
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@DataJpaTest
+public class UserLoanCounterRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserLoanCounterRepository userLoanCounterRepository;
+
+    private UserLoanCounter testCounter;
+
+    @BeforeEach
+    void setUp() {
+        // Setup test data
+        testCounter = entityManager.persistAndFlush(new UserLoanCounter(1L, BookType.TRADITIONAL, 4));
+    }
+
+    @Test
+    void testIncrementIfBelow_StopsAtLimit() {
+        // Act
+        int first = userLoanCounterRepository.incrementIfBelow(1L, BookType.TRADITIONAL, 5);
+        int second = userLoanCounterRepository.incrementIfBelow(1L, BookType.TRADITIONAL, 5);
+        entityManager.clear();
+
+        // Assert
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertEquals(5, entityManager.find(UserLoanCounter.class, testCounter.getId()).getActiveCount());
+    }
+
+    @Test
+    void testIncrementIfBelow_MissingCounter() {
+        // Act
+        int updated = userLoanCounterRepository.incrementIfBelow(1L, BookType.MODERN, 10);
+
+        // Assert
+        assertEquals(0, updated);
+        assertFalse(userLoanCounterRepository.existsByUserIdAndBookType(1L, BookType.MODERN));
+    }
+
+    @Test
+    void testDecrement_NeverBelowZero() {
+        // Act
+        userLoanCounterRepository.decrement(1L, BookType.TRADITIONAL, 3);
+        entityManager.clear();
+        assertEquals(1, entityManager.find(UserLoanCounter.class, testCounter.getId()).getActiveCount());
+
+        userLoanCounterRepository.decrement(1L, BookType.TRADITIONAL, 3);
+        entityManager.clear();
+
+        // Assert
+        assertEquals(0, entityManager.find(UserLoanCounter.class, testCounter.getId()).getActiveCount());
+    }
+}
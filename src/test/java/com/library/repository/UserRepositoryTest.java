@@ -6,8 +6,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -226,4 +228,30 @@ public class UserRepositoryTest extends BaseRepositoryTest {
         Optional<User> deletedUser = userRepository.findById(userId);
         assertFalse(deletedUser.isPresent());
     }
+
+    @Test
+    void testClaimForVerification() {
+        // Arrange - an unverified librarian that is due
+        User pending = new User();
+        pending.setName("Pending Librarian");
+        pending.setEmail("pending@library.com");
+        pending.setPassword("encodedPassword3");
+        pending.setRole(librarianRole);
+        pending.setIsVerified(false);
+        pending.setLibrarianId("LIB002");
+        pending.setNextVerificationAt(LocalDateTime.now().minusMinutes(1));
+        pending = entityManager.persistAndFlush(pending);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusMinutes(4);
+
+        // Act - two instances race for the same row
+        int first = userRepository.claimForVerification(pending.getId(), now, leaseUntil);
+        int second = userRepository.claimForVerification(pending.getId(), now, leaseUntil);
+        entityManager.clear();
+
+        // Assert - only the first claim wins and the row is no longer due
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertTrue(userRepository.findDueForVerification(now, PageRequest.of(0, 10)).isEmpty());
+    }
 }
@@ -0,0 +1,92 @@
+package com.library.security;
+
+import com.library.entity.Role;
+import com.library.entity.User;
+import com.library.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CurrentUserArgumentResolver
+ * Testing principal reuse and the one-time lookup for other principal types
+ */
+@ExtendWith(MockitoExtension.class)
+public class CurrentUserArgumentResolverTest {
+
+    @Mock
+    private ObjectProvider<UserService> userServiceProvider;
+
+    @Mock
+    private UserService userService;
+
+    private CurrentUserArgumentResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new CurrentUserArgumentResolver(userServiceProvider);
+        SecurityContextHolder.clearContext();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Test resolve - UserPrincipal from the filter is returned without a query")
+    void testResolve_UserPrincipal() {
+        // Arrange
+        UserPrincipal principal = new UserPrincipal(1L, "john@example.com", null, "MEMBER", false);
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        // Act & Assert
+        assertSame(principal, resolver.resolveArgument(null, null, null, null));
+        verifyNoInteractions(userServiceProvider);
+    }
+
+    @Test
+    @DisplayName("Test resolve - Other principal is loaded once and stored in the SecurityContext")
+    void testResolve_LoadsOnce() {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            "john@example.com", null, List.of(new SimpleGrantedAuthority("ROLE_MEMBER"))));
+        User user = new User("John Doe", "hash", "john@example.com", new Role(1L, "MEMBER", null, null));
+        user.setId(1L);
+        when(userServiceProvider.getObject()).thenReturn(userService);
+        when(userService.findByEmail("john@example.com")).thenReturn(Optional.of(user));
+
+        // Act
+        UserPrincipal first = (UserPrincipal) resolver.resolveArgument(null, null, null, null);
+        UserPrincipal second = (UserPrincipal) resolver.resolveArgument(null, null, null, null);
+
+        // Assert
+        assertEquals(1L, first.getId());
+        assertSame(first, second);
+        verify(userService, times(1)).findByEmail("john@example.com");
+    }
+
+    @Test
+    @DisplayName("Test resolve - No authentication")
+    void testResolve_NotAuthenticated() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> resolver.resolveArgument(null, null, null, null));
+        assertEquals("User not found", exception.getMessage());
+    }
+}
@@ -0,0 +1,115 @@
+package com.library.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for JwtAuthenticationFilter
+ * Testing stateless principal construction and the database fallback
+ */
+@ExtendWith(MockitoExtension.class)
+public class JwtAuthenticationFilterTest {
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private JwtTokenProvider tokenProvider;
+    private TokenRevocationRegistry tokenRevocationRegistry;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", "testSecretKeyThatIsAtLeastThirtyTwoBytesLong");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationMs", 60000L);
+        tokenProvider.init();
+
+        tokenRevocationRegistry = new TokenRevocationRegistry(60000L);
+        filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, tokenRevocationRegistry);
+        ReflectionTestUtils.setField(filter, "statelessPrincipal", true);
+        SecurityContextHolder.clearContext();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Test
+    @DisplayName("Test filter - Principal built from claims without loading the user")
+    void testStatelessPrincipal() throws Exception {
+        // Arrange
+        String token = tokenProvider.generateToken(new UserPrincipal(1L, "john@example.com", "hash", "MEMBER", false));
+
+        // Act
+        Authentication authentication = authenticate(token);
+
+        // Assert
+        assertNotNull(authentication);
+        assertEquals(1L, ((UserPrincipal) authentication.getPrincipal()).getId());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    @DisplayName("Test filter - Subject-only token falls back to the database")
+    void testLegacyTokenFallsBack() throws Exception {
+        // Arrange
+        String token = tokenProvider.generateTokenFromUsername("john@example.com");
+        when(userDetailsService.loadUserByUsername("john@example.com"))
+            .thenReturn(new UserPrincipal(1L, "john@example.com", "hash", "MEMBER", false));
+
+        // Act
+        Authentication authentication = authenticate(token);
+
+        // Assert
+        assertNotNull(authentication);
+        verify(userDetailsService).loadUserByUsername("john@example.com");
+    }
+
+    @Test
+    @DisplayName("Test filter - Stale claims are re-checked and a disabled user is not authenticated")
+    void testStaleClaimsFallBack() throws Exception {
+        // Arrange
+        String token = tokenProvider.generateToken(new UserPrincipal(2L, "lib@example.com", "hash", "LIBRARIAN", true));
+        tokenRevocationRegistry.invalidateUser(2L);
+        when(userDetailsService.loadUserByUsername("lib@example.com"))
+            .thenReturn(new UserPrincipal(2L, "lib@example.com", "hash", "LIBRARIAN", false));
+
+        // Act
+        Authentication authentication = authenticate(token);
+
+        // Assert
+        assertNull(authentication);
+        verify(userDetailsService).loadUserByUsername("lib@example.com");
+    }
+
+    @Test
+    @DisplayName("Test filter - Invalid token is ignored")
+    void testInvalidToken() throws Exception {
+        // Act & Assert
+        assertNull(authenticate("not-a-token"));
+        verifyNoInteractions(userDetailsService);
+    }
+}
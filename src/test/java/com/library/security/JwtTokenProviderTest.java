@@ -0,0 +1,108 @@
+package com.library.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JwtTokenProvider
+ * Testing token generation and single-pass claim parsing
+ */
+public class JwtTokenProviderTest {
+
+    private static final String SECRET = "testSecretKeyThatIsAtLeastThirtyTwoBytesLong";
+
+    private JwtTokenProvider tokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = newProvider(SECRET, 60000L);
+    }
+
+    private static JwtTokenProvider newProvider(String secret, long expirationMs) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", secret);
+        ReflectionTestUtils.setField(provider, "jwtExpirationMs", expirationMs);
+        provider.init();
+        return provider;
+    }
+
+    @Test
+    @DisplayName("Test parse claims - Valid token")
+    void testParseClaims_Valid() {
+        // Arrange
+        String token = tokenProvider.generateTokenFromUsername("john@example.com");
+
+        // Act
+        Optional<Claims> claims = tokenProvider.parseClaims(token);
+
+        // Assert
+        assertTrue(claims.isPresent());
+        assertEquals("john@example.com", claims.get().getSubject());
+        assertTrue(tokenProvider.validateToken(token));
+        assertFalse(tokenProvider.isTokenExpired(token));
+        assertEquals("john@example.com", tokenProvider.getUsernameFromToken(token));
+    }
+
+    @Test
+    @DisplayName("Test parse claims - Token signed with another key")
+    void testParseClaims_WrongKey() {
+        // Arrange
+        String token = newProvider("anotherSecretKeyThatIsAtLeastThirtyTwoBytes", 60000L)
+            .generateTokenFromUsername("john@example.com");
+
+        // Act & Assert
+        assertTrue(tokenProvider.parseClaims(token).isEmpty());
+        assertFalse(tokenProvider.validateToken(token));
+    }
+
+    @Test
+    @DisplayName("Test parse claims - Expired or malformed token")
+    void testParseClaims_ExpiredOrMalformed() {
+        // Arrange
+        String expired = newProvider(SECRET, -1000L).generateTokenFromUsername("john@example.com");
+
+        // Act & Assert
+        assertTrue(tokenProvider.parseClaims(expired).isEmpty());
+        assertTrue(tokenProvider.isTokenExpired(expired));
+        assertTrue(tokenProvider.parseClaims("not-a-token").isEmpty());
+        assertTrue(tokenProvider.parseClaims("").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test principal claims - Token generated for a UserPrincipal")
+    void testGetPrincipalFromClaims() {
+        // Arrange
+        UserPrincipal principal = new UserPrincipal(7L, "librarian@example.com", "hash", "LIBRARIAN", true);
+        String token = tokenProvider.generateToken(principal);
+
+        // Act
+        UserPrincipal parsed = tokenProvider.getPrincipalFromClaims(tokenProvider.parseClaims(token).orElseThrow())
+            .orElseThrow();
+
+        // Assert
+        assertEquals(7L, parsed.getId());
+        assertEquals("librarian@example.com", parsed.getUsername());
+        assertEquals("LIBRARIAN", parsed.getRole());
+        assertTrue(parsed.isVerified());
+        assertTrue(parsed.isEnabled());
+        assertNull(parsed.getPassword());
+        assertEquals("ROLE_LIBRARIAN", parsed.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    @DisplayName("Test principal claims - Subject-only token has no principal claims")
+    void testGetPrincipalFromClaims_SubjectOnly() {
+        // Arrange
+        String token = tokenProvider.generateTokenFromUsername("john@example.com");
+
+        // Act & Assert
+        assertTrue(tokenProvider.getPrincipalFromClaims(tokenProvider.parseClaims(token).orElseThrow()).isEmpty());
+    }
+}
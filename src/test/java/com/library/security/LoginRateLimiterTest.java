@@ -0,0 +1,106 @@
+package com.library.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LoginRateLimiter
+ * Testing per-email and per-IP limits, reset and window expiry
+ */
+public class LoginRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private double throttled(String key) {
+        return meterRegistry.get("library.auth.login.throttled").tag("key", key).counter().count();
+    }
+
+    @Test
+    @DisplayName("Test acquire - Email is throttled after its attempts, case-insensitively")
+    void testAcquire_EmailLimit() {
+        // Arrange
+        LoginRateLimiter limiter = new LoginRateLimiter(true, Duration.ofMinutes(1), 2, 100, meterRegistry);
+
+        // Act
+        limiter.acquire("john@example.com", "10.0.0.1");
+        limiter.acquire("John@Example.com", "10.0.0.2");
+
+        // Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> limiter.acquire("john@example.com", "10.0.0.3"));
+        assertTrue(exception.getMessage().contains("Too many"));
+        assertEquals(1.0, throttled("email"));
+        limiter.acquire("jane@example.com", "10.0.0.3");
+    }
+
+    @Test
+    @DisplayName("Test acquire - IP is throttled across emails")
+    void testAcquire_IpLimit() {
+        // Arrange
+        LoginRateLimiter limiter = new LoginRateLimiter(true, Duration.ofMinutes(1), 100, 2, meterRegistry);
+
+        // Act
+        limiter.acquire("a@example.com", "10.0.0.1");
+        limiter.acquire("b@example.com", "10.0.0.1");
+
+        // Assert
+        assertThrows(RuntimeException.class, () -> limiter.acquire("c@example.com", "10.0.0.1"));
+        assertEquals(1.0, throttled("ip"));
+        limiter.acquire("c@example.com", "10.0.0.2");
+    }
+
+    @Test
+    @DisplayName("Test reset - Successful login clears the email counter")
+    void testReset() {
+        // Arrange
+        LoginRateLimiter limiter = new LoginRateLimiter(true, Duration.ofMinutes(1), 1, 100, meterRegistry);
+        limiter.acquire("john@example.com", "10.0.0.1");
+
+        // Act
+        limiter.reset("john@example.com");
+
+        // Assert
+        assertDoesNotThrow(() -> limiter.acquire("john@example.com", "10.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("Test window - Attempts are allowed again once the window ends")
+    void testWindowExpiry() throws Exception {
+        // Arrange
+        LoginRateLimiter limiter = new LoginRateLimiter(true, Duration.ofMillis(50), 1, 100, meterRegistry);
+        limiter.acquire("john@example.com", "10.0.0.1");
+        assertThrows(RuntimeException.class, () -> limiter.acquire("john@example.com", "10.0.0.1"));
+
+        // Act
+        Thread.sleep(80);
+        limiter.purgeExpired();
+
+        // Assert
+        assertEquals(0, limiter.size());
+        assertDoesNotThrow(() -> limiter.acquire("john@example.com", "10.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("Test disabled limiter - Never throttles")
+    void testDisabled() {
+        // Arrange
+        LoginRateLimiter limiter = new LoginRateLimiter(false, Duration.ofMinutes(1), 1, 1, meterRegistry);
+
+        // Act & Assert
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire("john@example.com", "10.0.0.1");
+        }
+        assertEquals(0, limiter.size());
+    }
+}
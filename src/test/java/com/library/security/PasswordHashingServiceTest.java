@@ -0,0 +1,92 @@
+package com.library.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PasswordHashingService
+ * Testing per-role cost, legacy hash matching and rehash detection
+ */
+public class PasswordHashingServiceTest {
+
+    private PasswordHashingService passwordHashingService;
+
+    @BeforeEach
+    void setUp() {
+        // Low costs keep the test fast; only their relative order matters
+        passwordHashingService = new PasswordHashingService(4, 5, 1, 8, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test encode - Hash carries the {bcrypt} prefix and the role's cost")
+    void testEncode_PerRoleCost() {
+        // Act
+        String memberHash = passwordHashingService.encode("password123", "MEMBER");
+        String librarianHash = passwordHashingService.encode("password123", "LIBRARIAN");
+
+        // Assert
+        assertTrue(memberHash.startsWith("{bcrypt}$2a$04$"));
+        assertTrue(librarianHash.startsWith("{bcrypt}$2a$05$"));
+        assertTrue(passwordHashingService.matches("password123", memberHash));
+        assertTrue(passwordHashingService.matches("password123", librarianHash));
+        assertFalse(passwordHashingService.matches("wrong", librarianHash));
+    }
+
+    @Test
+    @DisplayName("Test matches - Legacy hash without prefix still matches and needs rehash")
+    void testMatches_LegacyHash() {
+        // Arrange
+        String legacyHash = new BCryptPasswordEncoder(4).encode("password123");
+
+        // Act & Assert
+        assertTrue(passwordHashingService.matches("password123", legacyHash));
+        assertTrue(passwordHashingService.needsRehash(legacyHash, "MEMBER"));
+    }
+
+    @Test
+    @DisplayName("Test needsRehash - Hash cheaper than the role's cost is upgraded")
+    void testNeedsRehash_RoleCost() {
+        // Arrange
+        String memberHash = passwordHashingService.encode("password123", "MEMBER");
+        String librarianHash = passwordHashingService.encode("password123", "LIBRARIAN");
+
+        // Act & Assert
+        assertFalse(passwordHashingService.needsRehash(memberHash, "MEMBER"));
+        assertTrue(passwordHashingService.needsRehash(memberHash, "LIBRARIAN"));
+        assertFalse(passwordHashingService.needsRehash(librarianHash, "LIBRARIAN"));
+        assertFalse(passwordHashingService.needsRehash(librarianHash, "MEMBER"));
+    }
+
+    @Test
+    @DisplayName("Test encode - Full queue is rejected as too many attempts")
+    void testEncode_QueueFull() throws Exception {
+        // Arrange - one thread and a one-slot queue, both kept busy with expensive hashes
+        PasswordHashingService busy = new PasswordHashingService(14, 14, 1, 1, Duration.ofSeconds(30));
+        try {
+            Thread first = new Thread(() -> busy.encode("password123"));
+            Thread second = new Thread(() -> busy.encode("password123"));
+            first.start();
+            Thread.sleep(100);
+            second.start();
+            Thread.sleep(100);
+
+            // Act & Assert
+            RuntimeException exception = assertThrows(RuntimeException.class, () -> busy.encode("password123"));
+            assertTrue(exception.getMessage().contains("Too many"));
+        } finally {
+            busy.shutdown();
+        }
+    }
+}
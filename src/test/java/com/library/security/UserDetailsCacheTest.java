@@ -0,0 +1,159 @@
+package com.library.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserDetailsCache
+ * Testing hits, size/TTL eviction, invalidation and metrics
+ */
+public class UserDetailsCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger loads;
+    private Function<String, UserPrincipal> loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loads = new AtomicInteger();
+        loader = email -> {
+            loads.incrementAndGet();
+            return new UserPrincipal(1L, email, "hash", "MEMBER", false);
+        };
+    }
+
+    private double count(String name, String tag, String value) {
+        return meterRegistry.get(name).tag(tag, value).counter().count();
+    }
+
+    @Test
+    @DisplayName("Test cache - Second lookup is a hit")
+    void testHit() {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(true, 10, Duration.ofMinutes(1), meterRegistry);
+
+        // Act
+        UserPrincipal first = cache.get("john@example.com", loader);
+        UserPrincipal second = cache.get("john@example.com", loader);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, count("library.user-details.cache.requests", "result", "hit"));
+        assertEquals(1.0, count("library.user-details.cache.requests", "result", "miss"));
+    }
+
+    @Test
+    @DisplayName("Test cache - Least recently used entry is evicted at max size")
+    void testSizeEviction() {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(true, 2, Duration.ofMinutes(1), meterRegistry);
+        cache.get("a@example.com", loader);
+        cache.get("b@example.com", loader);
+        cache.get("a@example.com", loader);
+
+        // Act
+        cache.get("c@example.com", loader);
+        cache.get("a@example.com", loader);
+        cache.get("b@example.com", loader);
+
+        // Assert - b was least recently used when c arrived
+        assertEquals(2, cache.size());
+        assertEquals(4, loads.get());
+        assertEquals(2.0, count("library.user-details.cache.evictions", "cause", "size"));
+    }
+
+    @Test
+    @DisplayName("Test cache - Expired entry is reloaded")
+    void testExpiry() throws Exception {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(true, 10, Duration.ofMillis(20), meterRegistry);
+        cache.get("john@example.com", loader);
+
+        // Act
+        Thread.sleep(40);
+        cache.get("john@example.com", loader);
+
+        // Assert
+        assertEquals(2, loads.get());
+        assertEquals(1.0, count("library.user-details.cache.evictions", "cause", "expired"));
+    }
+
+    @Test
+    @DisplayName("Test cache - Invalidation forces a reload")
+    void testInvalidate() {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(true, 10, Duration.ofMinutes(1), meterRegistry);
+        cache.get("john@example.com", loader);
+
+        // Act
+        cache.invalidate("john@example.com");
+        cache.get("john@example.com", loader);
+
+        // Assert
+        assertEquals(2, loads.get());
+        assertEquals(1.0, count("library.user-details.cache.evictions", "cause", "invalidated"));
+    }
+
+    @Test
+    @DisplayName("Test cache - Missing users are not cached")
+    void testNotFoundNotCached() {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(true, 10, Duration.ofMinutes(1), meterRegistry);
+        Function<String, UserPrincipal> missing = email -> {
+            loads.incrementAndGet();
+            throw new UsernameNotFoundException("User not found with email: " + email);
+        };
+
+        // Act & Assert
+        assertThrows(UsernameNotFoundException.class, () -> cache.get("ghost@example.com", missing));
+        assertThrows(UsernameNotFoundException.class, () -> cache.get("ghost@example.com", missing));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Test cache - Disabled cache always loads")
+    void testDisabled() {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(false, 10, Duration.ofMinutes(1), meterRegistry);
+
+        // Act
+        cache.get("john@example.com", loader);
+        cache.get("john@example.com", loader);
+
+        // Assert
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Test cache - A load racing with an invalidation is not cached")
+    void testInvalidateDuringLoad() {
+        // Arrange - The user is updated and invalidated while the first lookup is still loading
+        UserDetailsCache cache = new UserDetailsCache(true, 10, Duration.ofMinutes(1), meterRegistry);
+        Function<String, UserPrincipal> racingLoader = email -> {
+            UserPrincipal stale = loader.apply(email);
+            cache.invalidate(email);
+            return stale;
+        };
+
+        // Act
+        cache.get("john@example.com", racingLoader);
+        cache.get("john@example.com", loader);
+
+        // Assert - The stale result was returned to its caller only; the next lookup loads again
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,173 @@
+package com.library.service;
+
+import com.library.constant.BookType;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * BookSearchIndex Test
+ * Tests indexing, prefix/AND queries and the chunked rebuild
+ * 
+ * @author Library System
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private BookSearchIndex bookSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookSearchIndex = new BookSearchIndex(bookRepository, true);
+        bookSearchIndex.index(book(1L, "Java Programming", "James Gosling", 1995));
+        bookSearchIndex.index(book(2L, "Effective Java", "Joshua Bloch", 2018));
+        bookSearchIndex.index(book(3L, "Clean Code", "Robert Martin", 2008));
+    }
+
+    @Test
+    @DisplayName("Test search - Prefix match on title")
+    void testSearch_Prefix() {
+        // Act
+        List<Book> result = bookSearchIndex.search("jav", null, null, 0L, 0, 10);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), result.stream().map(Book::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Test search - All tokens must match")
+    void testSearch_MultiTokenAnd() {
+        // Act
+        List<Book> result = bookSearchIndex.search("effective java", "bloch", null, 0L, 0, 10);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("Effective Java", result.get(0).getTitle());
+    }
+
+    @Test
+    @DisplayName("Test search - Year filter, cursor and offset")
+    void testSearch_Paging() {
+        // Act & Assert
+        assertEquals(List.of(3L), ids(bookSearchIndex.search(null, null, 2008, 0L, 0, 10)));
+        assertEquals(List.of(2L, 3L), ids(bookSearchIndex.search(null, null, null, 1L, 0, 10)));
+        assertEquals(List.of(2L), ids(bookSearchIndex.search(null, null, null, 0L, 1, 1)));
+    }
+
+    @Test
+    @DisplayName("Test index - Updating a book replaces its old terms")
+    void testIndex_Update() {
+        // Act
+        bookSearchIndex.index(book(3L, "Refactoring", "Martin Fowler", 1999));
+
+        // Assert
+        assertTrue(bookSearchIndex.search("clean", null, null, 0L, 0, 10).isEmpty());
+        assertEquals(List.of(3L), ids(bookSearchIndex.search("refactor", "fowler", null, 0L, 0, 10)));
+        assertEquals(3, bookSearchIndex.size());
+    }
+
+    @Test
+    @DisplayName("Test rebuild - Reads books in ID-ordered chunks")
+    void testRebuild() {
+        // Arrange
+        when(bookRepository.findByIdGreaterThan(eq(0L), any(Pageable.class)))
+            .thenReturn(new SliceImpl<>(List.of(book(10L, "Domain Driven Design", "Eric Evans", 2003)),
+                Pageable.ofSize(1), true));
+        when(bookRepository.findByIdGreaterThan(eq(10L), any(Pageable.class)))
+            .thenReturn(new SliceImpl<>(List.of(book(11L, "Design Patterns", "Erich Gamma", 1994)),
+                Pageable.ofSize(1), false));
+        assertFalse(bookSearchIndex.isAvailable());
+
+        // Act
+        bookSearchIndex.rebuild();
+
+        // Assert
+        assertTrue(bookSearchIndex.isAvailable());
+        assertEquals(2, bookSearchIndex.size());
+        assertEquals(List.of(10L, 11L), ids(bookSearchIndex.search("design", null, null, 0L, 0, 10)));
+        assertTrue(bookSearchIndex.search("java", null, null, 0L, 0, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test rebuild - Book indexed during the rebuild is replaced by its chunk")
+    void testRebuild_ConcurrentIndex() {
+        // Arrange - The chunk is read with the old title, then the renamed book is indexed before the chunk is applied
+        when(bookRepository.findByIdGreaterThan(eq(0L), any(Pageable.class))).thenAnswer(invocation -> {
+            SliceImpl<Book> staleChunk = new SliceImpl<>(List.of(book(10L, "Old Title", "Eric Evans", 2003)),
+                Pageable.ofSize(1), false);
+            bookSearchIndex.index(book(10L, "Domain Driven Design", "Eric Evans", 2003));
+            return staleChunk;
+        });
+
+        // Act
+        bookSearchIndex.rebuild();
+
+        // Assert - The newer document wins and is not added twice
+        assertEquals(1, bookSearchIndex.size());
+        assertTrue(bookSearchIndex.search("old", null, null, 0L, 0, 10).isEmpty());
+        assertEquals(List.of(10L), ids(bookSearchIndex.search("domain", "evans", null, 0L, 0, 10)));
+    }
+
+    @Test
+    @DisplayName("Test rebuild - Books indexed during an earlier rebuild are not replayed again")
+    void testRebuild_ReplayOnlyOnce() {
+        // Arrange - A first rebuild with a concurrent index, then a second one that reads a newer title
+        when(bookRepository.findByIdGreaterThan(eq(0L), any(Pageable.class)))
+            .thenAnswer(invocation -> {
+                bookSearchIndex.index(book(10L, "Domain Driven Design", "Eric Evans", 2003));
+                return new SliceImpl<>(List.of(book(10L, "Old Title", "Eric Evans", 2003)), Pageable.ofSize(1), false);
+            })
+            .thenReturn(new SliceImpl<>(List.of(book(10L, "Domain Driven Design Reference", "Eric Evans", 2015)),
+                Pageable.ofSize(1), false));
+        bookSearchIndex.rebuild();
+
+        // Act
+        bookSearchIndex.rebuild();
+        bookSearchIndex.index(book(11L, "Refactoring", "Martin Fowler", 1999));
+
+        // Assert
+        assertEquals(List.of(10L), ids(bookSearchIndex.search("reference", null, null, 0L, 0, 10)));
+        assertEquals(List.of(11L), ids(bookSearchIndex.search("refactoring", null, null, 0L, 0, 10)));
+    }
+
+    @Test
+    @DisplayName("Test index - Disabled index is never available")
+    void testDisabled() {
+        // Arrange
+        BookSearchIndex disabled = new BookSearchIndex(bookRepository, false);
+
+        // Act
+        disabled.onApplicationReady();
+
+        // Assert
+        assertFalse(disabled.isAvailable());
+        verifyNoInteractions(bookRepository);
+    }
+
+    private static Book book(Long id, String title, String author, Integer year) {
+        Book book = new Book(title, author, year, "Technology", BookType.MODERN);
+        book.setId(id);
+        return book;
+    }
+
+    private static List<Long> ids(List<Book> books) {
+        return books.stream().map(Book::getId).toList();
+    }
+}
@@ -1,8 +1,18 @@
 package com.library.service;
 
+import com.library.config.DatabaseSchemaInitializer;
 import com.library.constant.BookType;
+import com.library.dto.request.AddBookCopiesRequest;
+import com.library.dto.request.CreateBookWithCopiesRequest;
+import com.library.dto.response.BookWithCopiesResponse;
 import com.library.entity.Book;
+import com.library.entity.BookCopy;
+import com.library.entity.Library;
+import com.library.dto.response.BookWithCopySummaryResponse;
+import com.library.dto.response.CursorPageResponse;
+import com.library.repository.BookCopyRepository;
 import com.library.repository.BookRepository;
+import com.library.repository.LibraryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,6 +20,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Arrays;
 import java.util.List;
@@ -31,6 +49,18 @@ public class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookCopyRepository bookCopyRepository;
+
+    @Mock
+    private LibraryRepository libraryRepository;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+    
+    @Mock
+    private DatabaseSchemaInitializer databaseSchemaInitializer;
+
     @InjectMocks
     private BookService bookService;
 
@@ -48,7 +78,7 @@ public class BookServiceTest {
         testBook.setBookType(BookType.TRADITIONAL);
         
         // Reset mocks
-        reset(bookRepository);
+        reset(bookRepository, bookCopyRepository, libraryRepository, bookSearchIndex);
     }
 
     @Test
@@ -98,6 +128,66 @@ public class BookServiceTest {
         assertEquals(testBook.getId(), result.getId());
         assertEquals(testBook.getTitle(), result.getTitle());
         verify(bookRepository).save(any(Book.class));
+        verify(bookSearchIndex).indexAfterCommit(testBook);
+    }
+    
+    @Test
+    @DisplayName("Test create book with copies - Copies saved in one batch per library")
+    void testCreateBookWithCopies_SavesCopiesInBatch() {
+        // Arrange
+        Library library = new Library();
+        library.setId(10L);
+        library.setName("Central Library");
+        CreateBookWithCopiesRequest.LibraryCopyConfig config = new CreateBookWithCopiesRequest.LibraryCopyConfig();
+        config.setLibraryId(10L);
+        config.setNumberOfCopies(3);
+        CreateBookWithCopiesRequest request = new CreateBookWithCopiesRequest();
+        request.setTitle("Test Book");
+        request.setAuthor("Test Author");
+        request.setCategory("FICTION");
+        request.setBookType(BookType.TRADITIONAL);
+        request.setLibraryCopies(List.of(config));
+        when(bookRepository.save(any(Book.class))).thenReturn(testBook);
+        when(libraryRepository.findById(10L)).thenReturn(Optional.of(library));
+        when(bookCopyRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // Act
+        BookWithCopiesResponse result = bookService.createBookWithCopies(request);
+        
+        // Assert
+        List<BookWithCopiesResponse.CopyInfo> copies = result.getLibraryCopies().get(0).getCopies();
+        assertEquals(3, copies.size());
+        assertEquals(List.of(1, 2, 3), copies.stream().map(BookWithCopiesResponse.CopyInfo::getCopyNumber).toList());
+        verify(bookCopyRepository, times(1)).saveAll(anyList());
+        verify(bookCopyRepository, never()).save(any(BookCopy.class));
+    }
+    
+    @Test
+    @DisplayName("Test add book copies - Copy numbers continue after the current maximum")
+    void testAddBookCopies_AllocatesAfterMax() {
+        // Arrange
+        Library library = new Library();
+        library.setId(10L);
+        library.setName("Central Library");
+        AddBookCopiesRequest.LibraryCopyConfig config = new AddBookCopiesRequest.LibraryCopyConfig();
+        config.setLibraryId(10L);
+        config.setNumberOfCopies(2);
+        AddBookCopiesRequest request = new AddBookCopiesRequest();
+        request.setBookId(1L);
+        request.setLibraryCopies(List.of(config));
+        when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testBook));
+        when(libraryRepository.findById(10L)).thenReturn(Optional.of(library));
+        when(bookCopyRepository.findMaxCopyNumber(1L, 10L)).thenReturn(7);
+        when(bookCopyRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // Act
+        BookWithCopiesResponse result = bookService.addBookCopies(request);
+        
+        // Assert
+        List<BookWithCopiesResponse.CopyInfo> copies = result.getLibraryCopies().get(0).getCopies();
+        assertEquals(List.of(8, 9), copies.stream().map(BookWithCopiesResponse.CopyInfo::getCopyNumber).toList());
+        verify(bookRepository, never()).findById(anyLong());
+        verify(bookCopyRepository, never()).findByBookIdAndLibraryId(anyLong(), anyLong());
     }
     
     @Test
@@ -170,4 +260,202 @@ public class BookServiceTest {
         assertEquals(5L, result);
         verify(bookRepository).countByCategory(category);
     }
+    
+    @Test
+    @DisplayName("Test get books page - Count query skipped")
+    void testGetBooksPage_WithoutTotal() {
+        // Arrange
+        Pageable pageable = PageRequest.of(2, 10, Sort.by("id"));
+        when(bookRepository.findAllBy(pageable))
+            .thenReturn(new SliceImpl<>(Arrays.asList(testBook), pageable, false));
+        
+        // Act
+        Slice<Book> result = bookService.getBooksPage(2, 10, false);
+        
+        // Assert
+        assertEquals(1, result.getContent().size());
+        assertFalse(result.hasNext());
+        verify(bookRepository).findAllBy(pageable);
+        verify(bookRepository, never()).findAll(any(Pageable.class));
+        verify(bookRepository, never()).searchBooks(any(), any(), any());
+    }
+    
+    @Test
+    @DisplayName("Test get books page - Total requested and size capped")
+    void testGetBooksPage_WithTotal() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 100, Sort.by("id"));
+        when(bookRepository.findAll(pageable))
+            .thenReturn(new PageImpl<>(Arrays.asList(testBook), pageable, 1));
+        
+        // Act
+        Slice<Book> result = bookService.getBooksPage(-1, 5000, true);
+        
+        // Assert
+        assertTrue(result instanceof Page);
+        assertEquals(1L, ((Page<Book>) result).getTotalElements());
+        verify(bookRepository).findAll(pageable);
+    }
+    
+    @Test
+    @DisplayName("Test cursor search - Next cursor continues after last book")
+    void testSearchBooksWithCopySummaryAfter_HasNext() {
+        // Arrange
+        Book secondBook = new Book();
+        secondBook.setId(2L);
+        secondBook.setTitle("Test Book 2");
+        when(bookRepository.searchBooksAfter("Test", null, null, 0L, 2))
+            .thenReturn(Arrays.asList(testBook, secondBook));
+        when(bookRepository.searchBooksAfter("Test", null, null, 1L, 2))
+            .thenReturn(Arrays.asList(secondBook));
+        when(bookCopyRepository.countCopiesByBookAndLibrary(anyCollection(), isNull())).thenReturn(List.of());
+        
+        // Act
+        CursorPageResponse<BookWithCopySummaryResponse> firstPage =
+            bookService.searchBooksWithCopySummaryAfter("Test", null, null, null, null, 1);
+        CursorPageResponse<BookWithCopySummaryResponse> secondPage =
+            bookService.searchBooksWithCopySummaryAfter("Test", null, null, null, firstPage.getNextCursor(), 1);
+        
+        // Assert
+        assertEquals(1, firstPage.getContent().size());
+        assertEquals(1L, firstPage.getContent().get(0).getId());
+        assertTrue(firstPage.isHasNext());
+        assertNotNull(firstPage.getNextCursor());
+        
+        assertEquals(1, secondPage.getContent().size());
+        assertEquals(2L, secondPage.getContent().get(0).getId());
+        assertFalse(secondPage.isHasNext());
+        assertNull(secondPage.getNextCursor());
+    }
+    
+    @Test
+    @DisplayName("Test cursor search - Copy summary built from one grouped query")
+    void testSearchBooksWithCopySummaryAfter_CopySummary() {
+        // Arrange
+        BookCopyRepository.LibraryCopyCount count = mock(BookCopyRepository.LibraryCopyCount.class);
+        when(count.getBookId()).thenReturn(1L);
+        when(count.getLibraryId()).thenReturn(10L);
+        when(count.getLibraryName()).thenReturn("Central Library");
+        when(count.getTotalCopies()).thenReturn(3L);
+        when(count.getAvailableCopies()).thenReturn(2L);
+        when(bookRepository.searchBooksAfter(null, null, null, 0L, 11))
+            .thenReturn(Arrays.asList(testBook));
+        when(bookCopyRepository.countCopiesByBookAndLibrary(List.of(1L), null))
+            .thenReturn(List.of(count));
+        
+        // Act
+        CursorPageResponse<BookWithCopySummaryResponse> result =
+            bookService.searchBooksWithCopySummaryAfter(null, null, null, null, null, 10);
+        
+        // Assert
+        BookWithCopySummaryResponse.CopySummary summary = result.getContent().get(0).getCopySummary();
+        assertEquals(3, summary.getTotalCopies());
+        assertEquals(2, summary.getAvailableCopies());
+        assertEquals(1, summary.getLibraryCopies().size());
+        assertEquals("Central Library", summary.getLibraryCopies().get(0).getLibraryName());
+        verify(bookCopyRepository, times(1)).countCopiesByBookAndLibrary(anyCollection(), isNull());
+        verify(bookCopyRepository, never()).findByBook(any(Book.class));
+    }
+    
+    @Test
+    @DisplayName("Test update book - Book type cannot change while copies are borrowed")
+    void testUpdateBook_BookTypeWithActiveLoans() {
+        // Arrange
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+        when(bookCopyRepository.countByBookAndStatus(testBook, "BORROWED")).thenReturn(1L);
+        
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            bookService.updateBook(1L, null, null, null, null, BookType.MODERN));
+        
+        assertEquals("Cannot change book type while copies are borrowed", exception.getMessage());
+        assertEquals(BookType.TRADITIONAL, testBook.getBookType());
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+    
+    @Test
+    @DisplayName("Test update book - Book type changes when no copy is borrowed")
+    void testUpdateBook_BookTypeWithoutLoans() {
+        // Arrange
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+        when(bookCopyRepository.countByBookAndStatus(testBook, "BORROWED")).thenReturn(0L);
+        when(bookRepository.save(testBook)).thenReturn(testBook);
+        
+        // Act
+        Book result = bookService.updateBook(1L, null, null, null, null, BookType.MODERN);
+        
+        // Assert
+        assertEquals(BookType.MODERN, result.getBookType());
+        verify(bookRepository).save(testBook);
+    }
+    
+    @Test
+    @DisplayName("Test search with copy summary - Trigram mode pages and ranks in the database")
+    void testSearchBooksWithCopySummary_TrigramMode() {
+        // Arrange
+        ReflectionTestUtils.setField(bookService, "searchMode", "trigram");
+        when(databaseSchemaInitializer.isTrigramAvailable()).thenReturn(true);
+        when(bookRepository.searchBooksRanked("Test", null, null, 10, 20L))
+            .thenReturn(Arrays.asList(testBook));
+        when(bookCopyRepository.countCopiesByBookAndLibrary(anyCollection(), isNull())).thenReturn(List.of());
+        
+        // Act
+        List<BookWithCopySummaryResponse> result =
+            bookService.searchBooksWithCopySummary("Test", null, null, null, 2, 10);
+        
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(1L, result.get(0).getId());
+        verify(bookRepository).searchBooksRanked("Test", null, null, 10, 20L);
+        verify(bookRepository, never()).searchBooks(any(), any(), any());
+    }
+    
+    @Test
+    @DisplayName("Test search with copy summary - Trigram mode without pg_trgm falls back to ILIKE")
+    void testSearchBooksWithCopySummary_TrigramUnavailable() {
+        // Arrange
+        ReflectionTestUtils.setField(bookService, "searchMode", "trigram");
+        when(databaseSchemaInitializer.isTrigramAvailable()).thenReturn(false);
+        when(bookRepository.searchBooks("Test", null, null)).thenReturn(Arrays.asList(testBook));
+        when(bookCopyRepository.countCopiesByBookAndLibrary(anyCollection(), isNull())).thenReturn(List.of());
+        
+        // Act
+        List<BookWithCopySummaryResponse> result =
+            bookService.searchBooksWithCopySummary("Test", null, null, null, 0, 10);
+        
+        // Assert
+        assertEquals(1, result.size());
+        verify(bookRepository).searchBooks("Test", null, null);
+        verify(bookRepository, never()).searchBooksRanked(any(), any(), any(), anyInt(), anyLong());
+    }
+    
+    @Test
+    @DisplayName("Test cursor search - Served from search index when available")
+    void testSearchBooksWithCopySummaryAfter_FromIndex() {
+        // Arrange
+        when(bookSearchIndex.isAvailable()).thenReturn(true);
+        when(bookSearchIndex.search("Test", null, null, 0L, 0, 11)).thenReturn(Arrays.asList(testBook));
+        when(bookCopyRepository.countCopiesByBookAndLibrary(anyCollection(), isNull())).thenReturn(List.of());
+        
+        // Act
+        CursorPageResponse<BookWithCopySummaryResponse> result =
+            bookService.searchBooksWithCopySummaryAfter("Test", null, null, null, null, 10);
+        
+        // Assert
+        assertEquals(1, result.getContent().size());
+        assertFalse(result.isHasNext());
+        verify(bookRepository, never()).searchBooksAfter(any(), any(), any(), anyLong(), anyInt());
+    }
+    
+    @Test
+    @DisplayName("Test cursor search - Invalid cursor")
+    void testSearchBooksWithCopySummaryAfter_InvalidCursor() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            bookService.searchBooksWithCopySummaryAfter(null, null, null, null, "not-a-cursor", 10);
+        });
+        
+        assertEquals("Invalid cursor", exception.getMessage());
+        verifyNoInteractions(bookRepository);
+    }
 }
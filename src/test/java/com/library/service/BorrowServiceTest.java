@@ -1,6 +1,8 @@
 package com.library.service;
 
 import com.library.constant.BookType;
+import com.library.dto.response.BatchBorrowResponse;
+import com.library.dto.response.BatchReturnResponse;
 import com.library.entity.Book;
 import com.library.entity.BookCopy;
 import com.library.entity.BorrowRecord;
@@ -8,6 +10,7 @@ import com.library.entity.User;
 import com.library.repository.BookCopyRepository;
 import com.library.repository.BorrowRecordRepository;
 import com.library.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -41,6 +44,12 @@ public class BorrowServiceTest {
     @Mock
     private UserRepository userRepository;
     
+    @Mock
+    private LoanCounterService loanCounterService;
+    
+    @Mock
+    private EntityManager entityManager;
+    
     @InjectMocks
     private BorrowService borrowService;
     
@@ -80,7 +89,7 @@ public class BorrowServiceTest {
         testBorrowRecord.setStatus("BORROWED");
         
         // Reset mocks
-        reset(borrowRecordRepository, bookCopyRepository, userRepository);
+        reset(borrowRecordRepository, bookCopyRepository, userRepository, loanCounterService);
     }
     
     @Test
@@ -88,10 +97,16 @@ public class BorrowServiceTest {
     void testBorrowBook_Success() {
         // Arrange
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(bookCopyRepository.findById(1L)).thenReturn(Optional.of(testBookCopy));
-        when(borrowRecordRepository.findByUserAndStatus(testUser, "BORROWED")).thenReturn(Arrays.asList());
+        when(bookCopyRepository.findWithBookAndLibraryById(1L)).thenReturn(Optional.of(testBookCopy));
+        when(loanCounterService.tryIncrement(1L, BookType.TRADITIONAL, 5)).thenReturn(true);
+        when(bookCopyRepository.compareAndSetStatus(eq(1L), eq("AVAILABLE"), eq("BORROWED"), any(LocalDateTime.class)))
+            .thenReturn(1);
         when(borrowRecordRepository.save(any(BorrowRecord.class))).thenReturn(testBorrowRecord);
-        when(bookCopyRepository.save(any(BookCopy.class))).thenReturn(testBookCopy);
+        // refresh reloads the status written by the conditional update
+        doAnswer(invocation -> {
+            testBookCopy.setStatus("BORROWED");
+            return null;
+        }).when(entityManager).refresh(testBookCopy);
         
         // Act
         BorrowRecord result = borrowService.borrowBook(1L, 1L);
@@ -100,13 +115,53 @@ public class BorrowServiceTest {
         assertNotNull(result);
         assertEquals(testUser, result.getUser());
         assertEquals(testBookCopy, result.getBookCopy());
+        assertEquals("BORROWED", testBookCopy.getStatus());
         
         // Verify interactions
         verify(userRepository).findById(1L);
-        verify(bookCopyRepository).findById(1L);
-        verify(borrowRecordRepository).findByUserAndStatus(testUser, "BORROWED");
+        verify(bookCopyRepository).findWithBookAndLibraryById(1L);
+        verify(loanCounterService).tryIncrement(1L, BookType.TRADITIONAL, 5);
         verify(borrowRecordRepository).save(any(BorrowRecord.class));
-        verify(bookCopyRepository).save(any(BookCopy.class));
+        verify(bookCopyRepository).compareAndSetStatus(eq(1L), eq("AVAILABLE"), eq("BORROWED"), any(LocalDateTime.class));
+        verify(bookCopyRepository, never()).save(any(BookCopy.class));
+        verify(entityManager).refresh(testBookCopy);
+    }
+    
+    @Test
+    @DisplayName("Test borrow book - Traditional book limit reached")
+    void testBorrowBook_LimitReached() {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(bookCopyRepository.findWithBookAndLibraryById(1L)).thenReturn(Optional.of(testBookCopy));
+        when(loanCounterService.tryIncrement(1L, BookType.TRADITIONAL, 5)).thenReturn(false);
+        
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            borrowService.borrowBook(1L, 1L);
+        });
+        
+        assertEquals("Traditional book borrowing limit reached (maximum 5 books)", exception.getMessage());
+        verify(bookCopyRepository, never()).compareAndSetStatus(anyLong(), anyString(), anyString(), any());
+        verify(borrowRecordRepository, never()).save(any(BorrowRecord.class));
+    }
+    
+    @Test
+    @DisplayName("Test borrow book - Copy taken by a concurrent borrower")
+    void testBorrowBook_LostRace() {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(bookCopyRepository.findWithBookAndLibraryById(1L)).thenReturn(Optional.of(testBookCopy));
+        when(loanCounterService.tryIncrement(1L, BookType.TRADITIONAL, 5)).thenReturn(true);
+        when(bookCopyRepository.compareAndSetStatus(eq(1L), eq("AVAILABLE"), eq("BORROWED"), any(LocalDateTime.class)))
+            .thenReturn(0);
+        
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            borrowService.borrowBook(1L, 1L);
+        });
+        
+        assertEquals("Book is not available", exception.getMessage());
+        verify(borrowRecordRepository, never()).save(any(BorrowRecord.class));
     }
     
     @Test
@@ -130,7 +185,7 @@ public class BorrowServiceTest {
     void testBorrowBook_BookCopyNotFound() {
         // Arrange
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(bookCopyRepository.findById(999L)).thenReturn(Optional.empty());
+        when(bookCopyRepository.findWithBookAndLibraryById(999L)).thenReturn(Optional.empty());
         
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -139,7 +194,7 @@ public class BorrowServiceTest {
         
         assertEquals("Book copy not found", exception.getMessage());
         verify(userRepository).findById(1L);
-        verify(bookCopyRepository).findById(999L);
+        verify(bookCopyRepository).findWithBookAndLibraryById(999L);
         verifyNoInteractions(borrowRecordRepository);
     }
     
@@ -149,7 +204,7 @@ public class BorrowServiceTest {
         // Arrange
         testBookCopy.setStatus("BORROWED");
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(bookCopyRepository.findById(1L)).thenReturn(Optional.of(testBookCopy));
+        when(bookCopyRepository.findWithBookAndLibraryById(1L)).thenReturn(Optional.of(testBookCopy));
         
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -158,17 +213,142 @@ public class BorrowServiceTest {
         
         assertEquals("Book is not available", exception.getMessage());
         verify(userRepository).findById(1L);
-        verify(bookCopyRepository).findById(1L);
+        verify(bookCopyRepository).findWithBookAndLibraryById(1L);
         verifyNoInteractions(borrowRecordRepository);
     }
     
+    @Test
+    @DisplayName("Test batch borrow - Per-copy results in request order")
+    void testBorrowBooks_MixedResults() {
+        // Arrange
+        BookCopy borrowedCopy = new BookCopy();
+        borrowedCopy.setId(2L);
+        borrowedCopy.setBook(testBook);
+        borrowedCopy.setStatus("BORROWED");
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(bookCopyRepository.findAllWithBookByIdIn(List.of(1L, 2L, 3L)))
+            .thenReturn(List.of(testBookCopy, borrowedCopy));
+        when(loanCounterService.reserveUpTo(1L, BookType.TRADITIONAL, 1, 5)).thenReturn(1);
+        when(bookCopyRepository.compareAndSetStatuses(eq(List.of(1L)), eq("AVAILABLE"), eq("BORROWED"), any(LocalDateTime.class)))
+            .thenReturn(new int[] {1});
+        when(borrowRecordRepository.insertBorrowRecords(eq(1L), eq(List.of(1L)), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(List.of(100L));
+        
+        // Act
+        BatchBorrowResponse result = borrowService.borrowBooks(1L, List.of(1L, 2L, 3L, 1L));
+        
+        // Assert
+        assertEquals(1, result.getBorrowedCount());
+        assertEquals(3, result.getFailedCount());
+        assertTrue(result.getResults().get(0).isSuccess());
+        assertEquals(100L, result.getResults().get(0).getBorrowRecordId());
+        assertEquals("Book is not available", result.getResults().get(1).getMessage());
+        assertEquals("Book copy not found", result.getResults().get(2).getMessage());
+        assertEquals("Duplicate book copy in request", result.getResults().get(3).getMessage());
+        verify(bookCopyRepository, never()).save(any(BookCopy.class));
+        verify(borrowRecordRepository, never()).save(any(BorrowRecord.class));
+    }
+    
+    @Test
+    @DisplayName("Test batch borrow - Over the limit and lost to a concurrent borrower")
+    void testBorrowBooks_LimitAndLostRace() {
+        // Arrange
+        BookCopy secondCopy = new BookCopy();
+        secondCopy.setId(2L);
+        secondCopy.setBook(testBook);
+        secondCopy.setStatus("AVAILABLE");
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(bookCopyRepository.findAllWithBookByIdIn(List.of(1L, 2L)))
+            .thenReturn(List.of(testBookCopy, secondCopy));
+        when(loanCounterService.reserveUpTo(1L, BookType.TRADITIONAL, 2, 5)).thenReturn(1);
+        when(bookCopyRepository.compareAndSetStatuses(eq(List.of(1L)), eq("AVAILABLE"), eq("BORROWED"), any(LocalDateTime.class)))
+            .thenReturn(new int[] {0});
+        when(borrowRecordRepository.insertBorrowRecords(eq(1L), eq(List.of()), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(List.of());
+        
+        // Act
+        BatchBorrowResponse result = borrowService.borrowBooks(1L, List.of(1L, 2L));
+        
+        // Assert
+        assertEquals(0, result.getBorrowedCount());
+        assertEquals("Book is not available", result.getResults().get(0).getMessage());
+        assertEquals("Traditional book borrowing limit reached (maximum 5 books)", result.getResults().get(1).getMessage());
+        verify(loanCounterService).decrement(1L, BookType.TRADITIONAL, 1);
+    }
+    
+    @Test
+    @DisplayName("Test batch borrow - User has overdue books")
+    void testBorrowBooks_Overdue() {
+        // Arrange
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(borrowRecordRepository.existsByUserIdAndStatusAndDueAtBefore(eq(1L), eq("BORROWED"), any(LocalDateTime.class)))
+            .thenReturn(true);
+        
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            borrowService.borrowBooks(1L, List.of(1L));
+        });
+        
+        assertEquals("User has overdue books. Please return them first.", exception.getMessage());
+        verifyNoInteractions(bookCopyRepository, loanCounterService);
+    }
+    
+    @Test
+    @DisplayName("Test batch return - Per-item results by record and by scanned copy")
+    void testReturnBooks_MixedResults() {
+        // Arrange
+        BorrowRecordRepository.ReturnCandidate active = returnCandidate(1L, 11L, "BORROWED");
+        BorrowRecordRepository.ReturnCandidate returned = returnCandidate(2L, 12L, "RETURNED");
+        BorrowRecordRepository.ReturnCandidate scanned = returnCandidate(7L, 15L, "BORROWED");
+        when(borrowRecordRepository.findReturnCandidatesByIdIn(anyCollection())).thenReturn(List.of(active, returned));
+        when(borrowRecordRepository.findReturnCandidatesByBookCopyIdIn(anyCollection(), eq("BORROWED")))
+            .thenReturn(List.of(scanned));
+        when(borrowRecordRepository.markReturned(eq(List.of(1L, 7L)), any(LocalDateTime.class)))
+            .thenReturn(new int[] {1, 0});
+        
+        // Act
+        BatchReturnResponse result = borrowService.returnBooks(List.of(1L, 2L, 3L), List.of(15L, 16L));
+        
+        // Assert
+        assertEquals(1, result.getReturnedCount());
+        assertEquals(4, result.getFailedCount());
+        assertTrue(result.getResults().get(0).isSuccess());
+        assertEquals("Book already returned", result.getResults().get(1).getMessage());
+        assertEquals("Borrow record not found", result.getResults().get(2).getMessage());
+        assertEquals("Book already returned", result.getResults().get(3).getMessage());
+        assertEquals(7L, result.getResults().get(3).getBorrowRecordId());
+        assertEquals("No active borrow found for this book copy", result.getResults().get(4).getMessage());
+        verify(bookCopyRepository).markAvailable(eq(List.of(11L)), any(LocalDateTime.class));
+        verify(loanCounterService).decrement(1L, BookType.TRADITIONAL, 1);
+        verify(borrowRecordRepository, never()).save(any(BorrowRecord.class));
+    }
+    
+    private BorrowRecordRepository.ReturnCandidate returnCandidate(Long id, Long bookCopyId, String status) {
+        BorrowRecordRepository.ReturnCandidate candidate = mock(BorrowRecordRepository.ReturnCandidate.class);
+        lenient().when(candidate.getId()).thenReturn(id);
+        lenient().when(candidate.getUserId()).thenReturn(1L);
+        lenient().when(candidate.getBookCopyId()).thenReturn(bookCopyId);
+        lenient().when(candidate.getBookType()).thenReturn(BookType.TRADITIONAL);
+        lenient().when(candidate.getStatus()).thenReturn(status);
+        return candidate;
+    }
+    
     @Test
     @DisplayName("Test return book - Success")
     void testReturnBook_Success() {
         // Arrange
-        when(borrowRecordRepository.findById(1L)).thenReturn(Optional.of(testBorrowRecord));
-        when(borrowRecordRepository.save(any(BorrowRecord.class))).thenReturn(testBorrowRecord);
-        when(bookCopyRepository.save(any(BookCopy.class))).thenReturn(testBookCopy);
+        when(borrowRecordRepository.findWithDetailsById(1L)).thenReturn(Optional.of(testBorrowRecord));
+        when(borrowRecordRepository.markReturnedIfBorrowed(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        // refresh reloads the state written by the conditional updates
+        doAnswer(invocation -> {
+            testBorrowRecord.setStatus("RETURNED");
+            testBorrowRecord.setReturnedAt(LocalDateTime.now());
+            return null;
+        }).when(entityManager).refresh(testBorrowRecord);
+        doAnswer(invocation -> {
+            testBookCopy.setStatus("AVAILABLE");
+            return null;
+        }).when(entityManager).refresh(testBookCopy);
         
         // Act
         BorrowRecord result = borrowService.returnBook(1L);
@@ -177,18 +357,39 @@ public class BorrowServiceTest {
         assertNotNull(result);
         assertEquals("RETURNED", result.getStatus());
         assertNotNull(result.getReturnedAt());
+        assertEquals("AVAILABLE", result.getBookCopy().getStatus());
         
         // Verify interactions
-        verify(borrowRecordRepository).findById(1L);
-        verify(borrowRecordRepository).save(any(BorrowRecord.class));
-        verify(bookCopyRepository).save(any(BookCopy.class));
+        verify(borrowRecordRepository).findWithDetailsById(1L);
+        verify(borrowRecordRepository).markReturnedIfBorrowed(eq(1L), any(LocalDateTime.class));
+        verify(bookCopyRepository).markAvailable(eq(List.of(1L)), any(LocalDateTime.class));
+        verify(loanCounterService).decrement(1L, BookType.TRADITIONAL, 1);
+        verify(borrowRecordRepository, never()).save(any(BorrowRecord.class));
+        verify(entityManager).refresh(testBorrowRecord);
+        verify(entityManager).refresh(testBookCopy);
+    }
+    
+    @Test
+    @DisplayName("Test return book - Concurrent return wins, counter is not released twice")
+    void testReturnBook_LostRace() {
+        // Arrange - Still BORROWED when loaded, but another return closes it first
+        when(borrowRecordRepository.findWithDetailsById(1L)).thenReturn(Optional.of(testBorrowRecord));
+        when(borrowRecordRepository.markReturnedIfBorrowed(eq(1L), any(LocalDateTime.class))).thenReturn(0);
+        
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            borrowService.returnBook(1L);
+        });
+        
+        assertEquals("Book already returned", exception.getMessage());
+        verifyNoInteractions(bookCopyRepository, loanCounterService);
     }
     
     @Test
     @DisplayName("Test return book - Borrow record not found")
     void testReturnBook_NotFound() {
         // Arrange
-        when(borrowRecordRepository.findById(999L)).thenReturn(Optional.empty());
+        when(borrowRecordRepository.findWithDetailsById(999L)).thenReturn(Optional.empty());
         
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -196,7 +397,7 @@ public class BorrowServiceTest {
         });
         
         assertEquals("Borrow record not found", exception.getMessage());
-        verify(borrowRecordRepository).findById(999L);
+        verify(borrowRecordRepository).findWithDetailsById(999L);
         verifyNoMoreInteractions(borrowRecordRepository);
         verifyNoInteractions(bookCopyRepository);
     }
@@ -261,30 +462,54 @@ public class BorrowServiceTest {
     @DisplayName("Test has overdue books - True")
     void testHasOverdueBooks_True() {
         // Arrange
-        List<BorrowRecord> overdueRecords = Arrays.asList(testBorrowRecord);
-        when(borrowRecordRepository.findOverdueRecords(eq(1L), eq("BORROWED"), any(LocalDateTime.class)))
-            .thenReturn(overdueRecords);
+        when(borrowRecordRepository.existsByUserIdAndStatusAndDueAtBefore(eq(1L), eq("BORROWED"), any(LocalDateTime.class)))
+            .thenReturn(true);
         
         // Act
         boolean result = borrowService.hasOverdueBooks(1L);
         
         // Assert
         assertTrue(result);
-        verify(borrowRecordRepository).findOverdueRecords(eq(1L), eq("BORROWED"), any(LocalDateTime.class));
+        verify(borrowRecordRepository).existsByUserIdAndStatusAndDueAtBefore(eq(1L), eq("BORROWED"), any(LocalDateTime.class));
+        verify(borrowRecordRepository, never()).findOverdueRecords(anyLong(), anyString(), any());
     }
     
     @Test
-    @DisplayName("Test has overdue books - False")
+    @DisplayName("Test has overdue books - False, then answered from the earliest due date")
     void testHasOverdueBooks_False() {
         // Arrange
-        when(borrowRecordRepository.findOverdueRecords(eq(1L), eq("BORROWED"), any(LocalDateTime.class)))
-            .thenReturn(Arrays.asList());
+        when(borrowRecordRepository.existsByUserIdAndStatusAndDueAtBefore(eq(1L), eq("BORROWED"), any(LocalDateTime.class)))
+            .thenReturn(false);
+        when(borrowRecordRepository.findEarliestDueAt(1L, "BORROWED"))
+            .thenReturn(LocalDateTime.now().plusDays(10));
         
         // Act
-        boolean result = borrowService.hasOverdueBooks(1L);
+        boolean first = borrowService.hasOverdueBooks(1L);
+        boolean second = borrowService.hasOverdueBooks(1L);
+        
+        // Assert
+        assertFalse(first);
+        assertFalse(second);
+        verify(borrowRecordRepository, times(1)).existsByUserIdAndStatusAndDueAtBefore(eq(1L), eq("BORROWED"), any(LocalDateTime.class));
+        verify(borrowRecordRepository, times(1)).findEarliestDueAt(1L, "BORROWED");
+    }
+    
+    @Test
+    @DisplayName("Test has overdue books - Cached due date has passed")
+    void testHasOverdueBooks_HintExpired() {
+        // Arrange
+        when(borrowRecordRepository.existsByUserIdAndStatusAndDueAtBefore(eq(1L), eq("BORROWED"), any(LocalDateTime.class)))
+            .thenReturn(false, true);
+        when(borrowRecordRepository.findEarliestDueAt(1L, "BORROWED"))
+            .thenReturn(LocalDateTime.now().minusSeconds(1));
+        
+        // Act
+        boolean first = borrowService.hasOverdueBooks(1L);
+        boolean second = borrowService.hasOverdueBooks(1L);
         
         // Assert
-        assertFalse(result);
-        verify(borrowRecordRepository).findOverdueRecords(eq(1L), eq("BORROWED"), any(LocalDateTime.class));
+        assertFalse(first);
+        assertTrue(second);
+        verify(borrowRecordRepository, times(2)).existsByUserIdAndStatusAndDueAtBefore(eq(1L), eq("BORROWED"), any(LocalDateTime.class));
     }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.constant.BookType;
+import com.library.dto.response.BookWithCopySummaryResponse;
+import com.library.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CatalogExportService
+ * Testing NDJSON and CSV output of the streamed catalog
+ */
+@ExtendWith(MockitoExtension.class)
+public class CatalogExportServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private CatalogExportService catalogExportService;
+
+    @BeforeEach
+    void setUp() {
+        catalogExportService = new CatalogExportService(bookRepository, new ObjectMapper());
+
+        BookWithCopySummaryResponse withCopies = new BookWithCopySummaryResponse(1L, "Clean Code, 2nd Edition",
+            "Robert Martin", 2008, "Programming", BookType.TRADITIONAL,
+            new BookWithCopySummaryResponse.CopySummary(3, 2, List.of(
+                new BookWithCopySummaryResponse.LibraryCopySummary(1L, "Central Library", 2, 1),
+                new BookWithCopySummaryResponse.LibraryCopySummary(2L, "East Branch", 1, 1))));
+        BookWithCopySummaryResponse withoutCopies = new BookWithCopySummaryResponse(2L, "Refactoring",
+            "Martin Fowler", null, "Programming", BookType.MODERN,
+            new BookWithCopySummaryResponse.CopySummary(0, 0, List.of()));
+
+        lenient().doAnswer(invocation -> {
+            Consumer<BookWithCopySummaryResponse> consumer = invocation.getArgument(0);
+            consumer.accept(withCopies);
+            consumer.accept(withoutCopies);
+            return null;
+        }).when(bookRepository).streamBooksWithCopySummary(any());
+    }
+
+    @Test
+    @DisplayName("Test export - NDJSON writes one book per line")
+    void testExport_Ndjson() throws Exception {
+        // Arrange
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        catalogExportService.export(output, "ndjson");
+
+        // Assert
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        BookWithCopySummaryResponse first = new ObjectMapper().readValue(lines[0], BookWithCopySummaryResponse.class);
+        assertEquals(1L, first.getId());
+        assertEquals(2, first.getCopySummary().getAvailableCopies());
+        assertEquals(2, first.getCopySummary().getLibraryCopies().size());
+    }
+
+    @Test
+    @DisplayName("Test export - CSV writes one line per book and library")
+    void testExport_Csv() throws Exception {
+        // Arrange
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        catalogExportService.export(output, "CSV");
+
+        // Assert
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("id,title,author"));
+        assertEquals("1,\"Clean Code, 2nd Edition\",Robert Martin,2008,Programming,圖書,1,Central Library,2,1", lines[1]);
+        assertEquals("1,\"Clean Code, 2nd Edition\",Robert Martin,2008,Programming,圖書,2,East Branch,1,1", lines[2]);
+        assertEquals("2,Refactoring,Martin Fowler,,Programming,書籍,,,0,0", lines[3]);
+    }
+
+    @Test
+    @DisplayName("Test export - Unsupported format")
+    void testExport_UnsupportedFormat() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> catalogExportService.export(new ByteArrayOutputStream(), "xml"));
+        assertTrue(exception.getMessage().contains("Unsupported export format"));
+        verify(bookRepository, never()).streamBooksWithCopySummary(any());
+    }
+
+    @Test
+    @DisplayName("Test CSV field quoting")
+    void testCsvField() {
+        assertEquals("plain", CatalogExportService.csvField("plain"));
+        assertEquals("\"say \"\"hi\"\"\"", CatalogExportService.csvField("say \"hi\""));
+        assertEquals("", CatalogExportService.csvField(null));
+    }
+}
@@ -0,0 +1,201 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.constant.BookType;
+import com.library.dto.response.CatalogImportResponse;
+import com.library.entity.Book;
+import com.library.entity.BookCopy;
+import com.library.entity.Library;
+import com.library.repository.BookCopyRepository;
+import com.library.repository.BookRepository;
+import com.library.repository.LibraryRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CatalogImportService
+ * Testing row parsing, validation, deduplication and copy numbering
+ */
+@ExtendWith(MockitoExtension.class)
+public class CatalogImportServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookCopyRepository bookCopyRepository;
+
+    @Mock
+    private LibraryRepository libraryRepository;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CatalogImportService catalogImportService;
+
+    private Library library;
+
+    @BeforeEach
+    void setUp() {
+        catalogImportService = new CatalogImportService(bookRepository, bookCopyRepository, libraryRepository,
+            bookSearchIndex, new ObjectMapper(), entityManager, transactionManager);
+
+        library = new Library();
+        library.setId(1L);
+        library.setName("Central Library");
+        lenient().when(libraryRepository.findAll()).thenReturn(List.of(library));
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Test CSV import - New books and copies are created")
+    @SuppressWarnings("unchecked")
+    void testImportCsv_CreatesBooksAndCopies() {
+        // Arrange
+        String csv = "title,author,publishedYear,category,bookType,libraryId,copies\n" +
+                     "\"Clean Code, 2nd Edition\",Robert Martin,2008,Programming,圖書,1,2\n" +
+                     "Refactoring,Martin Fowler,2018,Programming,,1,1\n";
+        when(bookRepository.findByTitleIn(anyCollection())).thenReturn(List.of());
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(libraryRepository.getReferenceById(1L)).thenReturn(library);
+
+        // Act
+        CatalogImportResponse result = catalogImportService.importCatalog(input(csv), "csv");
+
+        // Assert
+        assertEquals(2, result.getRowsRead());
+        assertEquals(2, result.getRowsImported());
+        assertEquals(0, result.getRowsRejected());
+        assertEquals(2, result.getBooksCreated());
+        assertEquals(3, result.getCopiesCreated());
+
+        ArgumentCaptor<Book> bookCaptor = ArgumentCaptor.forClass(Book.class);
+        verify(bookRepository, times(2)).save(bookCaptor.capture());
+        assertEquals("Clean Code, 2nd Edition", bookCaptor.getAllValues().get(0).getTitle());
+        assertEquals(BookType.DEFAULT, bookCaptor.getAllValues().get(1).getBookType());
+
+        ArgumentCaptor<List<BookCopy>> copiesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(bookCopyRepository).saveAll(copiesCaptor.capture());
+        assertEquals(List.of(1, 2, 1), copiesCaptor.getValue().stream().map(BookCopy::getCopyNumber).toList());
+        verify(bookCopyRepository, never()).findMaxCopyNumber(anyLong(), anyLong());
+        verify(entityManager).flush();
+        verify(entityManager).clear();
+    }
+
+    @Test
+    @DisplayName("Test JSON-lines import - Existing book gets copies numbered after its current copies")
+    @SuppressWarnings("unchecked")
+    void testImportNdjson_ExistingBookMatched() {
+        // Arrange
+        Book existing = new Book("Refactoring", "Martin Fowler", 2018, "Programming", BookType.TRADITIONAL);
+        existing.setId(5L);
+        String ndjson = "{\"title\":\"Refactoring\",\"author\":\"Martin Fowler\",\"publishedYear\":2018," +
+                        "\"category\":\"Programming\",\"libraryId\":1,\"copies\":2}\n" +
+                        "{\"title\":\"Refactoring\",\"author\":\"Martin Fowler\",\"publishedYear\":2018," +
+                        "\"category\":\"Programming\",\"libraryId\":1}\n";
+        when(bookRepository.findByTitleIn(anyCollection())).thenReturn(List.of(existing));
+        when(bookRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(existing));
+        when(bookCopyRepository.findMaxCopyNumber(5L, 1L)).thenReturn(3);
+        when(libraryRepository.getReferenceById(1L)).thenReturn(library);
+
+        // Act
+        CatalogImportResponse result = catalogImportService.importCatalog(input(ndjson), "ndjson");
+
+        // Assert
+        assertEquals(2, result.getRowsImported());
+        assertEquals(0, result.getBooksCreated());
+        assertEquals(1, result.getBooksMatched());
+        assertEquals(3, result.getCopiesCreated());
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookCopyRepository, times(1)).findMaxCopyNumber(5L, 1L);
+
+        ArgumentCaptor<List<BookCopy>> copiesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(bookCopyRepository).saveAll(copiesCaptor.capture());
+        assertEquals(List.of(4, 5, 6), copiesCaptor.getValue().stream().map(BookCopy::getCopyNumber).toList());
+    }
+
+    @Test
+    @DisplayName("Test import - Invalid rows are rejected with line numbers")
+    void testImport_InvalidRowsRejected() {
+        // Arrange
+        String csv = "title,author,category,bookType,libraryId,copies\n" +
+                     ",No Title,Fiction,,,\n" +
+                     "Magazine,Someone,Fiction,Magazine,,\n" +
+                     "Lost,Someone,Fiction,,99,1\n" +
+                     "Broken,\"Someone,Fiction,,,\n";
+
+        // Act
+        CatalogImportResponse result = catalogImportService.importCatalog(input(csv), "csv");
+
+        // Assert
+        assertEquals(4, result.getRowsRead());
+        assertEquals(0, result.getRowsImported());
+        assertEquals(4, result.getRowsRejected());
+        assertEquals(List.of(2L, 3L, 4L, 5L),
+            result.getErrors().stream().map(CatalogImportResponse.RowError::getLine).toList());
+        assertEquals("Book title is required", result.getErrors().get(0).getMessage());
+        assertEquals("Invalid book type: Magazine", result.getErrors().get(1).getMessage());
+        assertEquals("Library not found with ID: 99", result.getErrors().get(2).getMessage());
+        verifyNoInteractions(bookCopyRepository);
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Test import - Failed chunk rejects its rows")
+    void testImport_ChunkFailure() {
+        // Arrange
+        String ndjson = "{\"title\":\"Refactoring\",\"author\":\"Martin Fowler\",\"category\":\"Programming\"}\n";
+        when(bookRepository.findByTitleIn(anyCollection())).thenThrow(new RuntimeException("connection lost"));
+
+        // Act
+        CatalogImportResponse result = catalogImportService.importCatalog(input(ndjson), "ndjson");
+
+        // Assert
+        assertEquals(1, result.getRowsRead());
+        assertEquals(0, result.getRowsImported());
+        assertEquals(1, result.getRowsRejected());
+        assertTrue(result.getErrors().get(0).getMessage().contains("connection lost"));
+    }
+
+    @Test
+    @DisplayName("Test import - Unsupported format")
+    void testImport_UnsupportedFormat() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> catalogImportService.importCatalog(input(""), "xml"));
+        assertTrue(exception.getMessage().contains("Unsupported import format"));
+    }
+
+    @Test
+    @DisplayName("Test CSV line parsing - Quoted fields and escaped quotes")
+    void testParseCsvLine() {
+        assertEquals(List.of("a", "b, c", "say \"hi\"", ""),
+            CatalogImportService.parseCsvLine("a,\"b, c\",\"say \"\"hi\"\"\","));
+    }
+}
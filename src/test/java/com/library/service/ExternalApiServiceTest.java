@@ -1,11 +1,21 @@
 package com.library.service;
 
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,9 +32,145 @@ public class ExternalApiServiceTest {
     @InjectMocks
     private ExternalApiService externalApiService;
 
+    // Local stub of the verification API: responds with the status configured per librarianId
+    private HttpServer stubServer;
+    private final Map<String, Integer> stubStatuses = new ConcurrentHashMap<>();
+    private final AtomicInteger stubCalls = new AtomicInteger();
+    private volatile long stubDelayMillis;
+
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
         // Initialize test environment
+        stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubServer.createContext("/verify", exchange -> {
+            stubCalls.incrementAndGet();
+            String query = exchange.getRequestURI().getQuery();
+            String librarianId = query != null && query.startsWith("librarianId=") ? query.substring("librarianId=".length()) : "";
+            try {
+                Thread.sleep(stubDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int status = "Bearer stub".equals(exchange.getRequestHeaders().getFirst("Authorization"))
+                ? stubStatuses.getOrDefault(librarianId, 404) : 401;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        stubServer.setExecutor(Executors.newCachedThreadPool());
+        stubServer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubServer.stop(0);
+        externalApiService.shutdown();
+    }
+
+    private ExternalApiService remoteService(int failureThreshold) {
+        ExternalApiService service = new ExternalApiService();
+        ReflectionTestUtils.setField(service, "verificationUrl",
+            "http://127.0.0.1:" + stubServer.getAddress().getPort() + "/verify");
+        ReflectionTestUtils.setField(service, "authorizationHeader", "Bearer stub");
+        ReflectionTestUtils.setField(service, "mode", "remote");
+        ReflectionTestUtils.setField(service, "responseTimeout", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(service, "failureThreshold", failureThreshold);
+        ReflectionTestUtils.setField(service, "openDuration", Duration.ofMinutes(1));
+        // The first call in a JVM spends most of a second loading the HTTP client; keep that out of
+        // the 500ms timeout the tests use, whichever test happens to run first
+        stubStatuses.put("WARMUP", 200);
+        assertEquals(ExternalApiService.VerificationOutcome.VERIFIED, service.verifyLibrarianRemote("WARMUP").block());
+        stubCalls.set(0);
+        ReflectionTestUtils.setField(service, "responseTimeout", Duration.ofMillis(500));
+        return service;
+    }
+
+    @Test
+    @DisplayName("Test remote verification - 2xx verifies and the answer is cached")
+    void testVerifyLibrarianRemote_VerifiedAndCached() {
+        // Arrange
+        ExternalApiService service = remoteService(5);
+        stubStatuses.put("LIB001", 200);
+
+        try {
+            // Act
+            ExternalApiService.VerificationOutcome first = service.verifyLibrarianRemote("LIB001").block();
+            ExternalApiService.VerificationOutcome second = service.verifyLibrarianRemote("LIB001").block();
+
+            // Assert
+            assertEquals(ExternalApiService.VerificationOutcome.VERIFIED, first);
+            assertEquals(ExternalApiService.VerificationOutcome.VERIFIED, second);
+            assertEquals(1, stubCalls.get());
+            assertTrue(service.verifyLibrarian("LIB001"));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test remote verification - 404 rejects, 401 and 5xx are unavailable")
+    void testVerifyLibrarianRemote_Classification() {
+        // Arrange
+        ExternalApiService service = remoteService(5);
+        // A generous timeout, so an outcome that arrives well before it was classified, not timed out
+        ReflectionTestUtils.setField(service, "responseTimeout", Duration.ofSeconds(10));
+        stubStatuses.put("LIB500", 500);
+
+        try {
+            // Act & Assert
+            long started = System.nanoTime();
+            assertEquals(ExternalApiService.VerificationOutcome.REJECTED, service.verifyLibrarianRemote("UNKNOWN").block());
+            assertEquals(ExternalApiService.VerificationOutcome.UNAVAILABLE, service.verifyLibrarianRemote("LIB500").block());
+            ReflectionTestUtils.setField(service, "authorizationHeader", "Bearer wrong");
+            assertEquals(ExternalApiService.VerificationOutcome.UNAVAILABLE, service.verifyLibrarianRemote("LIB002").block());
+            assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 5000);
+            assertEquals(3, stubCalls.get());
+            assertFalse(service.verifyLibrarian("LIB500"));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test remote verification - Slow upstream times out as unavailable")
+    void testVerifyLibrarianRemote_Timeout() {
+        // Arrange
+        ExternalApiService service = remoteService(5);
+        stubStatuses.put("LIB001", 200);
+        stubDelayMillis = 2000;
+
+        try {
+            // Act
+            long started = System.nanoTime();
+            ExternalApiService.VerificationOutcome outcome = service.verifyLibrarianRemote("LIB001").block();
+
+            // Assert
+            assertEquals(ExternalApiService.VerificationOutcome.UNAVAILABLE, outcome);
+            assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 1500);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test remote verification - Circuit opens after repeated failures")
+    void testVerifyLibrarianRemote_CircuitBreaker() {
+        // Arrange
+        ExternalApiService service = remoteService(2);
+        stubStatuses.put("LIB500", 500);
+
+        try {
+            // Act
+            service.verifyLibrarianRemote("LIB500").block();
+            service.verifyLibrarianRemote("LIB500").block();
+            ExternalApiService.VerificationOutcome shortCircuited = service.verifyLibrarianRemote("LIB500").block();
+
+            // Assert
+            assertTrue(service.isCircuitOpen());
+            assertEquals(ExternalApiService.VerificationOutcome.UNAVAILABLE, shortCircuited);
+            assertEquals(2, stubCalls.get());
+        } finally {
+            service.shutdown();
+        }
     }
 
     @Test
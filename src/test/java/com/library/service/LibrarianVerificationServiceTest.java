@@ -0,0 +1,205 @@
+package com.library.service;
+
+import com.library.entity.User;
+import com.library.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LibrarianVerificationService
+ * Testing claiming, outcome recording, retry backoff and giving up after max-attempts
+ */
+@ExtendWith(MockitoExtension.class)
+public class LibrarianVerificationServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ExternalApiService externalApiService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private ObjectProvider<UserService> userServiceProvider;
+
+    private LibrarianVerificationService librarianVerificationService;
+
+    @BeforeEach
+    void setUp() {
+        librarianVerificationService = new LibrarianVerificationService(userRepository, externalApiService,
+            userServiceProvider, 10, 4, 3, Duration.ofSeconds(30), Duration.ofMinutes(2), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        librarianVerificationService.shutdown();
+    }
+
+    private User librarian(Long id, String librarianId, int attempts) {
+        User user = new User();
+        user.setId(id);
+        user.setLibrarianId(librarianId);
+        user.setIsVerified(false);
+        user.setVerificationAttempts(attempts);
+        user.setNextVerificationAt(LocalDateTime.now());
+        return user;
+    }
+
+    @Test
+    @DisplayName("Test processDue - Verified and rejected outcomes are recorded")
+    void testProcessDue_VerifiedAndRejected() {
+        // Arrange
+        when(userRepository.findDueForVerification(any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.of(librarian(1L, "LIB001", 0), librarian(2L, "XYZ001", 0)));
+        when(externalApiService.verifyLibrarianAsync("LIB001"))
+            .thenReturn(Mono.just(ExternalApiService.VerificationOutcome.VERIFIED));
+        when(externalApiService.verifyLibrarianAsync("XYZ001"))
+            .thenReturn(Mono.just(ExternalApiService.VerificationOutcome.REJECTED));
+        when(userServiceProvider.getObject()).thenReturn(userService);
+        when(userService.claimForVerification(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(true);
+
+        // Act
+        int processed = librarianVerificationService.processDue();
+
+        // Assert
+        assertEquals(2, processed);
+        verify(userService).updateVerificationStatus(1L, true);
+        verify(userService).rescheduleVerification(2L, null);
+        verify(userService, never()).updateVerificationStatus(eq(2L), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Test processDue - Unavailable upstream is retried after a backoff")
+    void testProcessDue_UnavailableRetried() {
+        // Arrange
+        when(userRepository.findDueForVerification(any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.of(librarian(1L, "LIB001", 1)));
+        when(externalApiService.verifyLibrarianAsync("LIB001"))
+            .thenReturn(Mono.error(new IllegalStateException("connection refused")));
+        when(userServiceProvider.getObject()).thenReturn(userService);
+        when(userService.claimForVerification(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(true);
+        LocalDateTime before = LocalDateTime.now();
+
+        // Act
+        librarianVerificationService.processDue();
+
+        // Assert - second attempt backs off twice the initial delay
+        ArgumentCaptor<LocalDateTime> nextAttemptAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(userService).rescheduleVerification(eq(1L), nextAttemptAt.capture());
+        assertNotNull(nextAttemptAt.getValue());
+        assertFalse(nextAttemptAt.getValue().isBefore(before.plusSeconds(60)));
+        verify(userService, never()).updateVerificationStatus(anyLong(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Test processDue - Stops retrying after max-attempts")
+    void testProcessDue_GivesUpAfterMaxAttempts() {
+        // Arrange
+        when(userRepository.findDueForVerification(any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.of(librarian(1L, "LIB001", 2)));
+        when(externalApiService.verifyLibrarianAsync("LIB001"))
+            .thenReturn(Mono.just(ExternalApiService.VerificationOutcome.UNAVAILABLE));
+        when(userServiceProvider.getObject()).thenReturn(userService);
+        when(userService.claimForVerification(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(true);
+
+        // Act
+        librarianVerificationService.processDue();
+
+        // Assert
+        verify(userService).rescheduleVerification(1L, null);
+    }
+
+    @Test
+    @DisplayName("Test processDue - Rows claimed by another instance are skipped")
+    void testProcessDue_ClaimedElsewhere() {
+        // Arrange - another instance claimed librarian 2 between the query and the claim
+        when(userRepository.findDueForVerification(any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.of(librarian(1L, "LIB001", 0), librarian(2L, "LIB002", 0)));
+        when(userServiceProvider.getObject()).thenReturn(userService);
+        when(userService.claimForVerification(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(true);
+        when(userService.claimForVerification(eq(2L), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(false);
+        when(externalApiService.verifyLibrarianAsync("LIB001"))
+            .thenReturn(Mono.just(ExternalApiService.VerificationOutcome.VERIFIED));
+
+        // Act
+        int processed = librarianVerificationService.processDue();
+
+        // Assert - only the claimed row is verified and recorded
+        assertEquals(1, processed);
+        verify(externalApiService, never()).verifyLibrarianAsync("LIB002");
+        verify(userService).updateVerificationStatus(1L, true);
+        verify(userService, never()).updateVerificationStatus(eq(2L), anyBoolean());
+        verify(userService, never()).rescheduleVerification(eq(2L), any());
+    }
+
+    @Test
+    @DisplayName("Test processDue - The claim lease outlasts the batch timeout")
+    void testProcessDue_ClaimLease() {
+        // Arrange
+        when(userRepository.findDueForVerification(any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.of(librarian(1L, "LIB001", 0)));
+        when(userServiceProvider.getObject()).thenReturn(userService);
+        when(userService.claimForVerification(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(true);
+        when(externalApiService.verifyLibrarianAsync("LIB001"))
+            .thenReturn(Mono.just(ExternalApiService.VerificationOutcome.VERIFIED));
+
+        // Act
+        librarianVerificationService.processDue();
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> leaseUntil = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(userService).claimForVerification(eq(1L), now.capture(), leaseUntil.capture());
+        assertTrue(Duration.between(now.getValue(), leaseUntil.getValue()).compareTo(Duration.ofSeconds(5)) > 0);
+    }
+
+    @Test
+    @DisplayName("Test processDue - Nothing due makes no external calls")
+    void testProcessDue_NothingDue() {
+        // Arrange
+        when(userRepository.findDueForVerification(any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.of());
+
+        // Act
+        int processed = librarianVerificationService.processDue();
+
+        // Assert
+        assertEquals(0, processed);
+        verifyNoInteractions(externalApiService, userServiceProvider);
+    }
+
+    @Test
+    @DisplayName("Test backoff - Doubles per attempt and is capped at max-backoff")
+    void testBackoff_Capped() {
+        // Act & Assert
+        assertEquals(Duration.ofSeconds(30), librarianVerificationService.backoff(1));
+        assertEquals(Duration.ofSeconds(60), librarianVerificationService.backoff(2));
+        assertEquals(Duration.ofMinutes(2), librarianVerificationService.backoff(3));
+        assertEquals(Duration.ofMinutes(2), librarianVerificationService.backoff(20));
+    }
+}
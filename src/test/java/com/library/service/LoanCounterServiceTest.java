@@ -0,0 +1,101 @@
+package com.library.service;
+
+import com.library.constant.BookType;
+import com.library.entity.UserLoanCounter;
+import com.library.repository.BorrowRecordRepository;
+import com.library.repository.UserLoanCounterRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LoanCounterService
+ * Testing loan slot reservation and counter seeding
+ */
+@ExtendWith(MockitoExtension.class)
+public class LoanCounterServiceTest {
+
+    @Mock
+    private UserLoanCounterRepository userLoanCounterRepository;
+
+    @Mock
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LoanCounterService loanCounterService;
+
+    @BeforeEach
+    void setUp() {
+        loanCounterService = new LoanCounterService(userLoanCounterRepository, borrowRecordRepository, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Test try increment - Counter below limit")
+    void testTryIncrement_Success() {
+        // Arrange
+        when(userLoanCounterRepository.incrementIfBelow(1L, BookType.TRADITIONAL, 5)).thenReturn(1);
+
+        // Act & Assert
+        assertTrue(loanCounterService.tryIncrement(1L, BookType.TRADITIONAL, 5));
+        verifyNoInteractions(borrowRecordRepository);
+    }
+
+    @Test
+    @DisplayName("Test try increment - Limit reached")
+    void testTryIncrement_LimitReached() {
+        // Arrange
+        when(userLoanCounterRepository.incrementIfBelow(1L, BookType.TRADITIONAL, 5)).thenReturn(0);
+        when(userLoanCounterRepository.existsByUserIdAndBookType(1L, BookType.TRADITIONAL)).thenReturn(true);
+
+        // Act & Assert
+        assertFalse(loanCounterService.tryIncrement(1L, BookType.TRADITIONAL, 5));
+        verify(userLoanCounterRepository, never()).saveAndFlush(any(UserLoanCounter.class));
+    }
+
+    @Test
+    @DisplayName("Test try increment - Missing counter is seeded from borrow records")
+    void testTryIncrement_SeedsCounter() {
+        // Arrange
+        BorrowRecordRepository.BookTypeCount count = mock(BorrowRecordRepository.BookTypeCount.class);
+        when(count.getBookType()).thenReturn(BookType.MODERN);
+        when(count.getBorrowCount()).thenReturn(3L);
+        when(userLoanCounterRepository.incrementIfBelow(1L, BookType.MODERN, 10)).thenReturn(0, 1);
+        when(userLoanCounterRepository.existsByUserIdAndBookType(1L, BookType.MODERN)).thenReturn(false);
+        when(borrowRecordRepository.countByUserIdAndStatusGroupByBookType(1L, "BORROWED")).thenReturn(List.of(count));
+
+        // Act
+        boolean result = loanCounterService.tryIncrement(1L, BookType.MODERN, 10);
+
+        // Assert
+        assertTrue(result);
+        ArgumentCaptor<UserLoanCounter> captor = ArgumentCaptor.forClass(UserLoanCounter.class);
+        verify(userLoanCounterRepository).saveAndFlush(captor.capture());
+        assertEquals(3, captor.getValue().getActiveCount());
+        verify(userLoanCounterRepository, times(2)).incrementIfBelow(1L, BookType.MODERN, 10);
+    }
+
+    @Test
+    @DisplayName("Test decrement - Releases loan slots")
+    void testDecrement() {
+        // Act
+        loanCounterService.decrement(1L, BookType.TRADITIONAL, 2);
+        loanCounterService.decrement(1L, BookType.TRADITIONAL, 0);
+
+        // Assert
+        verify(userLoanCounterRepository, times(1)).decrement(1L, BookType.TRADITIONAL, 2);
+        verifyNoMoreInteractions(userLoanCounterRepository);
+    }
+}
@@ -0,0 +1,174 @@
+package com.library.service;
+
+import com.library.entity.RefreshToken;
+import com.library.entity.Role;
+import com.library.entity.User;
+import com.library.repository.RefreshTokenRepository;
+import com.library.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RefreshTokenService
+ * Testing issue, rotation, reuse detection and the hot cache
+ */
+@ExtendWith(MockitoExtension.class)
+public class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private RefreshTokenService refreshTokenService;
+
+    private User member;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, userRepository, 60000L, 100);
+
+        member = new User();
+        member.setId(1L);
+        member.setEmail("john@example.com");
+        member.setRole(new Role(2L, "MEMBER", null, null));
+        member.setIsVerified(false);
+    }
+
+    @Test
+    @DisplayName("Test issue - Only the token hash is stored")
+    void testIssue_StoresHash() {
+        // Act
+        String token = refreshTokenService.issue(1L);
+
+        // Assert
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        assertEquals(RefreshTokenService.hash(token), captor.getValue().getTokenHash());
+        assertNotEquals(token, captor.getValue().getTokenHash());
+        assertEquals(1L, captor.getValue().getUserId());
+        assertTrue(captor.getValue().getExpiresAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("Test rotate - Cached token is rotated without a lookup query")
+    void testRotate_FromCache() {
+        // Arrange
+        String token = refreshTokenService.issue(1L);
+        when(refreshTokenRepository.revokeIfActive(eq(RefreshTokenService.hash(token)), any())).thenReturn(1);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(member));
+
+        // Act
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(token);
+
+        // Assert
+        assertEquals(1L, rotation.principal().getId());
+        assertEquals("MEMBER", rotation.principal().getRole());
+        assertNotEquals(token, rotation.refreshToken());
+        verify(refreshTokenRepository, never()).findByTokenHash(anyString());
+
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository, times(2)).save(captor.capture());
+        assertEquals(captor.getAllValues().get(0).getFamilyId(), captor.getAllValues().get(1).getFamilyId());
+    }
+
+    @Test
+    @DisplayName("Test rotate - Token not in the cache is looked up")
+    void testRotate_FromDatabase() {
+        // Arrange
+        String token = "token-issued-by-another-instance";
+        String hash = RefreshTokenService.hash(token);
+        when(refreshTokenRepository.findByTokenHash(hash)).thenReturn(Optional.of(
+            new RefreshToken(hash, 1L, "family-1", LocalDateTime.now().plusDays(1))));
+        when(refreshTokenRepository.revokeIfActive(eq(hash), any())).thenReturn(1);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(member));
+
+        // Act
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(token);
+
+        // Assert
+        assertNotNull(rotation.refreshToken());
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        assertEquals("family-1", captor.getValue().getFamilyId());
+    }
+
+    @Test
+    @DisplayName("Test rotate - Reused token revokes its family")
+    void testRotate_ReuseRevokesFamily() {
+        // Arrange
+        String token = "already-rotated";
+        String hash = RefreshTokenService.hash(token);
+        when(refreshTokenRepository.findByTokenHash(hash)).thenReturn(Optional.of(
+            new RefreshToken(hash, 1L, "family-1", LocalDateTime.now().plusDays(1))));
+        when(refreshTokenRepository.revokeIfActive(eq(hash), any())).thenReturn(0);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> refreshTokenService.rotate(token));
+        assertTrue(exception.getMessage().contains("reuse detected"));
+        verify(refreshTokenRepository).revokeFamily(eq("family-1"), any());
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Test rotate - Unknown or expired token is rejected")
+    void testRotate_InvalidToken() {
+        // Arrange
+        String expired = "expired";
+        String hash = RefreshTokenService.hash(expired);
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+        when(refreshTokenRepository.findByTokenHash(hash)).thenReturn(Optional.of(
+            new RefreshToken(hash, 1L, "family-1", LocalDateTime.now().minusMinutes(1))));
+        when(refreshTokenRepository.revokeIfActive(eq(hash), any())).thenReturn(1);
+
+        // Act & Assert
+        RuntimeException unknown = assertThrows(RuntimeException.class, () -> refreshTokenService.rotate("unknown"));
+        assertEquals("Invalid or expired refresh token", unknown.getMessage());
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> refreshTokenService.rotate(expired));
+        assertEquals("Invalid or expired refresh token", exception.getMessage());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Test rotate - Unverified librarian cannot refresh")
+    void testRotate_DisabledUser() {
+        // Arrange
+        member.setRole(new Role(1L, "LIBRARIAN", null, null));
+        String token = refreshTokenService.issue(1L);
+        when(refreshTokenRepository.revokeIfActive(anyString(), any())).thenReturn(1);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(member));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> refreshTokenService.rotate(token));
+        verify(refreshTokenRepository).revokeFamily(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Test revokeAllForUser - Clears the user's cached tokens")
+    void testRevokeAllForUser() {
+        // Arrange
+        refreshTokenService.issue(1L);
+        refreshTokenService.issue(2L);
+
+        // Act
+        refreshTokenService.revokeAllForUser(1L);
+
+        // Assert
+        verify(refreshTokenRepository).revokeAllForUser(eq(1L), any());
+        assertEquals(1, refreshTokenService.cacheSize());
+    }
+}
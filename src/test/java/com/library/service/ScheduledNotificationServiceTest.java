@@ -1,23 +1,21 @@
 package com.library.service;
 
-import com.library.entity.BorrowRecord;
-import com.library.entity.User;
-import com.library.entity.BookCopy;
-import com.library.entity.Book;
-import com.library.entity.Library;
 import com.library.repository.BorrowRecordRepository;
+import com.library.repository.BorrowRecordRepositoryCustom.DueLoan;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -32,231 +30,206 @@ public class ScheduledNotificationServiceTest {
 
     @Mock
     private BorrowRecordRepository borrowRecordRepository;
-    
+
     @InjectMocks
     private ScheduledNotificationService scheduledNotificationService;
-    
-    private BorrowRecord testBorrowRecord;
-    private User testUser;
-    private BookCopy testBookCopy;
-    private Book testBook;
-    private Library testLibrary;
-    
+
+    private DueLoan testDueLoan;
+
     @BeforeEach
     void setUp() {
-        // Create test library
-        testLibrary = new Library();
-        testLibrary.setId(1L);
-        testLibrary.setName("Test Library");
-        
-        // Create test user
-        testUser = new User();
-        testUser.setId(1L);
-        testUser.setName("Test User");
-        testUser.setEmail("test@example.com");
-        
-        // Create test book
-        testBook = new Book();
-        testBook.setId(1L);
-        testBook.setTitle("Test Book");
-        testBook.setAuthor("Test Author");
-        
-        // Create test book copy
-        testBookCopy = new BookCopy();
-        testBookCopy.setId(1L);
-        testBookCopy.setBook(testBook);
-        testBookCopy.setStatus("BORROWED");
-        testBookCopy.setLibrary(testLibrary);
-        testBookCopy.setCopyNumber(1);
-        
-        // Create test borrow record with due date in 5 days
-        testBorrowRecord = new BorrowRecord();
-        testBorrowRecord.setId(1L);
-        testBorrowRecord.setUser(testUser);
-        testBorrowRecord.setBookCopy(testBookCopy);
-        testBorrowRecord.setBorrowedAt(LocalDateTime.now().minusDays(25));
-        testBorrowRecord.setDueAt(LocalDateTime.now().plusDays(5));
-        testBorrowRecord.setStatus("BORROWED");
-        
+        // Create test due loan with due date in 5 days
+        testDueLoan = new DueLoan(1L, "Test User", "test@example.com", "Test Book", 1,
+            "Test Library", LocalDateTime.now().minusDays(25), LocalDateTime.now().plusDays(5));
+
         // Reset mocks
         reset(borrowRecordRepository);
     }
-    
+
+    /**
+     * Stub the cursor to hand the given chunks to the consumer
+     */
+    @SafeVarargs
+    private void stubDueLoans(List<DueLoan>... chunks) {
+        doAnswer(invocation -> {
+            Consumer<List<DueLoan>> consumer = invocation.getArgument(4);
+            for (List<DueLoan> chunk : chunks) {
+                consumer.accept(chunk);
+            }
+            return null;
+        }).when(borrowRecordRepository).streamDueLoans(
+            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class), anyInt(), any());
+    }
+
+    private void verifyStreamed() {
+        verify(borrowRecordRepository).streamDueLoans(
+            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class), anyInt(), any());
+    }
+
     @Test
     @DisplayName("Test check overdue notifications - Books found")
     void testCheckOverdueNotifications_BooksFound() {
         // Arrange
-        List<BorrowRecord> dueRecords = Arrays.asList(testBorrowRecord);
-        when(borrowRecordRepository.findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class)))
-            .thenReturn(dueRecords);
-        
+        stubDueLoans(List.of(testDueLoan));
+
         // Act
         assertDoesNotThrow(() -> {
             scheduledNotificationService.checkOverdueNotifications();
         });
-        
+
         // Assert
-        verify(borrowRecordRepository).findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class));
+        verifyStreamed();
     }
-    
+
     @Test
     @DisplayName("Test check overdue notifications - No books found")
     void testCheckOverdueNotifications_NoBooksFound() {
         // Arrange
-        when(borrowRecordRepository.findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class)))
-            .thenReturn(Collections.emptyList());
-        
+        stubDueLoans();
+
         // Act
         assertDoesNotThrow(() -> {
             scheduledNotificationService.checkOverdueNotifications();
         });
-        
+
         // Assert
-        verify(borrowRecordRepository).findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class));
+        verifyStreamed();
     }
-    
+
     @Test
     @DisplayName("Test scheduled check overdue notifications")
     void testScheduledCheckOverdueNotifications() {
         // Arrange
-        when(borrowRecordRepository.findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class)))
-            .thenReturn(Collections.emptyList());
-        
+        stubDueLoans();
+
         // Act
         assertDoesNotThrow(() -> {
             scheduledNotificationService.scheduledCheckOverdueNotifications();
         });
-        
+
         // Assert
-        verify(borrowRecordRepository).findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class));
+        verifyStreamed();
     }
-    
+
     @Test
     @DisplayName("Test notification with multiple records")
     void testNotificationWithMultipleRecords() {
         // Arrange
-        BorrowRecord secondRecord = new BorrowRecord();
-        secondRecord.setId(2L);
-        secondRecord.setUser(testUser);
-        secondRecord.setBookCopy(testBookCopy);
-        secondRecord.setBorrowedAt(LocalDateTime.now().minusDays(20));
-        secondRecord.setDueAt(LocalDateTime.now().plusDays(5));
-        secondRecord.setStatus("BORROWED");
-        
-        List<BorrowRecord> dueRecords = Arrays.asList(testBorrowRecord, secondRecord);
-        when(borrowRecordRepository.findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class)))
-            .thenReturn(dueRecords);
-        
+        DueLoan secondLoan = new DueLoan(2L, "Test User", "test@example.com", "Test Book", 1,
+            "Test Library", LocalDateTime.now().minusDays(20), LocalDateTime.now().plusDays(5));
+        stubDueLoans(Arrays.asList(testDueLoan, secondLoan));
+
         // Act
         assertDoesNotThrow(() -> {
             scheduledNotificationService.checkOverdueNotifications();
         });
-        
+
         // Assert
-        verify(borrowRecordRepository).findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class));
+        verifyStreamed();
     }
-    
+
+    @Test
+    @DisplayName("Test notification across several chunks")
+    void testNotificationAcrossChunks() {
+        // Arrange
+        DueLoan secondLoan = new DueLoan(2L, "Other User", "other@example.com", "Other Book", 2,
+            "Test Library", LocalDateTime.now().minusDays(20), LocalDateTime.now().plusDays(5));
+        stubDueLoans(List.of(testDueLoan), List.of(secondLoan));
+
+        // Act
+        assertDoesNotThrow(() -> {
+            scheduledNotificationService.checkOverdueNotifications();
+        });
+
+        // Assert - a single cursor query serves every chunk
+        verifyStreamed();
+        verifyNoMoreInteractions(borrowRecordRepository);
+    }
+
     @Test
     @DisplayName("Test repository exception handling")
     void testRepositoryExceptionHandling() {
         // Arrange
-        when(borrowRecordRepository.findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class)))
-            .thenThrow(new RuntimeException("Database error"));
-        
+        doThrow(new RuntimeException("Database error")).when(borrowRecordRepository).streamDueLoans(
+            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class), anyInt(), any());
+
         // Act & Assert - Should handle exception gracefully
         assertDoesNotThrow(() -> {
             scheduledNotificationService.checkOverdueNotifications();
         });
-        
-        verify(borrowRecordRepository).findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class));
+
+        verifyStreamed();
     }
-    
+
     @Test
     @DisplayName("Test notification date calculation")
     void testNotificationDateCalculation() {
         // This test verifies that the method calculates the correct date range
         // 5 days from now to 6 days from now
-        
+
         // Arrange
-        when(borrowRecordRepository.findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class)))
-            .thenReturn(Collections.emptyList());
-        
+        stubDueLoans();
+        LocalDateTime before = LocalDateTime.now();
+
         // Act
         assertDoesNotThrow(() -> {
             scheduledNotificationService.checkOverdueNotifications();
         });
-        
+
         // Assert - Verify the method was called with correct parameters
-        verify(borrowRecordRepository).findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class));
+        ArgumentCaptor<LocalDateTime> startDate = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> endDate = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(borrowRecordRepository).streamDueLoans(
+            eq("BORROWED"), startDate.capture(), endDate.capture(), anyInt(), any());
+        assertFalse(startDate.getValue().isBefore(before.plusDays(5)));
+        assertTrue(Duration.between(startDate.getValue(), endDate.getValue()).toHours() >= 23);
     }
-    
+
     @Test
     @DisplayName("Test notification method exists and works")
     void testNotificationMethodWorks() {
         // Test that the scheduled method can be called without errors
-        when(borrowRecordRepository.findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class)))
-            .thenReturn(Arrays.asList(testBorrowRecord));
-        
+        stubDueLoans(List.of(testDueLoan));
+
         // Act & Assert - Should not throw any exceptions
         assertDoesNotThrow(() -> {
             scheduledNotificationService.checkOverdueNotifications();
         });
-        
+
         // Verify interaction
-        verify(borrowRecordRepository).findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class));
+        verifyStreamed();
     }
-    
+
     @Test
-    @DisplayName("Test edge case with null records")
-    void testEdgeCaseWithNullRecords() {
-        // Arrange - Return null to test edge case handling
-        when(borrowRecordRepository.findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class)))
-            .thenReturn(null);
-        
-        // Act & Assert - Should handle null gracefully
+    @DisplayName("Test edge case with missing fields")
+    void testEdgeCaseWithMissingFields() {
+        // Arrange - Row with null columns to test edge case handling
+        stubDueLoans(List.of(new DueLoan(3L, null, null, null, null, null, null, null)));
+
+        // Act & Assert - Should handle missing fields gracefully
         assertDoesNotThrow(() -> {
             scheduledNotificationService.checkOverdueNotifications();
         });
-        
-        verify(borrowRecordRepository).findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class));
+
+        verifyStreamed();
     }
-    
+
     @Test
     @DisplayName("Test notification timing is correct")
     void testNotificationTimingIsCorrect() {
         // This test verifies that notifications are sent for books due in exactly 5 days
-        
+
         // Arrange
         LocalDateTime exactlyFiveDaysLater = LocalDateTime.now().plusDays(5);
-        testBorrowRecord.setDueAt(exactlyFiveDaysLater);
-        
-        when(borrowRecordRepository.findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class)))
-            .thenReturn(Arrays.asList(testBorrowRecord));
-        
+        stubDueLoans(List.of(new DueLoan(1L, "Test User", "test@example.com", "Test Book", 1,
+            "Test Library", LocalDateTime.now().minusDays(25), exactlyFiveDaysLater)));
+
         // Act
         assertDoesNotThrow(() -> {
             scheduledNotificationService.checkOverdueNotifications();
         });
-        
+
         // Assert
-        verify(borrowRecordRepository).findByStatusAndDueAtBetween(
-            eq("BORROWED"), any(LocalDateTime.class), any(LocalDateTime.class));
+        verifyStreamed();
     }
 }
\ No newline at end of file
@@ -4,13 +4,15 @@ import com.library.entity.Role;
 import com.library.entity.User;
 import com.library.repository.RoleRepository;
 import com.library.repository.UserRepository;
+import com.library.security.PasswordHashingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,11 +35,14 @@ public class UserServiceTest {
     @MockBean
     private RoleRepository roleRepository;
 
-    @Autowired
-    private ExternalApiService externalApiService;
+    @MockBean
+    private LibrarianVerificationService librarianVerificationService;
+
+    @MockBean
+    private PasswordHashingService passwordHashingService;
 
     @MockBean
-    private PasswordEncoder passwordEncoder;
+    private RefreshTokenService refreshTokenService;
 
     @Autowired
     private UserService userService;
@@ -76,7 +81,7 @@ public class UserServiceTest {
 
         when(userRepository.existsByEmail(email)).thenReturn(false);
         when(roleRepository.findByName("MEMBER")).thenReturn(Optional.of(memberRole));
-        when(passwordEncoder.encode(password)).thenReturn(encodedPassword);
+        when(passwordHashingService.encode(password, "MEMBER")).thenReturn(encodedPassword);
         
         // Create a new user with the expected values
         User expectedUser = new User();
@@ -101,7 +106,7 @@ public class UserServiceTest {
 
         verify(userRepository).existsByEmail(email);
         verify(roleRepository).findByName("MEMBER");
-        verify(passwordEncoder).encode(password);
+        verify(passwordHashingService).encode(password, "MEMBER");
         verify(userRepository).save(any(User.class));
     }
 
@@ -132,19 +137,8 @@ public class UserServiceTest {
 
         when(userRepository.existsByEmail(email)).thenReturn(false);
         when(roleRepository.findByName("LIBRARIAN")).thenReturn(Optional.of(librarianRole));
-        when(passwordEncoder.encode(password)).thenReturn(encodedPassword);
-        // externalApiService is not a Mock, use real logic
-        
-        // Create a new user with the expected values
-        User expectedUser = new User();
-        expectedUser.setId(1L);
-        expectedUser.setName(name);
-        expectedUser.setEmail(email);
-        expectedUser.setPassword(encodedPassword);
-        expectedUser.setRole(librarianRole);
-        expectedUser.setLibrarianId(librarianId);
-        expectedUser.setIsVerified(true);
-        when(userRepository.save(any(User.class))).thenReturn(expectedUser);
+        when(passwordHashingService.encode(password, "LIBRARIAN")).thenReturn(encodedPassword);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         User result = userService.registerLibrarian(name, email, password, librarianId);
@@ -156,13 +150,15 @@ public class UserServiceTest {
         assertEquals(encodedPassword, result.getPassword());
         assertEquals(librarianRole, result.getRole());
         assertEquals(librarianId, result.getLibrarianId());
-        assertTrue(result.getIsVerified());
+        // Verification happens in the background after the registration commits
+        assertFalse(result.getIsVerified());
+        assertNotNull(result.getNextVerificationAt());
 
         verify(userRepository).existsByEmail(email);
         verify(roleRepository).findByName("LIBRARIAN");
-        verify(passwordEncoder).encode(password);
-        // externalApiService is not a Mock, so don't verify
+        verify(passwordHashingService).encode(password, "LIBRARIAN");
         verify(userRepository).save(any(User.class));
+        verify(librarianVerificationService).requestVerificationAfterCommit();
     }
 
     @Test
@@ -269,10 +265,44 @@ public class UserServiceTest {
         // Assert
         assertNotNull(result);
         assertTrue(result.getIsVerified());
+        assertNull(result.getNextVerificationAt());
         verify(userRepository).findById(userId);
         verify(userRepository).save(testUser);
     }
 
+    @Test
+    void testClaimForVerification() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusMinutes(4);
+        when(userRepository.claimForVerification(1L, now, leaseUntil)).thenReturn(1);
+        when(userRepository.claimForVerification(2L, now, leaseUntil)).thenReturn(0);
+
+        // Act & Assert - 0 rows means another instance claimed it first
+        assertTrue(userService.claimForVerification(1L, now, leaseUntil));
+        assertFalse(userService.claimForVerification(2L, now, leaseUntil));
+    }
+
+    @Test
+    void testRescheduleVerification_Success() {
+        // Arrange
+        Long userId = 1L;
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plusMinutes(5);
+        testUser.setVerificationAttempts(2);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+
+        // Act
+        userService.rescheduleVerification(userId, nextAttemptAt);
+
+        // Assert
+        ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+        verify(userRepository).save(saved.capture());
+        assertEquals(3, saved.getValue().getVerificationAttempts());
+        assertEquals(nextAttemptAt, saved.getValue().getNextVerificationAt());
+        assertFalse(saved.getValue().getIsVerified());
+    }
+
     @Test
     void testUpdateUser_Success() {
         // Arrange
@@ -283,7 +313,7 @@ public class UserServiceTest {
         String encodedPassword = "encodedNewPassword";
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.encode(newPassword)).thenReturn(encodedPassword);
+        when(passwordHashingService.encode(newPassword, "MEMBER")).thenReturn(encodedPassword);
         when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // Act
@@ -295,7 +325,8 @@ public class UserServiceTest {
         assertEquals(newEmail, result.getEmail());
         assertEquals(encodedPassword, result.getPassword());
         verify(userRepository).findById(userId);
-        verify(passwordEncoder).encode(newPassword);
+        verify(passwordHashingService).encode(newPassword, "MEMBER");
+        verify(refreshTokenService).revokeAllForUser(userId);
         verify(userRepository).save(testUser);
     }
 